@@ -1,5 +1,8 @@
 package waypoint;  
 
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Locale;
 
 /**
@@ -15,19 +18,18 @@ public class Arc extends NavPath {
     boolean clockwise;  // true if direction from startAngle to endAngle decreases angle from center
 
     /**
-     * Return an Arc, tangent to a given Navpoint, that also intersects a given Point
+     * Return an Arc, tangent to a given Navpoint, that also intersects a given Point; null if there is none
      */
     public static Arc calcArcNavPointToPoint(NavPoint npt, Point pt) {
-        // Construct a line between the NavPoint and the Point
-        // Then find the perpendicular bisector of the line at the midpoint between the Navpoint and Point
-        StdLine line = StdLine.twoPointsToStdLine(npt.pt, pt);
-        Point midpt = new Point((npt.pt.x+pt.x)/2.0, (npt.pt.y+pt.y)/2.0);
-        StdLine perp = StdLine.perpLineAtPoint(line, midpt);
-        // The intersection of the bisector and the perpendicular line to the NavPoint is the center of the Arc
-        StdLine navline = npt.toStdLine();
-        StdLine navperp = StdLine.perpLineAtPoint(navline, npt.pt);
-        Point center = StdLine.intersectionPoint(perp, navperp);
-        return new Arc(center, npt.pt, pt);
+        // The center of the Arc is the intersection of the perpendicular bisector of the line between
+        // the NavPoint and the Point, and the perpendicular line to the NavPoint.
+        // The lines are parallel, and there is no such Arc, when the Point is straight ahead of or behind the NavPoint
+        double[] center = new double[2];
+        if (!Geometry.tangentArcCenter(npt.pt.x, npt.pt.y, npt.heading, pt.x, pt.y,
+                                       new double[Geometry.TANGENT_ARC_SCRATCH], center, 0)) {
+            return null;
+        }
+        return new Arc(new Point(center[0], center[1]), npt.pt, pt);
     }
     
     public static double tangentAngle(Point c, Point a, boolean clockwise) {
@@ -77,6 +79,155 @@ public class Arc extends NavPath {
     }
     
     
+    /**
+     * Return the distance along an arc of the projection of a given point onto it, from the center:
+     * the shorter way around from the starting angle to the point.
+     */
+    public static double project(double cx, double cy, double radius, double startAngle, boolean clockwise,
+                                 double px, double py) {
+        double rtheta = Math.atan2(py - cy, px - cx);
+        return Math.min(calcLength(clockwise, startAngle, rtheta, radius),
+                        calcLength(!clockwise, startAngle, rtheta, radius));
+    }
+    
+    /**
+     * Return how far outside a circle a given point is; negative inside.
+     */
+    public static double radialError(double cx, double cy, double radius, double px, double py) {
+        double dx = px - cx;
+        double dy = py - cy;
+        return Math.sqrt(dx*dx + dy*dy) - radius;
+    }
+    
+    /**
+     * Return the heading along an arc at the angle of a given point from the center.
+     */
+    public static double tangentAt(double cx, double cy, boolean clockwise, double px, double py) {
+        double rtheta = Math.atan2(py - cy, px - cx);
+        return clockwise ? rtheta - Math.PI/2.0 : rtheta + Math.PI/2.0;
+    }
+    
+    public double length() {
+        return length;
+    }
+    
+    public double trackLength(double offset) {
+        return Math.abs(radius + (clockwise ? 0.0 - offset : offset)) * calcLength(clockwise, startAngle, endAngle, 1.0);
+    }
+    
+    /**
+     * An Arc of radius 0.0 turns in place, so every pose along it is at its starting point,
+     * facing its starting angle, which is a heading.
+     */
+    public NavPoint poseAt(double s) {
+        if (radius <= 0.0) {
+            return new NavPoint(new Point(i.pt.x, i.pt.y), startAngle);
+        }
+        s = Math.max(0.0, Math.min(length, s));
+        double direction = clockwise ? -1.0 : 1.0;
+        double angle = startAngle + direction * s / radius;
+        return new NavPoint(new Point(center.x + radius*Math.cos(angle), center.y + radius*Math.sin(angle)),
+                            angle + direction*Math.PI/2.0);
+    }
+    
+    public double project(Point pt) {
+        return project(center.x, center.y, radius, startAngle, clockwise, pt.x, pt.y);
+    }
+    
+    public Vector crossTrackError(NavPoint pose) {
+        Vector error = new Vector();
+        error.heading = tangentAt(center.x, center.y, clockwise, pose.pt.x, pose.pt.y) - pose.heading;
+        error.magnitude = radialError(center.x, center.y, radius, pose.pt.x, pose.pt.y);
+        return error;
+    }
+    
+    /**
+     * The curvature is 1/radius all along the Arc; an Arc of radius 0.0 turns in place.
+     */
+    public double curvatureAt(double s) {
+        if (radius <= 0.0) { return 0.0; }
+        return clockwise ? -1.0/radius : 1.0/radius;
+    }
+    
+    public double headingChange() {
+        if (radius <= 0.0) {
+            return (clockwise ? -1.0 : 1.0) * calcLength(clockwise, startAngle, endAngle, 1.0);
+        }
+        return (clockwise ? -length : length) / radius;
+    }
+    
+    /**
+     * An Arc of radius 0.0 turns in place.
+     */
+    public boolean isTurnInPlace() {
+        return radius <= 0.0;
+    }
+    
+    public NavPath[] splitAt(double s) {
+        if (radius <= 0.0) { return null; }
+        NavPoint mid = poseAt(s);
+        double angle = Point.radianAngle(center, mid.pt);
+        Arc first = new Arc(center.x, center.y, radius, startAngle, angle, clockwise);
+        first.i = i;
+        first.o = mid;
+        Arc second = new Arc(center.x, center.y, radius, angle, endAngle, clockwise);
+        second.i = new NavPoint(mid.pt, mid.heading);
+        second.o = o;
+        return split(first, second, s);
+    }
+    
+    /**
+     * The Arc keeps its center and radius, and ends at the angle of the end from the center.
+     */
+    public NavPath endingAt(NavPoint end) {
+        if (radius <= 0.0) { return null; }
+        Arc arc = new Arc(center.x, center.y, radius, startAngle, Point.radianAngle(center, end.pt), clockwise);
+        arc.i = i;
+        arc.o = end;
+        return rebuilt(arc);
+    }
+    
+    /**
+     * The Arc keeps its center and radius, and starts at the angle of the start from the center.
+     */
+    public NavPath startingAt(NavPoint start) {
+        if (radius <= 0.0) { return null; }
+        Arc arc = new Arc(center.x, center.y, radius, Point.radianAngle(center, start.pt), endAngle, clockwise);
+        arc.i = start;
+        arc.o = o;
+        return rebuilt(arc);
+    }
+    
+    /**
+     * The bounding box takes in the endpoints, and the points furthest along each axis
+     * that the Arc sweeps through.
+     */
+    public double[] bounds() {
+        double[] b = { Math.min(i.pt.x, o.pt.x), Math.min(i.pt.y, o.pt.y),
+                       Math.max(i.pt.x, o.pt.x), Math.max(i.pt.y, o.pt.y) };
+        double sweep = calcLength(clockwise, startAngle, endAngle, 1.0);
+        for (int k = 0; k < 4; k++) {
+            double angle = (k-1)*Math.PI/2.0;   // -90, 0, 90 and 180 degrees
+            if (calcLength(clockwise, startAngle, angle, 1.0) <= sweep) {
+                double x = center.x + radius*Math.cos(angle);
+                double y = center.y + radius*Math.sin(angle);
+                b[0] = Math.min(b[0], x);
+                b[1] = Math.min(b[1], y);
+                b[2] = Math.max(b[2], x);
+                b[3] = Math.max(b[3], y);
+            }
+        }
+        return b;
+    }
+    
+    public void emitTo(Writer writer) throws IOException {
+        writer.write("ARC\t"+startAngle+"\t"+endAngle+"\t"+center.x+"\t"+center.y+"\t"+radius+"\t"+orientation+"\t"+clockwise+turnColumn()+"\n");
+    }
+    
+    public void draw(Renderer renderer, double offset, Color color) {
+        renderer.arc(center.x, center.y, radius + (clockwise ? 0.0 - offset : offset), startAngle, endAngle, clockwise, color);
+    }
+    
     /**
      * Return a String with description of this Arc.
      */
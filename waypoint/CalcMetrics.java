@@ -0,0 +1,235 @@
+package waypoint;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Hit-rate and latency metrics of CalcPath.
+ *
+ * For each branch of resolveConnection, CalcMetrics counts how often it is tried and how
+ * often it resolves the connection, and keeps a histogram of how long a try takes.
+ * It also counts the candidates findVectorCurve rejects, by reason. The counts are kept
+ * for the whole application, since any number of threads may be solving paths at once.
+ *
+ * A branch's time includes the branches it tries in turn: the waypoint search and the
+ * path planner resolve many connections of their own, which are counted as well.
+ */
+public final class CalcMetrics {
+
+    // Branches of resolveConnection, in the order they are tried
+    public enum Branch {
+        COINCIDENT("coincident"),
+        HOLONOMIC("holonomic"),
+        COLINEAR("colinear"),
+        SPLINE("Spline"),
+        VECTOR_ARC("Vector->Arc"),
+        ARC_VECTOR("Arc->Vector"),
+        ARC_VECTOR_ARC("Arc->Vector->Arc"),
+        STRAFE("strafe"),
+        SEARCH("Waypoint Search"),
+        GAP("Gap"),
+        PLANNER("Path Planner");
+
+        public final String label;
+        Branch(String label) { this.label = label; }
+    }
+
+    // Reasons findVectorCurve rejects a candidate Circle or solution
+    public enum Rejection {
+        NO_CIRCLE("no circles found"),
+        CENTER_BEHIND("circle center with y < 0.0"),
+        OPPOSITE_HEADING("arc heading opposite to target heading"),
+        REVERSAL_DISALLOWED("reversal needed but waypoint reversals not permitted"),
+        AMBIGUOUS("no sole non-reversal path");
+
+        public final String label;
+        Rejection(String label) { this.label = label; }
+    }
+
+    // Latencies are binned by powers of two of nanoseconds: bin k holds [2^k, 2^(k+1)) ns.
+    private static final int BINS = 40;   // up to about 18 minutes
+
+    private static final int BRANCHES = Branch.values().length;
+    private static final AtomicLongArray attempts  = new AtomicLongArray(BRANCHES);
+    private static final AtomicLongArray resolved  = new AtomicLongArray(BRANCHES);
+    private static final AtomicLongArray totalNanos = new AtomicLongArray(BRANCHES);
+    private static final AtomicLongArray latency   = new AtomicLongArray(BRANCHES*BINS);
+    private static final AtomicLongArray rejections = new AtomicLongArray(Rejection.values().length);
+
+    private static ScheduledExecutorService dumper = null;
+    private static ScheduledFuture<?> dump = null;
+
+    /**
+     * Record a try of a branch.
+     * @param branch  - branch tried
+     * @param nanos   - time the try took
+     * @param success - true if the branch resolved the connection
+     */
+    public static void record(Branch branch, long nanos, boolean success) {
+        int b = branch.ordinal();
+        attempts.incrementAndGet(b);
+        if (success) { resolved.incrementAndGet(b); }
+        totalNanos.addAndGet(b, nanos);
+        latency.incrementAndGet(b*BINS + bin(nanos));
+    }
+
+    /**
+     * Record a candidate rejected by findVectorCurve.
+     */
+    public static void reject(Rejection reason) {
+        rejections.incrementAndGet(reason.ordinal());
+    }
+
+    private static int bin(long nanos) {
+        int k = 63 - Long.numberOfLeadingZeros(Math.max(1L, nanos));
+        return Math.min(k, BINS-1);
+    }
+
+    /**
+     * Return a copy of the metrics as they are now.
+     */
+    public static Snapshot snapshot() {
+        Snapshot s = new Snapshot();
+        for (int b = 0; b < BRANCHES; b++) {
+            s.attempts[b]   = attempts.get(b);
+            s.resolved[b]   = resolved.get(b);
+            s.totalNanos[b] = totalNanos.get(b);
+            for (int k = 0; k < BINS; k++) {
+                s.latency[b][k] = latency.get(b*BINS + k);
+            }
+        }
+        for (int r = 0; r < s.rejections.length; r++) {
+            s.rejections[r] = rejections.get(r);
+        }
+        return s;
+    }
+
+    /**
+     * Set every count back to zero.
+     */
+    public static void reset() {
+        for (int b = 0; b < BRANCHES; b++) {
+            attempts.set(b, 0);
+            resolved.set(b, 0);
+            totalNanos.set(b, 0);
+        }
+        for (int k = 0; k < latency.length(); k++) {
+            latency.set(k, 0);
+        }
+        for (int r = 0; r < rejections.length(); r++) {
+            rejections.set(r, 0);
+        }
+    }
+
+    /**
+     * Log a snapshot of the metrics through Diagnostics, at INFO, every given number of seconds.
+     * @param seconds - seconds between dumps; 0 or less stops dumping
+     */
+    public static synchronized void dumpEvery(long seconds) {
+        if (dump != null) {
+            dump.cancel(false);
+            dump = null;
+        }
+        if (seconds <= 0) { return; }
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "CalcMetrics dump");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        dump = dumper.scheduleAtFixedRate(() -> Diagnostics.info("CalcMetrics", () -> snapshot().toString()),
+                                          seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Return the dump period named by a settings value, such as CALC_METRICS_DUMP_SECONDS,
+     * or 0 (no dumps) if the value is missing or not a number.
+     */
+    public static long dumpSecondsFromSetting(String value) {
+        if (value == null) { return 0; }
+        try {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e) {
+            System.out.println("CALC_METRICS_DUMP_SECONDS is not a number: "+value+", not dumping");
+            return 0;
+        }
+    }
+
+    /**
+     * Metrics of CalcPath at one moment.
+     */
+    public static final class Snapshot {
+        final long[]   attempts   = new long[BRANCHES];
+        final long[]   resolved   = new long[BRANCHES];
+        final long[]   totalNanos = new long[BRANCHES];
+        final long[][] latency    = new long[BRANCHES][BINS];
+        final long[]   rejections = new long[Rejection.values().length];
+
+        public long attempts(Branch b)      { return attempts[b.ordinal()]; }
+        public long resolved(Branch b)      { return resolved[b.ordinal()]; }
+        public long rejections(Rejection r) { return rejections[r.ordinal()]; }
+
+        /**
+         * Return the fraction of tries of a branch that resolved the connection; 0.0 if never tried.
+         */
+        public double hitRate(Branch b) {
+            long n = attempts[b.ordinal()];
+            return (n == 0) ? 0.0 : (double) resolved[b.ordinal()] / n;
+        }
+
+        /**
+         * Return the mean time of a try of a branch, in milliseconds; 0.0 if never tried.
+         */
+        public double meanMillis(Branch b) {
+            long n = attempts[b.ordinal()];
+            return (n == 0) ? 0.0 : totalNanos[b.ordinal()] / 1.0e6 / n;
+        }
+
+        /**
+         * Return the time within which a given fraction of the tries of a branch finished,
+         * in milliseconds, to within a factor of two; 0.0 if never tried.
+         * @param p - fraction of tries, such as 0.5 or 0.99
+         */
+        public double percentileMillis(Branch b, double p) {
+            long n = attempts[b.ordinal()];
+            if (n == 0) { return 0.0; }
+            long rank = (long) Math.ceil(p * n);
+            long seen = 0;
+            for (int k = 0; k < BINS; k++) {
+                seen += latency[b.ordinal()][k];
+                if (seen >= rank) {
+                    return Math.pow(2.0, k+1) / 1.0e6;   // upper edge of the bin
+                }
+            }
+            return Math.pow(2.0, BINS) / 1.0e6;
+        }
+
+        /**
+         * Table of these metrics, one line per branch and one per rejection reason.
+         */
+        public String toString() {
+            StringBuilder sb = new StringBuilder("CalcPath metrics\n");
+            sb.append(String.format(Locale.US, "  %-18s %9s %9s %7s %10s %10s %10s%n",
+                                    "branch", "tries", "resolved", "hit%", "mean ms", "p50 ms", "p99 ms"));
+            for (Branch b : Branch.values()) {
+                sb.append(String.format(Locale.US, "  %-18s %9d %9d %7.1f %10.4f %10.4f %10.4f%n",
+                                        b.label, attempts(b), resolved(b), 100.0*hitRate(b),
+                                        meanMillis(b), percentileMillis(b, 0.5), percentileMillis(b, 0.99)));
+            }
+            sb.append("  findVectorCurve rejections\n");
+            for (Rejection r : Rejection.values()) {
+                sb.append(String.format(Locale.US, "  %-55s %9d%n", r.label, rejections(r)));
+            }
+            return sb.toString();
+        }
+    }
+
+    private CalcMetrics() {
+    }
+}
@@ -0,0 +1,186 @@
+package waypoint;
+
+import java.util.Map;
+
+/**
+ * Class to hold the options CalcPath solves paths with.
+ * CalcOptions are immutable: the with...() methods return a changed copy, so one
+ * CalcOptions can be shared by any number of threads solving paths at once.
+ */
+public final class CalcOptions {
+
+    final boolean allowWaypointReversals;  // a connection may reverse direction at a stop
+    final boolean allowStrafe;             // parallel, co-oriented NavPoints may be connected by strafing
+    final boolean waypointSearch;          // search for an intermediate waypoint before giving up with a Gap
+    final ClearanceField clearanceField;   // clearance of the field to score paths by; null to score by length
+    final double clearanceMargin;          // clearance the robot needs about the path reference point, in inches
+    final PathPlanner pathPlanner;         // plans around field obstacles; null to not plan
+    final boolean splineConnections;       // connect NavPoints by Splines where they fit, for continuous curvature
+    final double smoothTolerance;          // position tolerance of the PathSmoother post-pass, in inches; 0.0 to not smooth
+    final FeasibilityChecker feasibility;  // connections must keep within the robot's turn limits; null to not check
+    final boolean holonomic;               // plan translation alone, with a separate profile of the way the robot faces
+    final double maxTurnRate;              // fastest a holonomic robot turns as it travels, in degrees per second
+    final double fullSpeed;                // inches per second the robot travels forward at full power
+    final double trackWidth;               // distance between the centers of the robot's left and right wheels, in inches
+
+    public static final double DEFAULT_MAX_TURN_RATE = 180.0;   // degrees per second
+
+    /**
+     * Return a copy of these options with the CALC_ settings from a Map of settings parameters:
+     *   CALC_ALLOW_WAYPOINT_REVERSALS  true or false
+     *   CALC_ALLOW_STRAFE              true or false
+     *   CALC_WAYPOINT_SEARCH           true or false (unchanged if missing)
+     *   CALC_SPLINE_CONNECTIONS        true or false (unchanged if missing)
+     *   CALC_SMOOTH_TOLERANCE          inches, 0.0 to not smooth (unchanged if missing)
+     *   CALC_HOLONOMIC                 true or false (unchanged if missing)
+     *   CALC_MAX_TURN_RATE             degrees per second (unchanged if missing)
+     */
+    public CalcOptions withSettings(Map<String, String> parameters) {
+        // Waypoint search is on unless a settings file turns it off.
+        boolean search = waypointSearch;
+        if (parameters.containsKey("CALC_WAYPOINT_SEARCH")) {
+            search = Boolean.parseBoolean(parameters.get("CALC_WAYPOINT_SEARCH"));
+        }
+        boolean splines = splineConnections;
+        if (parameters.containsKey("CALC_SPLINE_CONNECTIONS")) {
+            splines = Boolean.parseBoolean(parameters.get("CALC_SPLINE_CONNECTIONS"));
+        }
+        double smooth = smoothTolerance;
+        if (parameters.containsKey("CALC_SMOOTH_TOLERANCE")) {
+            smooth = smoothToleranceFromSetting(parameters.get("CALC_SMOOTH_TOLERANCE"));
+        }
+        boolean holo = holonomic;
+        if (parameters.containsKey("CALC_HOLONOMIC")) {
+            holo = Boolean.parseBoolean(parameters.get("CALC_HOLONOMIC"));
+        }
+        double rate = maxTurnRate;
+        if (parameters.containsKey("CALC_MAX_TURN_RATE")) {
+            rate = maxTurnRateFromSetting(parameters.get("CALC_MAX_TURN_RATE"));
+        }
+        return new CalcOptions(Boolean.parseBoolean(parameters.get("CALC_ALLOW_WAYPOINT_REVERSALS")),
+                               Boolean.parseBoolean(parameters.get("CALC_ALLOW_STRAFE")),
+                               search, clearanceField, clearanceMargin, pathPlanner, splines, smooth, feasibility,
+                               holo, rate, fullSpeed, trackWidth);
+    }
+
+    /**
+     * Return a copy of these options scoring paths by a given clearance of the field.
+     * @param field  - clearance of the field; null to score paths by length alone
+     * @param margin - clearance the robot needs about the path reference point, in inches
+     */
+    public CalcOptions withClearanceField(ClearanceField field, double margin) {
+        return new CalcOptions(allowWaypointReversals, allowStrafe, waypointSearch, field, margin, pathPlanner,
+                               splineConnections, smoothTolerance, feasibility, holonomic, maxTurnRate, fullSpeed, trackWidth);
+    }
+
+    /**
+     * Return a copy of these options planning around field obstacles with a given planner.
+     * @param planner - path planner of the field; null to not plan around obstacles
+     */
+    public CalcOptions withPathPlanner(PathPlanner planner) {
+        return new CalcOptions(allowWaypointReversals, allowStrafe, waypointSearch, clearanceField, clearanceMargin, planner,
+                               splineConnections, smoothTolerance, feasibility, holonomic, maxTurnRate, fullSpeed, trackWidth);
+    }
+
+    /**
+     * Return a copy of these options keeping connections within the turn limits of a robot:
+     * a connection the robot cannot drive is solved again another way, wider where possible.
+     * @param checker - feasibility of paths for the robot; null to not check connections
+     */
+    public CalcOptions withFeasibility(FeasibilityChecker checker) {
+        return new CalcOptions(allowWaypointReversals, allowStrafe, waypointSearch, clearanceField, clearanceMargin, pathPlanner,
+                               splineConnections, smoothTolerance, checker, holonomic, maxTurnRate, fullSpeed, trackWidth);
+    }
+
+    /**
+     * Return a copy of these options for the robot a robot file describes: its forward speed at
+     * full power, from its motors and drivetrain, and its track width, which the TIME cost of
+     * a path and the turn a holonomic robot makes per inch are figured from.
+     * @param robot - Map of the robot file's keys and values; null for the robot the simulation
+     *                drives without a robot file
+     */
+    public CalcOptions withRobot(Map<String, String> robot) {
+        Drivetrain drivetrain = Drivetrain.forRobot(robot);
+        double speed = drivetrain.forwardSpeed(MotorModel.forRobot(robot).freeSpeed());
+        return new CalcOptions(allowWaypointReversals, allowStrafe, waypointSearch, clearanceField, clearanceMargin, pathPlanner,
+                               splineConnections, smoothTolerance, feasibility, holonomic, maxTurnRate,
+                               speed, drivetrain.trackWidth());
+    }
+
+    /**
+     * Return the smoothing tolerance named by a settings value, such as CALC_SMOOTH_TOLERANCE;
+     * 0.0, not smoothing, if the value is missing or not a non-negative number.
+     */
+    public static double smoothToleranceFromSetting(String value) {
+        if (value == null) { return 0.0; }
+        try {
+            double tolerance = Double.parseDouble(value.trim());
+            if (tolerance >= 0.0) { return tolerance; }
+        }
+        catch (NumberFormatException e) {
+        }
+        System.out.println("CALC_SMOOTH_TOLERANCE is not a non-negative number: "+value+", not smoothing");
+        return 0.0;
+    }
+
+    /**
+     * Return the turn rate named by a settings value, such as CALC_MAX_TURN_RATE;
+     * DEFAULT_MAX_TURN_RATE if the value is missing or not a positive number.
+     */
+    public static double maxTurnRateFromSetting(String value) {
+        if (value == null) { return DEFAULT_MAX_TURN_RATE; }
+        try {
+            double rate = Double.parseDouble(value.trim());
+            if (rate > 0.0) { return rate; }
+        }
+        catch (NumberFormatException e) {
+        }
+        System.out.println("CALC_MAX_TURN_RATE is not a positive number: "+value+", using "+DEFAULT_MAX_TURN_RATE);
+        return DEFAULT_MAX_TURN_RATE;
+    }
+
+    /**
+     * String of these options
+     */
+    public String toString() {
+        return "allow_waypoint_reversals:"+allowWaypointReversals+" allow_strafe:"+allowStrafe+
+               " waypoint_search:"+waypointSearch+" clearance:"+(clearanceField != null)+
+               " planner:"+(pathPlanner != null)+" splines:"+splineConnections+
+               " smooth_tolerance:"+smoothTolerance+" feasibility:"+(feasibility != null)+
+               " holonomic:"+holonomic+" max_turn_rate:"+maxTurnRate+
+               " full_speed:"+fullSpeed+" track_width:"+trackWidth;
+    }
+
+    /**
+     * Constructor of the default options: reversals, strafing and waypoint search allowed,
+     * paths scored by length, no planning around field obstacles, no Spline connections, no smoothing,
+     * no checking of connections against the robot's turn limits and no holonomic planning,
+     * for the robot the simulation drives without a robot file.
+     */
+    public CalcOptions() {
+        this(true, true, true, null, 0.0, null, false, 0.0, null, false, DEFAULT_MAX_TURN_RATE,
+             MotorModel.DEFAULT_FREE_SPEED, SimRobot.DEFAULT_WIDTH_INCHES);
+    }
+
+    /**
+     * Constructor
+     */
+    public CalcOptions(boolean allowWaypointReversals, boolean allowStrafe, boolean waypointSearch,
+                       ClearanceField clearanceField, double clearanceMargin, PathPlanner pathPlanner,
+                       boolean splineConnections, double smoothTolerance, FeasibilityChecker feasibility,
+                       boolean holonomic, double maxTurnRate, double fullSpeed, double trackWidth) {
+        this.allowWaypointReversals = allowWaypointReversals;
+        this.allowStrafe = allowStrafe;
+        this.waypointSearch = waypointSearch;
+        this.clearanceField = clearanceField;
+        this.clearanceMargin = clearanceMargin;
+        this.pathPlanner = pathPlanner;
+        this.splineConnections = splineConnections;
+        this.smoothTolerance = smoothTolerance;
+        this.feasibility = feasibility;
+        this.holonomic = holonomic;
+        this.maxTurnRate = maxTurnRate;
+        this.fullSpeed = fullSpeed;
+        this.trackWidth = trackWidth;
+    }
+}
@@ -3,6 +3,9 @@ package waypoint;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * CalcPath - build a robot path from Vectors and Arcs. :)
@@ -10,8 +13,27 @@ import java.util.List;
 public class CalcPath {
 
     SettingsFrame mySettings = null;
-    boolean allow_waypoint_reversals = true;
-    boolean allow_strafe = true;
+    
+    // Options the GUI solves paths with, kept in step with mySettings. Solving only reads
+    // the CalcOptions it is given, so callers with options of their own may share one CalcPath.
+    volatile CalcOptions options = new CalcOptions();
+    
+    // Intermediate waypoint search (step 7 of resolveConnection) samples candidate NavPoints
+    // on rings around the midpoint of the two NavPoints being connected.
+    private static final int    SEARCH_RINGS    = 4;    // rings of candidate positions, including the midpoint itself
+    private static final int    SEARCH_BEARINGS = 16;   // candidate positions per ring
+    private static final int    SEARCH_HEADINGS = 16;   // candidate headings per position
+    private static final double SEARCH_SPAN     = 0.75; // radius of outermost ring, as a fraction of NavPoint separation
+    
+    // When the clearance of the field is known, search candidates are scored by their length plus
+    // a penalty for every inch driven with less clearance than the robot needs about the path.
+    private static final double CLEARANCE_PENALTY = 10.0;   // score per inch driven, per inch of clearance short
+    private static final double CLEARANCE_STEP    = 1.0;    // inches between clearance samples along a path
+    
+    private static final String DIAG = "CalcPath";  // source of this class's diagnostics
+    
+    // failure reason of a fit passed over for turning tighter than the robot's turn limits allow
+    private static final String TOO_TIGHT = "turn tighter than the robot can drive";
     
     /**
      * Root method for running path generation algorithm.
@@ -20,23 +42,49 @@ public class CalcPath {
      */
     public List<NavPath> genPath (List<NavPoint> navpoints) {
         updateCalcParameters();
-        System.out.println("allow_waypoint_reversals:"+allow_waypoint_reversals);
+        return genPath(navpoints, options);
+    }
+    
+    /**
+     * Run the path generation algorithm with given options. This reads no settings of this
+     * CalcPath, so any number of threads may call it at once, each with options of its own.
+     * @param navpoints - List of NavPoints, in sequence, to calculate a path for
+     * @param options   - options to solve the path with
+     * @return          - List of NavPaths representing the calculated path
+     */
+    public List<NavPath> genPath (List<NavPoint> navpoints, CalcOptions options) {
+        Diagnostics.info(DIAG, () -> options.toString());
         if (navpoints == null) {
-            System.out.println("No navpoints for genPath.");
+            Diagnostics.warn(DIAG, () -> "No navpoints for genPath.");
             return null;
         }
         if (navpoints.size() < 2) {
-            System.out.println("Number of navpoints: "+navpoints.size()+"; too few for a full genPath.");
+            Diagnostics.warn(DIAG, () -> "Number of navpoints: "+navpoints.size()+"; too few for a full genPath.");
             return null;
         }
+        FlightEvents.GenPath genPathEvent = new FlightEvents.GenPath(navpoints.size());
         List<NavPath> path = new ArrayList<>();
         for (int i = 0; i < navpoints.size()-1; i++) {
-            System.out.println("Resolving Connection between NavPoints: "+i+","+(i+1));
-            List<NavPath> subpath = resolveConnection(navpoints.get(i), navpoints.get(i+1));
+            final int n = i;
+            Diagnostics.debug(DIAG, () -> "Resolving Connection between NavPoints: "+n+","+(n+1));
+            List<NavPath> subpath = resolveConnection(navpoints.get(i), navpoints.get(i+1), options);
             for (NavPath p : subpath) {
                 path.add(p);
             }
         }
+        if (options.smoothTolerance > 0.0) {
+            PathSmoother.Result smoothed = PathSmoother.smooth(path, options.smoothTolerance);
+            Diagnostics.info(DIAG, () -> smoothed.toString());
+            path = smoothed.path;
+            genPathEvent.smoothingRemoved = smoothed.removed();
+        }
+        if (options.holonomic) {
+            OrientationProfile.Result profiled = OrientationProfile.profile(path, navpoints, options.maxTurnRate, options.fullSpeed);
+            Diagnostics.info(DIAG, () -> profiled.toString());
+            path = profiled.path;
+        }
+        genPathEvent.pathElements = path.size();
+        genPathEvent.commit();
         return path;
     }
     
@@ -47,100 +95,426 @@ public class CalcPath {
      * return      - List of NavPaths to get from initial NavPoint to final NavPoint
      */
     public List<NavPath> resolveConnection(NavPoint npt1, NavPoint npt2) {
+        return resolveConnection(npt1, npt2, options);
+    }
+    
+    /**
+     * Find a path, if possible, of Vectors and Arcs between two given waypoints.
+     * @param npt1    - Initial NavPoint
+     * @param npt2    - Final NavPoint
+     * @param options - options to solve the connection with
+     * return         - List of NavPaths to get from initial NavPoint to final NavPoint
+     */
+    public List<NavPath> resolveConnection(NavPoint npt1, NavPoint npt2, CalcOptions options) {
     
         // A sequence of geometric solutions are proposed to resolve moving from
         // the initial NavPoint, npt1 to the final NavPoint, npt2:
         //
         // 1. Check if NavPoints are coincident
+        //    (if planning for a holonomic robot) Travel straight between the NavPoints
         // 2. Check if NavPoints are colinear
+        //    (if Spline connections are on) Check for a Spline fit
         // 3. Check for Vector+Arc fit
         // 4. Check for Arc+Vector fit
         // 5. Check if an intermediate waypoint guides to a solution
         // 6. Check if simple strafing fits
+        // 7. Search for an intermediate waypoint that resolves the connection in two hops
+        // 8. Plan a way around the field's obstacles if the path runs into one
+        //
+        // If the options check connections against the robot's turn limits, a fit in steps 2-5
+        // that turns tighter than the robot can drive is passed over, so a wider fit, or one
+        // through an intermediate waypoint, is found instead.
+        //
+        // A holonomic robot moves in any direction whichever way it faces, so its connections
+        // are solved for translation alone; genPath then lays the way the robot faces along the
+        // path with an OrientationProfile.
+    
+        List<NavPath> path = resolveConnection(npt1, npt2, options, options.waypointSearch);
+        if (options.pathPlanner != null && options.pathPlanner.collides(path)) {
+            Attempt attempt = strategy(CalcMetrics.Branch.PLANNER);
+            List<NavPath> planned = options.pathPlanner.planConnection(this, options, npt1, npt2);
+            if (planned != null) {
+                resolved(attempt);
+                return planned;
+            }
+            failed(attempt, "no clear way around obstacles");
+        }
+        return path;
+    }
+    
+    /**
+     * Find a path, if possible, of Vectors and Arcs between two given waypoints.
+     * @param npt1    - Initial NavPoint
+     * @param npt2    - Final NavPoint
+     * @param options - options to solve the connection with
+     * @param search  - true to fall back on the intermediate waypoint search before giving up with a Gap
+     * return         - List of NavPaths to get from initial NavPoint to final NavPoint
+     */
+    List<NavPath> resolveConnection(NavPoint npt1, NavPoint npt2, CalcOptions options, boolean search) {
     
         List<NavPath> path = new ArrayList<>();
         
         // 1. If the NavPoints are coincident then use an Arc (radius=0.0) to connect them.
+        Attempt attempt = strategy(CalcMetrics.Branch.COINCIDENT);
         if (npt1.isCoincident(npt2)) {
             Arc a = new Arc(npt1.pt, 0.0, npt1.heading, npt2.heading);
             a.stop = true;
             path.add(a);
-            System.out.println("Navpoints are coincident");
+            resolved(attempt);
             return path;
         } 
+        failed(attempt, "NavPoints not coincident");
+        
+        //    If planning for a holonomic robot, travel straight from one position to the next.
+        //    The NavPoints' headings are the ways the robot faces there, which genPath's
+        //    OrientationProfile turns the robot through as it travels.
+        if (options.holonomic) {
+            attempt = strategy(CalcMetrics.Branch.HOLONOMIC);
+            path.add(new Vector(npt1.pt, npt2.pt, npt2.stop));
+            resolved(attempt);
+            return path;
+        }
         
         // 2. If the NavPoints are colinear then use a Vector to connect them.
+        attempt = strategy(CalcMetrics.Branch.COLINEAR);
         Vector vector = Vector.genVector(npt1, npt2);
         if (vector != null) { 
             vector.stop = npt2.stop;
             path.add(vector);
-            System.out.println("Navpoints are colinear");
+            resolved(attempt);
             return path;
         }        
+        failed(attempt, "NavPoints not colinear");
+        
+        //    If Spline connections are on, and a Spline fits, use it rather than the Vector and Arc
+        //    fits below, so the path keeps continuous curvature through the connection.
+        if (options.splineConnections) {
+            attempt = strategy(CalcMetrics.Branch.SPLINE);
+            Spline spline = Spline.genSpline(npt1, npt2);
+            if (spline != null && isDrivable(Collections.singletonList(spline), options)) {
+                path.add(spline);
+                resolved(attempt);
+                return path;
+            }
+            failed(attempt, (spline == null) ? "NavPoints not ahead of each other, co-oriented and within 90 degrees of heading"
+                                             : TOO_TIGHT);
+        }
         
         // 3. If the target NavPoint can be reached with a Vector + Arc then connect them.
         //    consider Vector->Arc from initial NavPoint to final NavPoint
         //                
-        System.out.println("--Vector->Arc--");
-        List<NavPath> vectorCurve = findVectorCurve(npt1, npt2, true);
-        if (vectorCurve != null) {
+        attempt = strategy(CalcMetrics.Branch.VECTOR_ARC);
+        List<NavPath> vectorCurve = findVectorCurve(npt1, npt2, true, options);
+        if (vectorCurve != null && isDrivable(vectorCurve, options)) {
+            resolved(attempt);
             return vectorCurve;
         }
+        failed(attempt, (vectorCurve == null) ? "no Vector and Arc fit" : TOO_TIGHT);
         
         // 4. Consider in reverse Vector->Arc from final NavPoint to initial NavPoint, 
         //      which equates to Arc->Vector from initial NavPoint to final NavPoint.
         //
-        System.out.println("--Arc->Vector--");
-        List<NavPath> curveVector = findCurveVector(npt1, npt2);
-        if (curveVector != null) {
+        attempt = strategy(CalcMetrics.Branch.ARC_VECTOR);
+        List<NavPath> curveVector = findCurveVector(npt1, npt2, options);
+        if (curveVector != null && isDrivable(curveVector, options)) {
+            resolved(attempt);
             return curveVector;
         }
+        failed(attempt, (curveVector == null) ? "no Arc and Vector fit" : TOO_TIGHT);
         
         
         // 5. Consider near-parallel, non-collinear NavPoints.
         // Propose a new waypoint between the NavPoints and a path of
         //   initial NavPoint->Arc->waypoint->(Vector+Arc)->final NavPoint
         //
-        System.out.println("--Arc->Vector->Arc--");
+        attempt = strategy(CalcMetrics.Branch.ARC_VECTOR_ARC);
         Point midpt = new Point((npt1.pt.x+npt2.pt.x)/2.0, (npt1.pt.y+npt2.pt.y)/2.0);
         Arc arc = Arc.calcArcNavPointToPoint(npt1, midpt);
-        System.out.println("arc center = "+arc.center.toString());
-        System.out.println(arc.toString());
-        System.out.println("arc endpt  = "+arc.o.toString());
-        //
-        List<NavPath> vectorArc = findVectorCurve(arc.o, npt2, true);
-        if (vectorArc != null) { System.out.println("vA size = "+vectorArc.size()); }
-        else                   { System.out.println("vA is null"); }
-        if (arc != null && vectorArc != null) {
-            path.add(arc);
-            for (NavPath p : vectorArc) {
-                path.add(p);
+        // no Arc is found when the midpoint lies straight ahead of or behind the initial NavPoint
+        if (arc != null) {
+            Diagnostics.trace(DIAG, () -> "arc center = "+arc.center.toString()+"\n"+arc.toString()+"\narc endpt  = "+arc.o.toString());
+            //
+            List<NavPath> vectorArc = findVectorCurve(arc.o, npt2, true, options);
+            Diagnostics.trace(DIAG, () -> (vectorArc != null) ? "vA size = "+vectorArc.size() : "vA is null");
+            if (vectorArc != null && isDrivable(Collections.singletonList(arc), options) && isDrivable(vectorArc, options)) {
+                path.add(arc);
+                for (NavPath p : vectorArc) {
+                    path.add(p);
+                }
+                resolved(attempt);
+                return path;
             }
-            return path;
-        }
-        List<NavPath> arcVector = findCurveVector(arc.o, npt2);
-        if (arc != null && arcVector != null) {
-            path.add(arc);
-            for (NavPath p : arcVector) {
-                path.add(p);
+            List<NavPath> arcVector = findCurveVector(arc.o, npt2, options);
+            if (arcVector != null && isDrivable(Collections.singletonList(arc), options) && isDrivable(arcVector, options)) {
+                path.add(arc);
+                for (NavPath p : arcVector) {
+                    path.add(p);
+                }
+                resolved(attempt);
+                return path;
             }
-            return path;
+            failed(attempt, "no Vector and Arc fit from the midpoint");
+        }
+        else {
+            failed(attempt, "midpoint lies straight ahead of or behind the initial NavPoint");
         }
         
         // 6. If the NavPoints are parallel and co-oriented then strafing can connect them
-        if (allow_strafe && npt1.isParallel(npt2) && npt1.isOriented(npt2)) {
-            Vector strafeVector = new Vector(npt1, npt2);
-            strafeVector.i.heading = strafeVector.heading; // kluge
-            path.add(strafeVector);
-            return path;
+        if (options.allowStrafe) {
+            attempt = strategy(CalcMetrics.Branch.STRAFE);
+            if (npt1.isParallel(npt2) && npt1.isOriented(npt2)) {
+                Vector strafeVector = new Vector(npt1, npt2);
+                // The robot keeps facing as at npt1, oriented to the Vector's heading; the Vector's
+                // starting NavPoint is a copy, so npt1, shared with the connection before, is not changed.
+                strafeVector.orientation = Math.atan2(Math.sin(npt1.heading - strafeVector.heading),
+                                                      Math.cos(npt1.heading - strafeVector.heading));
+                strafeVector.i = new NavPoint(npt1.pt, strafeVector.heading, npt1.orientation, npt1.stop); // kluge
+                path.add(strafeVector);
+                resolved(attempt);
+                return path;
+            }
+            failed(attempt, "NavPoints not parallel and co-oriented");
+        }
+        
+        // 7. Search for an intermediate waypoint, among many candidate positions and headings,
+        //    such that initial NavPoint->waypoint->final NavPoint resolves with steps 1-6.
+        if (search) {
+            attempt = strategy(CalcMetrics.Branch.SEARCH);
+            List<NavPath> twoHop = searchIntermediateWaypoint(npt1, npt2, options);
+            if (twoHop != null) {
+                resolved(attempt);
+                return twoHop;
+            }
+            failed(attempt, "no candidate waypoint resolved");
         }
         
         // No solution found
+        attempt = strategy(CalcMetrics.Branch.GAP);
         path.add(new Gap(npt1, npt2, "No solution found."));
+        resolved(attempt);
+        return path;
+    }
+    
+    // A try of one branch of resolveConnection, recorded in the diagnostics, the flight
+    // recording and the CalcMetrics when it resolves the connection or fails to.
+    private static final class Attempt {
+        final CalcMetrics.Branch branch;
+        final long start = System.nanoTime();
+        final FlightEvents.Strategy event;
+        
+        Attempt(CalcMetrics.Branch branch) {
+            this.branch = branch;
+            this.event = new FlightEvents.Strategy(branch.label);
+        }
+    }
+    
+    private static Attempt strategy(CalcMetrics.Branch branch) {
+        Diagnostics.debug(DIAG, () -> "--"+branch.label+"--");
+        Diagnostics.event(DIAG, "strategy", branch.label, "");
+        return new Attempt(branch);
+    }
+    
+    private static void resolved(Attempt attempt) {
+        CalcMetrics.record(attempt.branch, System.nanoTime() - attempt.start, true);
+        attempt.event.outcome = "resolved";
+        attempt.event.commit();
+        Diagnostics.debug(DIAG, () -> "Resolved by "+attempt.branch.label);
+        Diagnostics.event(DIAG, "resolved", attempt.branch.label, "");
+    }
+    
+    private static void failed(Attempt attempt, String reason) {
+        CalcMetrics.record(attempt.branch, System.nanoTime() - attempt.start, false);
+        attempt.event.outcome = "failed";
+        attempt.event.reason = reason;
+        attempt.event.commit();
+        rejected(attempt.branch.label, reason);
+    }
+    
+    // Diagnostics of a candidate solution that was rejected
+    private static void rejected(String name, String reason) {
+        Diagnostics.debug(DIAG, () -> name+": "+reason);
+        Diagnostics.event(DIAG, "rejected", name, reason);
+    }
+    
+    private static void rejected(CalcMetrics.Rejection reason) {
+        CalcMetrics.reject(reason);
+        rejected("findVectorCurve", reason.label);
+    }
+    
+    
+    
+    
+    /**
+     * Search for an intermediate waypoint that connects two NavPoints in two hops.
+     * Candidate waypoints are spread over rings about the midpoint of the NavPoints, each
+     * position tried at several headings. Candidates are resolved in parallel and
+     * the feasible two-hop path of best score is returned.
+     * @param npt1    - Initial NavPoint
+     * @param npt2    - Final NavPoint
+     * @param options - options to solve the hops with and score them by
+     * return         - List of NavPaths through the best intermediate waypoint; null if no candidate resolves
+     */
+    public List<NavPath> searchIntermediateWaypoint(NavPoint npt1, NavPoint npt2, CalcOptions options) {
+        List<NavPoint> candidates = genSearchCandidates(npt1, npt2);
+        
+        // Collecting an ordered stream keeps the candidate order, so ties always
+        // resolve to the same candidate no matter how the work was split among threads.
+        List<List<NavPath>> solutions = IntStream.range(0, candidates.size()).parallel()
+                                                 .mapToObj(k -> connectThrough(npt1, candidates.get(k), npt2, options))
+                                                 .collect(Collectors.toList());
+        List<NavPath> best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (List<NavPath> solution : solutions) {
+            if (solution == null) { continue; }
+            double score = scorePath(solution, options);
+            if (score < bestScore) {
+                bestScore = score;
+                best = solution;
+            }
+        }
+        if (best == null) {
+            Diagnostics.debug(DIAG, () -> "Waypoint search: none of "+candidates.size()+" candidates resolved");
+        }
+        else {
+            final double score = bestScore;
+            Diagnostics.debug(DIAG, () -> "Waypoint search: resolved with score "+score);
+        }
+        return best;
+    }
+    
+    /**
+     * Generate candidate intermediate waypoints for searchIntermediateWaypoint().
+     */
+    private List<NavPoint> genSearchCandidates(NavPoint npt1, NavPoint npt2) {
+        List<NavPoint> candidates = new ArrayList<>();
+        Point midpt = new Point((npt1.pt.x+npt2.pt.x)/2.0, (npt1.pt.y+npt2.pt.y)/2.0);
+        double span = SEARCH_SPAN * Point.distance(npt1.pt, npt2.pt);
+        // Bearings are taken half a step off the line through the NavPoints, so that no ring puts
+        // a candidate on either NavPoint, which would connect by a hop of no length
+        double axis = Math.atan2(npt2.pt.y - npt1.pt.y, npt2.pt.x - npt1.pt.x);
+        for (int ring = 0; ring < SEARCH_RINGS; ring++) {
+            double radius = span * ring / (SEARCH_RINGS - 1);
+            // the midpoint ring is a single position
+            int bearings = (ring == 0) ? 1 : SEARCH_BEARINGS;
+            for (int b = 0; b < bearings; b++) {
+                double bearing = axis + 2.0*Math.PI * (b + 0.5) / SEARCH_BEARINGS;
+                Point pt = new Point(midpt.x + radius*Math.cos(bearing), midpt.y + radius*Math.sin(bearing));
+                NavPoint at = new NavPoint(pt);
+                if (at.isCoincident(npt1) || at.isCoincident(npt2)) { continue; }
+                for (int h = 0; h < SEARCH_HEADINGS; h++) {
+                    candidates.add(new NavPoint(pt, 2.0*Math.PI * h / SEARCH_HEADINGS));
+                }
+            }
+        }
+        return candidates;
+    }
+    
+    /**
+     * Connect two NavPoints by way of an intermediate waypoint without further searching.
+     * return - List of NavPaths of both hops; null if either hop leaves a Gap
+     */
+    private List<NavPath> connectThrough(NavPoint npt1, NavPoint waypt, NavPoint npt2, CalcOptions options) {
+        List<NavPath> firstHop = resolveConnection(npt1, waypt, options, false);
+        if (hasGap(firstHop)) { return null; }
+        List<NavPath> secondHop = resolveConnection(waypt, npt2, options, false);
+        if (hasGap(secondHop)) { return null; }
+        List<NavPath> path = new ArrayList<>(firstHop);
+        path.addAll(secondHop);
         return path;
     }
     
+    /**
+     * Return true if a given path contains an unresolved Gap.
+     */
+    public static boolean hasGap(List<NavPath> path) {
+        for (NavPath p : path) {
+            if (p.isGap()) { return true; }
+        }
+        return false;
+    }
     
+    /**
+     * Return the score of a path, lower is better: its length, plus a penalty for each inch
+     * driven with less than the options' clearance margin, if the options know the clearance of the field.
+     */
+    public static double scorePath(List<NavPath> path, CalcOptions options) {
+        double score = pathLength(path);
+        if (options.clearanceField == null) { return score; }
+        for (NavPath p : path) {
+            // A Gap, which the robot does not drive, has no track
+            double driven = p.trackLength(0.0);
+            if (driven <= 0.0) { continue; }
+            int n = Math.max(1, (int) Math.ceil(driven / CLEARANCE_STEP));
+            for (int k = 0; k < n; k++) {
+                NavPoint pose = p.poseAt(driven * (k+0.5) / n);
+                score += clearancePenalty(options, pose.pt.x, pose.pt.y) * driven / n;
+            }
+        }
+        return score;
+    }
+    
+    // Return true if the robot can drive the turns of a path, or the options do not check them
+    private static boolean isDrivable(List<NavPath> path, CalcOptions options) {
+        return options.feasibility == null || options.feasibility.isDrivable(path);
+    }
+    
+    private static double clearancePenalty(CalcOptions options, double x, double y) {
+        double shortfall = options.clearanceMargin - options.clearanceField.clearanceAt(x, y);
+        return (shortfall > 0.0) ? CLEARANCE_PENALTY * shortfall : 0.0;
+    }
+    
+    /**
+     * Set the clearance of the field used to score paths.
+     * @param field  - clearance of the field; null to score paths by length alone
+     * @param margin - clearance the robot needs about the path's reference point, in inches
+     */
+    public void setClearanceField(ClearanceField field, double margin) {
+        options = options.withClearanceField(field, margin);
+    }
+    
+    /**
+     * Set the planner used to route connections around the field's obstacles.
+     * @param planner - path planner of the field; null to not plan around obstacles
+     */
+    public void setPathPlanner(PathPlanner planner) {
+        options = options.withPathPlanner(planner);
+    }
+    
+    /**
+     * Set the robot's turn limits that connections are kept within.
+     * @param checker - feasibility of paths for the robot; null to not check connections
+     */
+    public void setFeasibilityChecker(FeasibilityChecker checker) {
+        options = options.withFeasibility(checker);
+    }
+    
+    /**
+     * Set the robot paths are solved for, whose speed and width path costs are figured from.
+     * @param robot - Map of the robot file's keys and values; null for the robot the simulation
+     *                drives without a robot file
+     */
+    public void setRobot(Map<String, String> robot) {
+        options = options.withRobot(robot);
+    }
+    
+    /**
+     * Return the options the GUI currently solves paths with.
+     */
+    public CalcOptions getOptions() {
+        return options;
+    }
+    
+    /**
+     * Return the length of a path, as traveled by the path's reference point.
+     * A Gap counts as the straight distance across it.
+     */
+    public static double pathLength(List<NavPath> path) {
+        double length = 0.0;
+        for (NavPath p : path) {
+            length += p.length();
+        }
+        return length;
+    }
     
     
     /**
@@ -148,19 +522,20 @@ public class CalcPath {
      * @param npt1      - starting NavPoint
      * @param npt2      - destination NavPoint
      * @param direction - true if npt1 is the true starting point, false getting called by findCurveVector
+     * @param options   - options to solve the connection with
      * return      - List of NavPaths: could be a single Arc, single Vector, or (0)Vector+(1)Arc
      *               In case of no path, a null value is returned
      */
-    public List<NavPath> findVectorCurve(NavPoint npt1, NavPoint npt2, boolean direction) {
-    
-        // Create a relative framework, where npti is at origin and npto is referenced from origin
-        NavPoint npti = new NavPoint();
-        NavPoint npto = npt2.relativeTo(npt1);
-        System.out.println("findVectorCurve(npt1,npt2)");
-        System.out.println(" npt1: "+npt1.toString());
-        System.out.println(" npt2: "+npt2.toString());
-        System.out.println(" npti: "+npti.toString());
-        System.out.println(" npto: "+npto.toString());
+    public List<NavPath> findVectorCurve(NavPoint npt1, NavPoint npt2, boolean direction, CalcOptions options) {
+    
+        // Create a relative framework, where npti is at origin, heading 90 degrees, and npto is referenced from origin.
+        // frame takes points of the relative framework back to the global coordinate system.
+        Transform2d frame = Transform2d.frameOf(npt1);
+        double toX = frame.applyInverseX(npt2.pt.x, npt2.pt.y);
+        double toY = frame.applyInverseY(npt2.pt.x, npt2.pt.y);
+        double toHeading = npt2.heading - frame.rotation;
+        Diagnostics.trace(DIAG, () -> "findVectorCurve(npt1,npt2)\n npt1: "+npt1.toString()+"\n npt2: "+npt2.toString()+
+                                      "\n npti: "+new NavPoint().toString()+"\n npto: "+new NavPoint(toX, toY, toHeading).toString());
         
         // Create a List of Navpaths (which are a List of path elements)
         // to consider all solutions to findCircles().
@@ -170,28 +545,32 @@ public class CalcPath {
         // Find circles such that they have: 
         //   a point coincident and tangent to the vector extending from npti and
         //   a point coincident to npto and tangent to the heading of npto.
-        List<Circle> circles = Circle.findCircles(npti, npto);
-        System.out.println(""+circles.size()+" Circle(s) to consider");
+        // Each circle is written to circles[] as its center x, y and radius.
+        double[] circles = new double[6];
+        int circleCount = Geometry.tangentCircles(0.0, 0.0, Math.PI/2.0, toX, toY, toHeading,
+                                                  new double[Geometry.TANGENT_CIRCLES_SCRATCH], circles);
+        Diagnostics.trace(DIAG, () -> ""+circleCount+" Circle(s) to consider");
         
-        if (circles.size() == 0) {
-            System.out.println("findVectorCurve: No circles found");
+        if (circleCount == 0) {
+            rejected(CalcMetrics.Rejection.NO_CIRCLE);
             return null;
         }
         
-        // iterate through all the circles in the List of found circles
-        for (Circle circle : circles) {
+        // iterate through all the circles found
+        for (int k = 0; k < circleCount; k++) {
+            double circleX = circles[3*k];
+            double circleY = circles[3*k+1];
+            double circleR = circles[3*k+2];
         
             List<NavPath> path = new ArrayList<NavPath>();
         
             // Check if Arc starting at beginning NavPoint was found
             // therefore no preceeding Vector to the Arc is needed
-            if (Math.abs(circle.center.y) < 0.000001) {
-                NavPoint centerNpt = new NavPoint(circle.center);
-                centerNpt = centerNpt.displacedBy(npt1);
-                Arc arc = new Arc(centerNpt.pt, npt1.pt, npt2.pt);
+            if (Math.abs(circleY) < 0.000001) {
+                Point center = new Point(frame.applyX(circleX, circleY), frame.applyY(circleX, circleY));
+                Arc arc = new Arc(center, npt1.pt, npt2.pt);
                 arc.stop = npt2.stop;
-                System.out.println("findVectorCurve: Single Arc solution");
-                System.out.println(arc.toString());
+                Diagnostics.trace(DIAG, () -> "findVectorCurve: Single Arc solution\n"+arc.toString());
                 path.add(arc);
                 paths.add(path);
                 stops.add(false);
@@ -199,36 +578,30 @@ public class CalcPath {
             }
             // A negative-y center of rotation is not (currently) acceptable as this would
             // require a reversed Vector to get to the curve
-            if (circle.center.y < 0.0) {
+            if (circleY < 0.0) {
                 //path.add(new Gap(npt1, npt2, "No solution found: Circle center with y < 0.0"));
-                System.out.println("findVectorCurve: No solution to Circle center with y < 0.0");
+                rejected(CalcMetrics.Rejection.CENTER_BEHIND);
                 continue;
             }       
         
             // We have a curve, so prepend the curve with a vector
-            System.out.println("Consider: "+circle.toString());
+            Diagnostics.trace(DIAG, () -> "Consider: "+new Circle(new Point(circleX, circleY), circleR).toString());
             // We are still in a relative framework where the circle is relative to (0.0,0.0),90 deg.
-            // We can calculate a Vector in this relative framework as ending at (0.0, circle.center.y)
+            // We can calculate a Vector in this relative framework as ending at (0.0, circleY)
             // since we interpret the Vector endpoint, which is the Arc startpoint, at the intersection of
             // the Vector and a line normal to the Vector going through the circle center.
-            double circleY = circle.center.y;
-            NavPoint localEndVector = new NavPoint(0.0, circleY, 90);
-            NavPoint globalEndVector = localEndVector.displacedBy(npt1);
+            Point globalEndVector = frame.apply(new Point(0.0, circleY));
             // Construct Vector from npt1 and the (globally-referenced) Vector Endpoint.
-            Vector vector = new Vector(npt1.pt, globalEndVector.pt);
-            System.out.println("new vector:"+vector.toString());
+            Vector vector = new Vector(npt1.pt, globalEndVector);
+            Diagnostics.trace(DIAG, () -> "new vector:"+vector.toString());
             //
             // The arc center is given relative to (0.0,0.0),90. We need to convert back to reference npt1
-            NavPoint circleCenterNpt = new NavPoint(circle.center, 90);
-            // Get circle center in global coordinate system
-            NavPoint globalCircleCenterNpt = circleCenterNpt.displacedBy(npt1);
+            Point globalCircleCenter = new Point(frame.applyX(circleX, circleY), frame.applyY(circleX, circleY));
             // The arc starting point is the endpoint of the Vector: pt, already in global coordinate system
             // The arc end point is already npt2, in global coordinate system
-            System.out.println("localCenterNpt :"+circleCenterNpt.toString());
-            System.out.println("globalCenterNpt:"+globalCircleCenterNpt.toString());
-            System.out.println("starting ArcNpt:"+globalEndVector.toString());
-            System.out.println("ending ArcNpt  :"+npt2.toString());        
-            Arc arc = new Arc(globalCircleCenterNpt.pt, globalEndVector.pt, npt2.pt);
+            Diagnostics.trace(DIAG, () -> "localCenter :"+new Point(circleX, circleY).toString()+"\nglobalCenter:"+globalCircleCenter.toString()+
+                                          "\nstarting Arc:"+globalEndVector.toString()+"\nending ArcNpt  :"+npt2.toString());
+            Arc arc = new Arc(globalCircleCenter, globalEndVector, npt2.pt);
         
             // If the ending arc heading is not aligned to the heading of the target navpoint 
             // then this is not a valid solution.
@@ -239,7 +612,7 @@ public class CalcPath {
             if (endBearing < 0-Math.PI) { endBearing += 2*Math.PI; }
             if (endBearing > 0+Math.PI) { endBearing -= 2*Math.PI; }
             if (((endBearing < 0.0) && arc.clockwise) || ((endBearing > 0.0) && !arc.clockwise)) {
-                System.out.println("findVectorCurve: No solution to opposite arc heading from target heading");
+                rejected(CalcMetrics.Rejection.OPPOSITE_HEADING);
                 continue;
             }
         
@@ -264,13 +637,13 @@ public class CalcPath {
                 vector.stop = npt2.stop;
             }
             if (reversal) {             
-                System.out.println("A stop waypoint needeed"); 
+                Diagnostics.trace(DIAG, () -> "A stop waypoint needeed");
                 if (direction) {
                     arc.orientation = Math.PI;
                 }
             }            
-            if (reversal && !allow_waypoint_reversals) {
-                System.out.println("No waypoint reversals permitted but one was needed here");
+            if (reversal && !options.allowWaypointReversals) {
+                rejected(CalcMetrics.Rejection.REVERSAL_DISALLOWED);
                 continue;
             }
             path.add(vector);
@@ -303,7 +676,7 @@ public class CalcPath {
                 return paths.get(idx);
             }
             else {
-                System.out.println("Couldn't find a sole non-reversal path");
+                rejected(CalcMetrics.Rejection.AMBIGUOUS);
                 return null;
             }            
         }    
@@ -312,12 +685,13 @@ public class CalcPath {
     
     /**
      * Find a connection between two waypoints that is an Arc followed by an Vector.
-     * @param npt1 - starting NavPoint
-     * @param npt2 - destination NavPoint
+     * @param npt1    - starting NavPoint
+     * @param npt2    - destination NavPoint
+     * @param options - options to solve the connection with
      * return      - List of NavPaths: could be a single Arc, single Vector, or (0)Arc+(1)Vector
      *               In case of no path, a null value is returned
      */
-    public List<NavPath> findCurveVector(NavPoint npt1, NavPoint npt2) {
+    public List<NavPath> findCurveVector(NavPoint npt1, NavPoint npt2, CalcOptions options) {
         // This does findVectorCurve but in reverse.
         // Check if a Curve + Vector can resolve path profile between NavPoints
         //   Consider the reverse direction of end NavPoint to start Navpoint
@@ -325,19 +699,26 @@ public class CalcPath {
         List<NavPath> path = new ArrayList<>();
         NavPoint nptr2 = npt2.reverse();
         NavPoint nptr1 = npt1.reverse();
-        System.out.println("findCurveVector(npt1,npt2)");
-        System.out.println("nptr1: "+nptr1.toString());
-        System.out.println("nptr2: "+nptr2.toString());
+        Diagnostics.trace(DIAG, () -> "findCurveVector(npt1,npt2)\nnptr1: "+nptr1.toString()+"\nnptr2: "+nptr2.toString());
         
-        List<NavPath> vectorCurve = findVectorCurve(nptr2, nptr1, false);
+        List<NavPath> vectorCurve = findVectorCurve(nptr2, nptr1, false, options);
+        // A single Arc solution only needs reversing
+        if (vectorCurve != null && vectorCurve.size() == 1) {
+            Arc a = ((Arc) vectorCurve.get(0)).reverse();
+            a.stop = npt2.stop;
+            path.add(a);
+            return path;
+        }
         if (vectorCurve != null) {
             Vector v = (Vector) vectorCurve.get(0);
             v = v.reverse();
             Arc a = (Arc) vectorCurve.get(1);
             double orientation = a.orientation;
-            System.out.println("arc pre-reversal: i:"+a.i.toString()+" o:"+a.o.toString());
+            Arc pre = a;
+            Diagnostics.trace(DIAG, () -> "arc pre-reversal: i:"+pre.i.toString()+" o:"+pre.o.toString());
             a = a.reverse();
-            System.out.println("arc pst-reversal: i:"+a.i.toString()+" o:"+a.o.toString());
+            Arc post = a;
+            Diagnostics.trace(DIAG, () -> "arc pst-reversal: i:"+post.i.toString()+" o:"+post.o.toString());
             a.orientation = orientation;
             a.stop = v.stop;    // switch the vector->arc stop to arc->vector stop 
             v.stop = npt2.stop; // since the vector is the last path element, set its stop to the ending NavPoint stop
@@ -356,11 +737,18 @@ public class CalcPath {
     public void updateCalcParameters() {
         if (mySettings != null) {
             // Pull relevant info from SettingsFrame
-            allow_waypoint_reversals = Boolean.parseBoolean(mySettings.parameters.get("CALC_ALLOW_WAYPOINT_REVERSALS"));
-            allow_strafe             = Boolean.parseBoolean(mySettings.parameters.get("CALC_ALLOW_STRAFE"));
+            updateCalcParameters(mySettings.parameters);
         }
     }
     
+    /**
+     * Set variables in this class instantiation from a Map of settings parameters,
+     * for callers that read a settings file without a SettingsFrame.
+     */
+    public void updateCalcParameters(Map<String, String> parameters) {
+        options = options.withSettings(parameters);
+    }
+    
     /**
      * Constructor, when called from GameField class.
      */
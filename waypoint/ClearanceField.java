@@ -0,0 +1,331 @@
+package waypoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Class to hold the clearance of the game field: the distance from any point on the field
+ * to the nearest solid field element or the field perimeter, whichever is closer.
+ */
+public class ClearanceField {
+
+    // The field is divided into square cells of a given resolution. A cell is occupied if any
+    // solid field element overlaps it. The clearance at each cell center is the distance to the
+    // nearest occupied cell center, found for the whole grid at once with an exact Euclidean
+    // distance transform (two passes of the 1D lower envelope of parabolas, Felzenszwalb and
+    // Huttenlocher), then limited by the distance to the field perimeter.
+    //
+    // Clearance between cell centers is interpolated bilinearly, so a query costs the same no
+    // matter how many elements the field has. A reported clearance can exceed the true distance
+    // to the nearest element by up to ERROR_CELLS * resolution.
+    //
+    // Building the grid is the expensive part, so it is saved to a cache directory under the
+    // hash of the field file's contents and the resolution, and read back whenever the same
+    // field file is loaded again.
+
+    public static final double ERROR_CELLS = 1.5;   // bound on clearance error, in cells
+    private static final int CACHE_VERSION = 1;
+
+    double originX;     // field coordinate of the corner of cell (0,0)
+    double originY;
+    double resolution;  // cell size, in inches
+    int    columns;
+    int    rows;
+    float[] clearance;  // clearance at each cell center, indexed [row*columns + column]
+
+    /**
+     * Return the clearance at a point, in inches, interpolated between cell centers.
+     * Points off the grid take the clearance of the nearest edge of the grid.
+     */
+    public double clearanceAt(double x, double y) {
+        double gx = (x - originX) / resolution - 0.5;
+        double gy = (y - originY) / resolution - 0.5;
+        gx = Math.max(0.0, Math.min(columns-1, gx));
+        gy = Math.max(0.0, Math.min(rows-1, gy));
+        int c = Math.min((int) gx, Math.max(0, columns-2));
+        int r = Math.min((int) gy, Math.max(0, rows-2));
+        double fx = gx - c;
+        double fy = gy - r;
+        int c2 = Math.min(c+1, columns-1);
+        int r2 = Math.min(r+1, rows-1);
+        double bottom = clearance[r*columns + c]  * (1.0-fx) + clearance[r*columns + c2]  * fx;
+        double top    = clearance[r2*columns + c] * (1.0-fx) + clearance[r2*columns + c2] * fx;
+        return bottom * (1.0-fy) + top * fy;
+    }
+
+    /**
+     * Return the largest clearance anywhere on the field, for scaling displays.
+     */
+    public double maxClearance() {
+        double max = 0.0;
+        for (float f : clearance) {
+            max = Math.max(max, f);
+        }
+        return max;
+    }
+
+    /**
+     * Return the ClearanceField of a field file, reading it from the cache directory
+     * if it was built before, otherwise building it and saving it there.
+     * @param fileName      - name of the field file, whose contents key the cache
+     * @param fieldGraphics - field graphics parsed from that file
+     * @param resolution    - cell size, in inches
+     * @param cacheDir      - directory holding cached ClearanceFields; null to not cache
+     */
+    public static ClearanceField forFieldFile(String fileName, List<String> fieldGraphics,
+                                              double resolution, String cacheDir) {
+        File cacheFile = null;
+        if (cacheDir != null) {
+            try {
+                String hash = hashFile(fileName);
+                cacheFile = new File(cacheDir, String.format(Locale.US, "clearance-%s-%.3f.bin", hash, resolution));
+                if (cacheFile.exists()) {
+                    ClearanceField field = readCache(cacheFile);
+                    if (field != null) { return field; }
+                }
+            }
+            catch (IOException e) {
+                System.out.println("Clearance cache unavailable for: "+fileName+" "+e.getMessage());
+                cacheFile = null;
+            }
+        }
+        ClearanceField field = new ClearanceField(fieldGraphics, resolution);
+        if (cacheFile != null) {
+            try {
+                field.writeCache(cacheFile);
+            }
+            catch (IOException e) {
+                System.out.println("Failed to write clearance cache: "+cacheFile+" "+e.getMessage());
+            }
+        }
+        return field;
+    }
+
+    /**
+     * Return the cell size named by a CLEARANCE_RESOLUTION settings value, or 1.0 inch if the value is missing or invalid.
+     */
+    public static double resolutionFromSetting(String value) {
+        if (value == null) { return 1.0; }
+        try {
+            double resolution = Double.parseDouble(value.trim());
+            if (resolution > 0.0) { return resolution; }
+        }
+        catch (NumberFormatException e) {
+        }
+        System.out.println("Invalid clearance resolution: "+value+", using 1.0");
+        return 1.0;
+    }
+
+    /**
+     * Return the SHA-256 hash of a file's contents, as hexadecimal.
+     */
+    private static String hashFile(String fileName) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(Files.readAllBytes(Paths.get(fileName)));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static ClearanceField readCache(File cacheFile) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != CACHE_VERSION) { return null; }
+            ClearanceField field = new ClearanceField();
+            field.originX = in.readDouble();
+            field.originY = in.readDouble();
+            field.resolution = in.readDouble();
+            field.columns = in.readInt();
+            field.rows = in.readInt();
+            field.clearance = new float[field.columns * field.rows];
+            for (int k = 0; k < field.clearance.length; k++) {
+                field.clearance[k] = in.readFloat();
+            }
+            return field;
+        }
+        catch (IOException e) {
+            System.out.println("Failed to read clearance cache: "+cacheFile+" "+e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCache(File cacheFile) throws IOException {
+        File dir = cacheFile.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("cannot create directory "+dir);
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+            out.writeInt(CACHE_VERSION);
+            out.writeDouble(originX);
+            out.writeDouble(originY);
+            out.writeDouble(resolution);
+            out.writeInt(columns);
+            out.writeInt(rows);
+            for (float f : clearance) {
+                out.writeFloat(f);
+            }
+        }
+    }
+
+    /**
+     * Squared Euclidean distance transform of one row or column, in place.
+     * @param f - squared distances along the line on input, transformed on output
+     * (scratch arrays v, z and d are at least f.length, f.length+1 and f.length long)
+     */
+    private static void transform1D(double[] f, int n, int[] v, double[] z, double[] d) {
+        int k = 0;
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+        for (int q = 1; q < n; q++) {
+            if (f[q] == Double.POSITIVE_INFINITY) { continue; }
+            if (f[v[k]] == Double.POSITIVE_INFINITY) {
+                v[k] = q;
+                continue;
+            }
+            double s = ((f[q] + q*q) - (f[v[k]] + v[k]*v[k])) / (2.0*q - 2.0*v[k]);
+            while (s <= z[k]) {
+                k--;
+                s = ((f[q] + q*q) - (f[v[k]] + v[k]*v[k])) / (2.0*q - 2.0*v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k+1] = Double.POSITIVE_INFINITY;
+        }
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k+1] < q) { k++; }
+            d[q] = (f[v[k]] == Double.POSITIVE_INFINITY) ? Double.POSITIVE_INFINITY : (q - v[k])*(q - v[k]) + f[v[k]];
+        }
+        System.arraycopy(d, 0, f, 0, n);
+    }
+
+    private ClearanceField() {
+    }
+
+    /**
+     * Build the ClearanceField of a field.
+     * @param fieldGraphics - field graphics, as returned by GameFieldFileHandler.getFieldGraphicsFromFile()
+     * @param resolution    - cell size, in inches
+     */
+    public ClearanceField(List<String> fieldGraphics, double resolution) {
+        List<Obstacle> obstacles = Obstacle.fromFieldGraphics(fieldGraphics);
+        this.resolution = resolution;
+
+        // The grid covers the FIELD element, or the obstacles if there is none.
+        boolean hasField = false;
+        double maxX = 0.0;
+        double maxY = 0.0;
+        for (String f : fieldGraphics) {
+            String[] chunks = f.split("\\s+");
+            if (chunks[0].equals("FIELD")) {
+                double x1 = Double.parseDouble(chunks[4]);
+                double y1 = Double.parseDouble(chunks[5]);
+                double x2 = Double.parseDouble(chunks[6]);
+                double y2 = Double.parseDouble(chunks[7]);
+                originX = Math.min(x1, x2);
+                originY = Math.min(y1, y2);
+                maxX = Math.max(x1, x2);
+                maxY = Math.max(y1, y2);
+                hasField = true;
+                break;
+            }
+        }
+        if (!hasField) {
+            originX = Double.MAX_VALUE;
+            originY = Double.MAX_VALUE;
+            maxX = -Double.MAX_VALUE;
+            maxY = -Double.MAX_VALUE;
+            for (Obstacle ob : obstacles) {
+                originX = Math.min(originX, ob.minX);
+                originY = Math.min(originY, ob.minY);
+                maxX = Math.max(maxX, ob.maxX);
+                maxY = Math.max(maxY, ob.maxY);
+            }
+            if (obstacles.isEmpty()) {
+                originX = 0.0;
+                originY = 0.0;
+                maxX = resolution;
+                maxY = resolution;
+            }
+        }
+        columns = Math.max(1, (int) Math.ceil((maxX - originX) / resolution));
+        rows    = Math.max(1, (int) Math.ceil((maxY - originY) / resolution));
+
+        // Mark the cells that any obstacle overlaps with 0.0, all others with infinity.
+        double[] grid = new double[columns * rows];
+        Arrays.fill(grid, Double.POSITIVE_INFINITY);
+        double[] cx = new double[4];
+        double[] cy = new double[4];
+        for (Obstacle ob : obstacles) {
+            int c1 = Math.max(0, (int) Math.floor((ob.minX - originX) / resolution));
+            int c2 = Math.min(columns-1, (int) Math.floor((ob.maxX - originX) / resolution));
+            int r1 = Math.max(0, (int) Math.floor((ob.minY - originY) / resolution));
+            int r2 = Math.min(rows-1, (int) Math.floor((ob.maxY - originY) / resolution));
+            for (int r = r1; r <= r2; r++) {
+                for (int c = c1; c <= c2; c++) {
+                    double x1 = originX + c*resolution;
+                    double y1 = originY + r*resolution;
+                    cx[0] = x1;            cy[0] = y1;
+                    cx[1] = x1+resolution; cy[1] = y1;
+                    cx[2] = x1+resolution; cy[2] = y1+resolution;
+                    cx[3] = x1;            cy[3] = y1+resolution;
+                    if (ob.intersectsConvex(cx, cy)) {
+                        grid[r*columns + c] = 0.0;
+                    }
+                }
+            }
+        }
+
+        // Distance transform: down each column, then along each row.
+        int n = Math.max(columns, rows);
+        double[] line = new double[n];
+        double[] d = new double[n];
+        double[] z = new double[n+1];
+        int[] v = new int[n];
+        for (int c = 0; c < columns; c++) {
+            for (int r = 0; r < rows; r++) { line[r] = grid[r*columns + c]; }
+            transform1D(line, rows, v, z, d);
+            for (int r = 0; r < rows; r++) { grid[r*columns + c] = line[r]; }
+        }
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(grid, r*columns, line, 0, columns);
+            transform1D(line, columns, v, z, d);
+            System.arraycopy(line, 0, grid, r*columns, columns);
+        }
+
+        // Convert to inches and limit by the distance to the field perimeter.
+        clearance = new float[columns * rows];
+        for (int r = 0; r < rows; r++) {
+            double y = originY + (r+0.5)*resolution;
+            for (int c = 0; c < columns; c++) {
+                double x = originX + (c+0.5)*resolution;
+                double dist = Math.sqrt(grid[r*columns + c]) * resolution;
+                if (hasField) {
+                    dist = Math.min(dist, Math.min(Math.min(x - originX, maxX - x), Math.min(y - originY, maxY - y)));
+                }
+                clearance[r*columns + c] = (float) dist;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package waypoint;
+
+import java.util.Locale;
+
+/**
+ * Class to hold the first contact between the robot and the field along a path.
+ */
+public class Collision {
+
+    int      element;   // index of the NavPath element in the path where contact is made
+    double   distance;  // distance along the path, in inches, of the robot reference point at contact
+    NavPoint pose;      // pose of the robot at contact: reference point and the direction the robot faces
+    Obstacle obstacle;  // obstacle that was hit, or null if the robot left the field
+
+    /**
+     * String of this Collision's parameters
+     */
+    public String toString() {
+        String hit = (obstacle != null) ? obstacle.toString() : "FIELD perimeter";
+        return String.format(Locale.US, "Collision at element %d, %6.2f inches along path, pose %s with %s",
+                             element, distance, pose.toString(), hit);
+    }
+
+    /**
+     * Constructor
+     */
+    public Collision(int element, double distance, NavPoint pose, Obstacle obstacle) {
+        this.element = element;
+        this.distance = distance;
+        this.pose = pose;
+        this.obstacle = obstacle;
+    }
+}
@@ -0,0 +1,302 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class to check that the robot's footprint, swept along a path, stays clear of
+ * the solid field elements and inside the field.
+ */
+public class CollisionChecker {
+
+    // The robot footprint is the rectangle SIDE_TO_SIDE by FRONT_TO_BACK from the robot file,
+    // placed relative to the path reference point by ORIGIN_X_OFFSET and ORIGIN_Y_OFFSET,
+    // as it is drawn by DrawField.drawRobotStops().
+    //
+    // Poses are sampled along each path element so that no corner of the footprint moves more
+    // than SAMPLE_STEP between samples. The footprint checked against obstacles is grown by
+    // half of SAMPLE_STEP on every side, so a clear result between samples is guaranteed;
+    // contact may be reported up to that margin early.
+    //
+    // Obstacles are sorted into a uniform grid of CELL_SIZE cells covering the field, so each
+    // sampled footprint is only tested against the obstacles in the cells it overlaps.
+    // If the clearance of the field is known, poses with more clearance than the footprint
+    // can reach are passed without testing any obstacle.
+
+    private static final double SAMPLE_STEP = 0.5;         // inches
+    private static final double CELL_SIZE = 12.0;          // inches
+    private static final double PERIMETER_TOLERANCE = 0.5; // inches the robot may overhang the field edge
+
+    private List<Obstacle> obstacles;
+    private double[] cornerX = new double[4];  // footprint corners, robot frame (+y is the front of the robot)
+    private double[] cornerY = new double[4];
+    private double[] grownX = new double[4];   // footprint corners grown by half of SAMPLE_STEP
+    private double[] grownY = new double[4];
+    private double reach;                      // largest distance of a grown corner from the reference point
+
+    // field bounds; no perimeter check if there is no FIELD element
+    private boolean hasField = false;
+    private double fieldMinX;
+    private double fieldMinY;
+    private double fieldMaxX;
+    private double fieldMaxY;
+
+    // broad phase grid of obstacles
+    private double gridX;
+    private double gridY;
+    private int columns;
+    private int rows;
+    private List<List<Obstacle>> cells;
+
+    private ClearanceField clearanceField = null;
+
+    /**
+     * Return the first contact of the robot with the field along a path, or null if the path is clear.
+     * Gaps cannot be driven and are not checked.
+     */
+    public Collision checkPath(List<NavPath> path) {
+        if (path == null) { return null; }
+        double[] px = new double[4];
+        double[] py = new double[4];
+        double distance = 0.0;
+        for (int e = 0; e < path.size(); e++) {
+            NavPath p = path.get(e);
+            if (p.isGap()) { continue; }
+            double length = p.length();
+            // corners travel on tracks up to reach to either side of the path, the outer one the longest
+            double track = Math.max(p.trackLength(reach), p.trackLength(0.0 - reach));
+            int n = Math.max(1, (int) Math.ceil(track / SAMPLE_STEP));
+            for (int k = 0; k <= n; k++) {
+                double s = length * k / n;
+                NavPoint pose = p.poseAt(s);
+                // a robot turning in place stays at the start, turning evenly through the samples
+                double heading = pose.heading + (p.isTurnInPlace() ? p.headingChange() * k / n : 0.0);
+                double facing = heading + p.orientationAt(s);
+                Obstacle hit = checkPose(pose.pt.x, pose.pt.y, facing, px, py);
+                if (hit != null || !insideField(pose.pt.x, pose.pt.y, facing, px, py)) {
+                    return new Collision(e, distance + s, new NavPoint(pose.pt, facing), hit);
+                }
+            }
+            distance += length;
+        }
+        return null;
+    }
+
+    /**
+     * Return true if the robot footprint at a pose is clear of every obstacle and inside the field.
+     * @param facing - direction the front of the robot faces, in radians
+     */
+    public boolean isClear(double x, double y, double facing) {
+        double[] px = new double[4];
+        double[] py = new double[4];
+        return (checkPose(x, y, facing, px, py) == null) && insideField(x, y, facing, px, py);
+    }
+
+    /**
+     * Return the first obstacle touched by the grown footprint at a pose, or null if there is none.
+     * @param px - scratch array for footprint x-coordinates
+     * @param py - scratch array for footprint y-coordinates
+     */
+    private Obstacle checkPose(double x, double y, double facing, double[] px, double[] py) {
+        if (cells == null) { return null; }
+        if (clearanceField != null &&
+            clearanceField.clearanceAt(x, y) > reach + ClearanceField.ERROR_CELLS*clearanceField.resolution) {
+            return null;
+        }
+        placeFootprint(grownX, grownY, x, y, facing, px, py);
+        int c1 = column(x - reach);
+        int c2 = column(x + reach);
+        int r1 = row(y - reach);
+        int r2 = row(y + reach);
+        for (int r = r1; r <= r2; r++) {
+            for (int c = c1; c <= c2; c++) {
+                for (Obstacle ob : cells.get(r*columns + c)) {
+                    if (ob.maxX < x - reach || ob.minX > x + reach ||
+                        ob.maxY < y - reach || ob.minY > y + reach) {
+                        continue;
+                    }
+                    if (ob.intersectsConvex(px, py)) {
+                        return ob;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return true if the footprint at a pose is inside the field.
+     */
+    private boolean insideField(double x, double y, double facing, double[] px, double[] py) {
+        if (!hasField) { return true; }
+        placeFootprint(cornerX, cornerY, x, y, facing, px, py);
+        for (int k = 0; k < 4; k++) {
+            if (px[k] < fieldMinX - PERIMETER_TOLERANCE || px[k] > fieldMaxX + PERIMETER_TOLERANCE ||
+                py[k] < fieldMinY - PERIMETER_TOLERANCE || py[k] > fieldMaxY + PERIMETER_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Put footprint corners from the robot frame into field coordinates, as NavPoint.displacedBy() does.
+     */
+    private static void placeFootprint(double[] lx, double[] ly, double x, double y, double facing,
+                                       double[] px, double[] py) {
+        new Transform2d(x, y, facing - Math.PI/2.0).apply(lx, ly, px, py, 4);
+    }
+
+    private int column(double x) {
+        return Math.max(0, Math.min(columns-1, (int) Math.floor((x - gridX) / CELL_SIZE)));
+    }
+
+    private int row(double y) {
+        return Math.max(0, Math.min(rows-1, (int) Math.floor((y - gridY) / CELL_SIZE)));
+    }
+
+    /**
+     * Sort the obstacles into grid cells by their bounding boxes.
+     */
+    private void buildGrid() {
+        if (obstacles.isEmpty()) { return; }
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (Obstacle ob : obstacles) {
+            minX = Math.min(minX, ob.minX);
+            minY = Math.min(minY, ob.minY);
+            maxX = Math.max(maxX, ob.maxX);
+            maxY = Math.max(maxY, ob.maxY);
+        }
+        gridX = minX;
+        gridY = minY;
+        columns = Math.max(1, (int) Math.ceil((maxX - minX) / CELL_SIZE));
+        rows    = Math.max(1, (int) Math.ceil((maxY - minY) / CELL_SIZE));
+        cells = new ArrayList<>();
+        for (int k = 0; k < columns*rows; k++) {
+            cells.add(new ArrayList<>());
+        }
+        for (Obstacle ob : obstacles) {
+            for (int r = row(ob.minY); r <= row(ob.maxY); r++) {
+                for (int c = column(ob.minX); c <= column(ob.maxX); c++) {
+                    cells.get(r*columns + c).add(ob);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the clearance of the field, to pass poses far from every obstacle without testing them.
+     */
+    public void setClearanceField(ClearanceField field) {
+        this.clearanceField = field;
+    }
+
+    /**
+     * Return the distance of the farthest corner of the robot footprint from the path reference point.
+     */
+    public double getFootprintRadius() {
+        double radius = 0.0;
+        for (int k = 0; k < 4; k++) {
+            radius = Math.max(radius, Math.sqrt(cornerX[k]*cornerX[k] + cornerY[k]*cornerY[k]));
+        }
+        return radius;
+    }
+
+    /**
+     * Return the solid obstacles known to this checker.
+     */
+    public List<Obstacle> getObstacles() {
+        return obstacles;
+    }
+
+    /**
+     * Class constructor.
+     * @param fieldGraphics - field graphics, as returned by GameFieldFileHandler.getFieldGraphicsFromFile()
+     * @param robot         - robot parameters, as returned by GameFieldFileHandler.getRobotFromFile()
+     */
+    public CollisionChecker(List<String> fieldGraphics, Map<String, String> robot) {
+        this.obstacles = Obstacle.fromFieldGraphics(fieldGraphics);
+        if (fieldGraphics != null) {
+            for (String f : fieldGraphics) {
+                String[] chunks = f.split("\\s+");
+                if (chunks[0].equals("FIELD")) {
+                    double x1 = Double.parseDouble(chunks[4]);
+                    double y1 = Double.parseDouble(chunks[5]);
+                    double x2 = Double.parseDouble(chunks[6]);
+                    double y2 = Double.parseDouble(chunks[7]);
+                    fieldMinX = Math.min(x1, x2);
+                    fieldMinY = Math.min(y1, y2);
+                    fieldMaxX = Math.max(x1, x2);
+                    fieldMaxY = Math.max(y1, y2);
+                    hasField = true;
+                    break;
+                }
+            }
+        }
+
+        double offsetX = 0.0 - Double.parseDouble(robot.get("ORIGIN_X_OFFSET"));
+        double offsetY = 0.0 - Double.parseDouble(robot.get("ORIGIN_Y_OFFSET"));
+        double halfX = Double.parseDouble(robot.get("SIDE_TO_SIDE"))/2.0;
+        double halfY = Double.parseDouble(robot.get("FRONT_TO_BACK"))/2.0;
+        double grow = SAMPLE_STEP/2.0;
+        double[] signX = { 1.0, 1.0, -1.0, -1.0 };  // back-right, front-right, front-left, back-left
+        double[] signY = { -1.0, 1.0, 1.0, -1.0 };
+        for (int k = 0; k < 4; k++) {
+            cornerX[k] = offsetX + signX[k]*halfX;
+            cornerY[k] = offsetY + signY[k]*halfY;
+            grownX[k] = offsetX + signX[k]*(halfX + grow);
+            grownY[k] = offsetY + signY[k]*(halfY + grow);
+            reach = Math.max(reach, Math.sqrt(grownX[k]*grownX[k] + grownY[k]*grownY[k]));
+        }
+        buildGrid();
+    }
+
+    /**
+     * main - check the paths of a batch of routines from the command line.
+     *        Each argument is a settings file naming the FIELD_FILE, ROBOT_FILE and NAVPOINT_INFILE
+     *        of a routine. Exits with status 1 if any routine's path collides or fails to load.
+     */
+    public static void main(String[] args) {
+        boolean failed = false;
+        for (String settingsFile : args) {
+            Map<String, String> settings = GameFieldFileHandler.parseSettingsFile(settingsFile);
+            if (settings == null) {
+                System.out.println(settingsFile+": failed to read settings");
+                failed = true;
+                continue;
+            }
+            Diagnostics.setLevel(Diagnostics.levelFromSetting(settings.get("DIAGNOSTICS_LEVEL")));
+            List<String> fieldGraphics = GameFieldFileHandler.getFieldGraphicsFromFile(settings.get("FIELD_FILE"));
+            Map<String, String> robot = GameFieldFileHandler.getRobotFromFile(settings.get("ROBOT_FILE"));
+            List<NavPoint> navpoints = GameFieldFileHandler.getNavPointsFromFile(settings.get("NAVPOINT_INFILE"));
+            if (fieldGraphics == null || robot == null || navpoints == null) {
+                System.out.println(settingsFile+": failed to read field, robot or NavPoint file");
+                failed = true;
+                continue;
+            }
+            CollisionChecker checker = new CollisionChecker(fieldGraphics, robot);
+            ClearanceField clearanceField = ClearanceField.forFieldFile(settings.get("FIELD_FILE"), fieldGraphics,
+                                                ClearanceField.resolutionFromSetting(settings.get("CLEARANCE_RESOLUTION")),
+                                                settings.get("CLEARANCE_CACHE_DIR"));
+            checker.setClearanceField(clearanceField);
+            CalcOptions options = new CalcOptions().withSettings(settings).withRobot(robot)
+                                                   .withClearanceField(clearanceField, checker.getFootprintRadius())
+                                                   .withPathPlanner(new PathPlanner(clearanceField, checker));
+            List<NavPath> path = new CalcPath((SettingsFrame) null).genPath(navpoints, options);
+            Collision collision = checker.checkPath(path);
+            if (collision != null) {
+                System.out.println(settingsFile+": "+collision.toString());
+                failed = true;
+            }
+            else {
+                System.out.println(settingsFile+": clear");
+            }
+        }
+        Diagnostics.info("CalcMetrics", () -> CalcMetrics.snapshot().toString());
+        System.exit(failed ? 1 : 0);
+    }
+}
@@ -0,0 +1,169 @@
+package waypoint;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Diagnostics of path calculation, simulation and drawing.
+ *
+ * Messages are logged at a Level to a Sink, the console by default. A message is passed
+ * as a Supplier, so it is only built when its Level is enabled; a disabled message costs
+ * one comparison. Code that logs on every tick may also test isEnabled() first.
+ *
+ * Events are structured records of what the code decided (which strategy resolved a
+ * connection, which candidate was rejected and why) for tests or the UI to subscribe to.
+ * Events are only built while some Listener is subscribed.
+ */
+public final class Diagnostics {
+
+    // Levels of messages, from the fewest to the most. OFF logs nothing.
+    //   ERROR - something failed
+    //   WARN  - something was not as expected, and worked around
+    //   INFO  - once per path or simulation run
+    //   DEBUG - once per connection, path element or drawing
+    //   TRACE - every candidate, tick or pixel of work
+    public enum Level { OFF, ERROR, WARN, INFO, DEBUG, TRACE }
+
+    /**
+     * Destination of logged messages.
+     */
+    public interface Sink {
+        void log(Level level, String source, String message);
+    }
+
+    /**
+     * Subscriber to structured events. The waypoint search resolves candidates in parallel,
+     * so a Listener may be called from several threads at once.
+     */
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    /**
+     * A structured event:
+     *   source  - class the event came from, such as "CalcPath"
+     *   kind    - what happened, such as "strategy", "resolved" or "rejected"
+     *   subject - what it happened to, such as a strategy or candidate name
+     *   reason  - why, or a detail of the outcome; may be empty
+     */
+    public static final class Event {
+        public final String source;
+        public final String kind;
+        public final String subject;
+        public final String reason;
+        public final long   nanoTime;
+
+        Event(String source, String kind, String subject, String reason) {
+            this.source = source;
+            this.kind = kind;
+            this.subject = subject;
+            this.reason = (reason == null) ? "" : reason;
+            this.nanoTime = System.nanoTime();
+        }
+
+        public String toString() {
+            return source+" "+kind+" "+subject+(reason.isEmpty() ? "" : ": "+reason);
+        }
+    }
+
+    // Sink printing to the console, as the code did before Diagnostics
+    public static final Sink CONSOLE = (level, source, message) -> System.out.println(message);
+
+    private static volatile Level level = Level.INFO;
+    private static volatile Sink  sink = CONSOLE;
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean listening = false;
+
+    /**
+     * Return true if messages of a given Level are logged.
+     */
+    public static boolean isEnabled(Level l) {
+        return l.ordinal() <= level.ordinal() && l != Level.OFF;
+    }
+
+    /**
+     * Log a message, built only if its Level is enabled.
+     */
+    public static void log(Level l, String source, Supplier<String> message) {
+        if (isEnabled(l)) {
+            sink.log(l, source, message.get());
+        }
+    }
+
+    public static void error(String source, Supplier<String> message) { log(Level.ERROR, source, message); }
+    public static void warn (String source, Supplier<String> message) { log(Level.WARN,  source, message); }
+    public static void info (String source, Supplier<String> message) { log(Level.INFO,  source, message); }
+    public static void debug(String source, Supplier<String> message) { log(Level.DEBUG, source, message); }
+    public static void trace(String source, Supplier<String> message) { log(Level.TRACE, source, message); }
+
+    /**
+     * Return true if any Listener is subscribed to events.
+     */
+    public static boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * Publish an event to every subscribed Listener; does nothing if none is subscribed.
+     */
+    public static void event(String source, String kind, String subject, String reason) {
+        if (!listening) { return; }
+        Event e = new Event(source, kind, subject, reason);
+        for (Listener l : listeners) {
+            l.onEvent(e);
+        }
+    }
+
+    /**
+     * Publish an event whose reason is only built if some Listener is subscribed.
+     */
+    public static void event(String source, String kind, String subject, Supplier<String> reason) {
+        if (!listening) { return; }
+        event(source, kind, subject, reason.get());
+    }
+
+    public static void addListener(Listener l) {
+        listeners.add(l);
+        listening = true;
+    }
+
+    public static void removeListener(Listener l) {
+        listeners.remove(l);
+        listening = !listeners.isEmpty();
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level l) {
+        level = (l == null) ? Level.INFO : l;
+    }
+
+    /**
+     * Set where logged messages go; null restores the console.
+     */
+    public static void setSink(Sink s) {
+        sink = (s == null) ? CONSOLE : s;
+    }
+
+    /**
+     * Return the Level named by a settings value, such as DIAGNOSTICS_LEVEL, or INFO if
+     * the value is missing or unknown.
+     */
+    public static Level levelFromSetting(String value) {
+        if (value == null) { return Level.INFO; }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.US));
+        }
+        catch (IllegalArgumentException e) {
+            System.out.println("Unknown diagnostics level: "+value+", using INFO");
+            return Level.INFO;
+        }
+    }
+
+    private Diagnostics() {
+    }
+}
@@ -7,6 +7,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Arc2D;
+import java.awt.image.BufferedImage;
 import java.awt.Toolkit;
 
 import javax.swing.JPanel;
@@ -38,6 +39,11 @@ public class DrawField extends JPanel {
     private static final Color darkGreen = new Color(0,102,0);
     private static final Color purple    = new Color(102,0,153);
     
+    private static final String DIAG = "DrawField";  // source of this class's diagnostics
+    
+    private ClearanceField heatmapField = null;  // ClearanceField the heatmap was rendered from
+    private BufferedImage heatmap = null;        // clearance heatmap, one pixel per cell
+    
 
     /**
      * Set field panel dimensions based on GameField settings.
@@ -50,8 +56,7 @@ public class DrawField extends JPanel {
         //SCALE = availableHeight / (gf.FIELD_WIDTH_Y+2.0*BORDER_WIDTH);
         SCALE = (double)((int) (availableHeight / (gf.FIELD_WIDTH_Y+2.0*BORDER_WIDTH)));
         //SCALE = 5.0;
-        System.out.println("FIELD_WIDTH_Y="+gf.FIELD_WIDTH_Y);
-        System.out.println("SCALE="+SCALE);
+        Diagnostics.info(DIAG, () -> "FIELD_WIDTH_Y="+gf.FIELD_WIDTH_Y+"\nSCALE="+SCALE);
     
         // Set field dimensions scaled according to available display size
         FIELD_PIXEL_ORIGIN_X = (int)(gf.FIELD_ORIGIN_X*SCALE);
@@ -60,7 +65,7 @@ public class DrawField extends JPanel {
         FIELD_PIXEL_SIZE_Y   = (int)(gf.FIELD_WIDTH_Y *SCALE);
         BORDER               = (int)(BORDER_WIDTH     *SCALE);
         FIELD_PANEL_SIZE     = Math.max(FIELD_PIXEL_SIZE_X+FIELD_PIXEL_ORIGIN_X, FIELD_PIXEL_SIZE_Y+FIELD_PIXEL_ORIGIN_Y)+BORDER*2;
-        System.out.println("FIELD_PANEL_SIZE="+FIELD_PANEL_SIZE);
+        Diagnostics.info(DIAG, () -> "FIELD_PANEL_SIZE="+FIELD_PANEL_SIZE);
     }
     
     public int getFieldPanelSize() {
@@ -180,8 +185,11 @@ public class DrawField extends JPanel {
         g2.setColor(color);
         g2.draw(new Arc2D.Double(x, y, width, height, startAngle, arcAngle, Arc2D.OPEN));
         //debug:
-        System.out.println("DRAW cx:"+cx+" cy:"+cy+" r:"+r+" sa:"+sa+" ea:"+ea+ "ccw:"+ccw);
-        System.out.println("DRAW arc:"+x+" "+y+" "+width+" "+height+" "+startAngle+" "+arcAngle);
+        if (Diagnostics.isEnabled(Diagnostics.Level.TRACE)) {
+            double sweep = arcAngle;
+            Diagnostics.trace(DIAG, () -> "DRAW cx:"+cx+" cy:"+cy+" r:"+r+" sa:"+sa+" ea:"+ea+ "ccw:"+ccw+
+                                          "\nDRAW arc:"+x+" "+y+" "+width+" "+height+" "+startAngle+" "+sweep);
+        }
     }
 
     /**
@@ -293,6 +301,9 @@ public class DrawField extends JPanel {
                 case "FILLCIRCLE":
                 case "FILLPOLYGON":
                 case "FILLRECT":
+                case "SOLIDCIRCLE":
+                case "SOLIDPOLYGON":
+                case "SOLIDRECT":
                     fill = true;
                     break;
             }
@@ -303,14 +314,17 @@ public class DrawField extends JPanel {
                     break;
                 case "RECT":
                 case "FILLRECT":
+                case "SOLIDRECT":
                     graphRect(g, Double.valueOf(chunks[5]), Double.valueOf(chunks[6]), Double.valueOf(chunks[7]), Double.valueOf(chunks[8]), color, fill);
                     break;
                 case "CIRCLE":
                 case "FILLCIRCLE":
+                case "SOLIDCIRCLE":
                     graphCircle(g, Double.valueOf(chunks[5]), Double.valueOf(chunks[6]), Double.valueOf(chunks[7]), color, fill);
                     break;
                 case "POLYGON":
                 case "FILLPOLYGON":
+                case "SOLIDPOLYGON":
                     int vertices = (chunks.length-5)/2;
                     double[] xpts = new double[vertices];
                     double[] ypts = new double[vertices];
@@ -344,37 +358,13 @@ public class DrawField extends JPanel {
         // If there's nothing to draw then simply return
         if (gf.robotNavPaths == null) { return; }
     
+        NavPath.Renderer renderer = renderer(g, g2);
         for (NavPath p : gf.robotNavPaths) {
-            if (p instanceof Vector) {
-                Vector v = (Vector) p;
-                // robot path
-                graphLine(g, v.i.pt.x, v.i.pt.y, v.o.pt.x, v.o.pt.y, pathColor);
-                if (gf.showLength) {
-                    double angle = v.heading - Math.PI/2.0;
-                    graphLine(g, v.i.pt.x+rightSideX*Math.cos(angle), v.i.pt.y+rightSideX*Math.sin(angle), 
-                                 v.o.pt.x+rightSideX*Math.cos(angle), v.o.pt.y+rightSideX*Math.sin(angle), lengthColor);
-                }
-                
-            }
-            else if (p instanceof Arc) {
-                Arc a = (Arc) p;
-                Color sideColor = null;
-                // path of center of robot
-                graphArc(g2, a.center.x, a.center.y, a.radius, a.startAngle*180/Math.PI, a.endAngle*180/Math.PI, !a.clockwise, pathColor);
-                if (gf.showLength) {
-                    // path of right side of robot                    
-                    if ((a.endAngle>a.startAngle) && (Math.abs(a.orientation) < 0.000001)) {
-                        graphArc(g2, a.center.x, a.center.y, a.radius+rightSideX, a.startAngle*180/Math.PI, a.endAngle*180/Math.PI, !a.clockwise,  lengthColor);                        
-                    }
-                    // path of left side of robot
-                    else {
-                        graphArc(g2, a.center.x, a.center.y, a.radius+leftSideX, a.startAngle*180/Math.PI, a.endAngle*180/Math.PI, !a.clockwise,  lengthColor);
-                    }
-                }
-                
-            }
-            else if (p instanceof Gap) {
-                graphLine(g, p.i.pt.x, p.i.pt.y, p.o.pt.x, p.o.pt.y, Color.yellow);
+            // robot path
+            p.draw(renderer, 0.0, pathColor);
+            if (gf.showLength) {
+                // path of the side of the robot that updateLength() measures
+                p.draw(renderer, p.outerSide(rightSideX, leftSideX), lengthColor);
             }
         }
     }
@@ -390,27 +380,23 @@ public class DrawField extends JPanel {
         // get the translation of the midpoint of the robot relative to Path coordinate system.
         double robotOffsetx = 0.0 - Double.parseDouble(gf.myRobot.get("ORIGIN_X_OFFSET"));
         double robotOffsety = 0.0 - Double.parseDouble(gf.myRobot.get("ORIGIN_Y_OFFSET"));
-        System.out.println("rOx="+robotOffsetx);
+        Diagnostics.trace(DIAG, () -> "rOx="+robotOffsetx);
         
         // get dimensions of robot
         double robotx = Double.parseDouble(gf.myRobot.get("SIDE_TO_SIDE"));
         double roboty = Double.parseDouble(gf.myRobot.get("FRONT_TO_BACK"));
         
-        NavPoint br = new NavPoint(robotOffsetx + robotx/2.0, robotOffsety - roboty/2.0);
-        NavPoint fr = new NavPoint(robotOffsetx + robotx/2.0, robotOffsety + roboty/2.0);
-        NavPoint bl = new NavPoint(robotOffsetx - robotx/2.0, robotOffsety - roboty/2.0);
-        NavPoint fl = new NavPoint(robotOffsetx - robotx/2.0, robotOffsety + roboty/2.0);
-        NavPoint cc = new NavPoint(robotOffsetx, robotOffsety);
-        NavPoint co = new NavPoint(robotOffsetx, robotOffsety+2.0);
-        
-        System.out.println("br="+br.toString());
+        // Outline of the robot in its own frame: corners br, fr, fl, bl,
+        // then its center cc and the tip co of the direction tick
+        final int BR = 0, FR = 1, FL = 2, BL = 3, CC = 4, CO = 5;
+        double[] lx = { robotOffsetx + robotx/2.0, robotOffsetx + robotx/2.0, robotOffsetx - robotx/2.0, robotOffsetx - robotx/2.0,
+                        robotOffsetx, robotOffsetx };
+        double[] ly = { robotOffsety - roboty/2.0, robotOffsety + roboty/2.0, robotOffsety + roboty/2.0, robotOffsety - roboty/2.0,
+                        robotOffsety, robotOffsety+2.0 };
+        double[] px = new double[lx.length];
+        double[] py = new double[ly.length];
         
-        NavPoint brN;
-        NavPoint frN;
-        NavPoint blN;
-        NavPoint flN;
-        NavPoint ccN;
-        NavPoint coN;
+        Diagnostics.trace(DIAG, () -> "br=("+lx[BR]+","+ly[BR]+")");
         
         Color color = Color.magenta;
     
@@ -420,32 +406,135 @@ public class DrawField extends JPanel {
             NavPoint npt = new NavPoint(gf.waypoints.get(i));
             npt.heading += gf.waypoints.get(i).orientation;
             
-            System.out.println(npt.toString());
+            Diagnostics.trace(DIAG, () -> npt.toString());
             if (i==0 || npt.stop) {
                 // Put the corners of the robot into Path coordinate system, referenced by the
                 // NavPoint we created from the waypoint.
-                brN = br.displacedBy(npt);
-                frN = fr.displacedBy(npt);
-                blN = bl.displacedBy(npt);
-                flN = fl.displacedBy(npt);
-                ccN = cc.displacedBy(npt);
-                coN = co.displacedBy(npt);
-                System.out.println("npt="+npt.toString());
-                System.out.println("brN="+brN.toString());
+                Transform2d.frameOf(npt).apply(lx, ly, px, py, lx.length);
+                Diagnostics.trace(DIAG, () -> "npt="+npt.toString()+"\nbrN=("+px[BR]+","+py[BR]+")");
                 
                 // draw four sides of the robot
-                graphLine(g, brN.pt.x, brN.pt.y, frN.pt.x, frN.pt.y, color);
-                graphLine(g, frN.pt.x, frN.pt.y, flN.pt.x, flN.pt.y, color);
-                graphLine(g, flN.pt.x, flN.pt.y, blN.pt.x, blN.pt.y, color);
-                graphLine(g, blN.pt.x, blN.pt.y, brN.pt.x, brN.pt.y, color);
+                graphLine(g, px[BR], py[BR], px[FR], py[FR], color);
+                graphLine(g, px[FR], py[FR], px[FL], py[FL], color);
+                graphLine(g, px[FL], py[FL], px[BL], py[BL], color);
+                graphLine(g, px[BL], py[BL], px[BR], py[BR], color);
                 
                 // draw circle at center of robot and tick indicator for direction
-                graphCircle(g, ccN.pt.x, ccN.pt.y, 3.0, color, true);
-                graphLine(g, ccN.pt.x, ccN.pt.y, coN.pt.x, coN.pt.y, color);
+                graphCircle(g, px[CC], py[CC], 3.0, color, true);
+                graphLine(g, px[CC], py[CC], px[CO], py[CO], color);
             }
         }                
     }
     
+    /**
+     * Draw the clearance of the field as a heatmap: red next to an obstacle or the perimeter,
+     * through yellow, to green where the field is most open. The heatmap is rendered once for
+     * each ClearanceField, a pixel per cell, and drawn scaled to the field.
+     */
+    public void drawClearance(Graphics g, Graphics2D g2) {
+    
+        // If there's nothing to draw then simply return
+        ClearanceField cf = gf.clearanceField;
+        if (cf == null) { return; }
+        
+        if (cf != heatmapField) {
+            heatmap = renderClearance(cf);
+            heatmapField = cf;
+        }
+        int x = toGraphX(cf.originX);
+        int y = toGraphY(cf.originY + cf.rows*cf.resolution);
+        int width = (int) (cf.columns*cf.resolution*SCALE);
+        int height = (int) (cf.rows*cf.resolution*SCALE);
+        g.drawImage(heatmap, x, y, width, height, null);
+    }
+    
+    /**
+     * Return the heatmap of a ClearanceField as an image, a pixel per cell, its top row the cells
+     * furthest up the field.
+     */
+    private static BufferedImage renderClearance(ClearanceField cf) {
+        BufferedImage image = new BufferedImage(cf.columns, cf.rows, BufferedImage.TYPE_INT_RGB);
+        double max = Math.max(cf.maxClearance(), 1.0);
+        for (int r = 0; r < cf.rows; r++) {
+            for (int c = 0; c < cf.columns; c++) {
+                float f = (float) Math.min(1.0, cf.clearance[r*cf.columns + c] / max);
+                // hue 0.0 is red, 1/3 is green
+                image.setRGB(c, cf.rows-1 - r, Color.HSBtoRGB(f/3.0f, 0.8f, 1.0f));
+            }
+        }
+        return image;
+    }
+    
+    /**
+     * Draw the rolling timings of painting, updating the path (and each of its steps) and
+     * simulating, as a box of text in the upper left corner of the field.
+     */
+    public void drawTimings(Graphics g, Graphics2D g2) {
+        TimingWindow[] timings = { gf.paintTimes, gf.updatePathTimes, gf.genPathTimes, gf.pathFileTimes,
+                                   gf.waypointTimes, gf.lengthTimes, gf.simTimes };
+        int lineHeight = g2.getFontMetrics().getHeight();
+        int width = 0;
+        for (TimingWindow t : timings) {
+            width = Math.max(width, g2.getFontMetrics().stringWidth(t.toString()));
+        }
+        int x = BORDER + FIELD_PIXEL_ORIGIN_X + 4;
+        int y = BORDER + FIELD_PIXEL_ORIGIN_Y + 4;
+        g2.setColor(new Color(0, 0, 0, 160));
+        g2.fillRect(x, y, width + 8, lineHeight*timings.length + 6);
+        g2.setColor(Color.white);
+        for (int i = 0; i < timings.length; i++) {
+            g2.drawString(timings[i].toString(), x + 4, y + 2 + lineHeight*(i+1) - g2.getFontMetrics().getDescent());
+        }
+    }
+    
+    /**
+     * Draw the robot in red at its first contact with the field along the path.
+     */
+    public void drawCollision(Graphics g, Graphics2D g2) {
+    
+        // If there's nothing to draw then simply return
+        if (gf.collision == null || gf.myRobot == null) { return; }
+        
+        // get the translation of the midpoint of the robot relative to Path coordinate system.
+        double robotOffsetx = 0.0 - Double.parseDouble(gf.myRobot.get("ORIGIN_X_OFFSET"));
+        double robotOffsety = 0.0 - Double.parseDouble(gf.myRobot.get("ORIGIN_Y_OFFSET"));
+        
+        // get dimensions of robot
+        double robotx = Double.parseDouble(gf.myRobot.get("SIDE_TO_SIDE"));
+        double roboty = Double.parseDouble(gf.myRobot.get("FRONT_TO_BACK"));
+        
+        // Put the corners of the robot into Path coordinate system, referenced by the pose at contact.
+        NavPoint npt = gf.collision.pose;
+        // corners br, fr, fl, bl
+        double[] px = { robotOffsetx + robotx/2.0, robotOffsetx + robotx/2.0, robotOffsetx - robotx/2.0, robotOffsetx - robotx/2.0 };
+        double[] py = { robotOffsety - roboty/2.0, robotOffsety + roboty/2.0, robotOffsety + roboty/2.0, robotOffsety - roboty/2.0 };
+        Transform2d.frameOf(npt).apply(px, py, px, py, px.length);
+        
+        // draw four sides of the robot
+        for (int k = 0; k < px.length; k++) {
+            int next = (k + 1) % px.length;
+            graphLine(g, px[k], py[k], px[next], py[next], Color.red);
+        }
+        graphCircle(g, npt.pt.x, npt.pt.y, 3.0, Color.red, true);
+    }
+    
+    /**
+     * Draw in magenta the path elements the robot cannot drive, marking where along each it is worst.
+     */
+    public void drawInfeasible(Graphics g, Graphics2D g2) {
+    
+        // If there's nothing to draw then simply return
+        if (gf.infeasible == null || gf.infeasible.isEmpty() || gf.robotNavPaths == null) { return; }
+        
+        NavPath.Renderer renderer = renderer(g, g2);
+        for (Infeasibility f : gf.infeasible) {
+            if (f.element < gf.robotNavPaths.size()) {
+                gf.robotNavPaths.get(f.element).draw(renderer, 0.0, Color.magenta);
+            }
+            graphCircle(g, f.pose.pt.x, f.pose.pt.y, 3.0, Color.magenta, true);
+        }
+    }
+    
     /**
      * Draw robot tracks onto graphical field.
      */
@@ -454,48 +543,34 @@ public class DrawField extends JPanel {
         // If there's nothing to draw then simply return
         if (gf.robotNavPaths == null) { return; }
     
+        NavPath.Renderer renderer = renderer(g, g2);
         for (NavPath p : gf.robotNavPaths) {
-            if (p instanceof Vector) {
-                Vector v = (Vector) p;
-                // robot path
-                graphLine(g, v.i.pt.x, v.i.pt.y, v.o.pt.x, v.o.pt.y, Color.blue);
-                
-                if (gf.showRobotTracks) {
-                    double angle = v.heading - Math.PI/2.0;
-                    // path of right side of robot
-                    Color color = Color.green;
-                    graphLine(g, v.i.pt.x+8.0*Math.cos(angle), v.i.pt.y+8.0*Math.sin(angle), v.o.pt.x+8.0*Math.cos(angle), v.o.pt.y+8.0*Math.sin(angle), color);
-                    // path of left side of robot
-                    graphLine(g, v.i.pt.x-8.0*Math.cos(angle), v.i.pt.y-8.0*Math.sin(angle), v.o.pt.x-8.0*Math.cos(angle), v.o.pt.y-8.0*Math.sin(angle), darkGreen);                    
-                }
-            }
-            else if (p instanceof Arc) {
-                Arc a = (Arc) p;
-                Color sideColor = null;
-                // path of center of robot
-                graphArc(g2, a.center.x, a.center.y, a.radius, a.startAngle*180/Math.PI, a.endAngle*180/Math.PI, !a.clockwise, Color.blue);
-                if (gf.showRobotTracks) {
-                    // path of right side of robot                    
-                    double rightSide = (a.endAngle<a.startAngle) ? -1.0 : 1.0;
-                    sideColor = Color.green;
-                    if (sideColor != null) {
-                        graphArc(g2, a.center.x, a.center.y, a.radius+8.0*rightSide, a.startAngle*180/Math.PI, a.endAngle*180/Math.PI, !a.clockwise, sideColor);
-                    }
-                    // path of left side of robot
-                    rightSide = (a.endAngle>a.startAngle) ? -1.0 : 1.0;
-                    sideColor = darkGreen;
-                    if (sideColor != null) {
-                        graphArc(g2, a.center.x, a.center.y, a.radius+8.0*rightSide, a.startAngle*180/Math.PI, a.endAngle*180/Math.PI, !a.clockwise, sideColor);
-                    }
-                }
-            }
-            else if (p instanceof Gap) {
-                graphLine(g, p.i.pt.x, p.i.pt.y, p.o.pt.x, p.o.pt.y, Color.yellow);
+            // path of center of robot
+            p.draw(renderer, 0.0, Color.blue);
+            if (gf.showRobotTracks) {
+                // path of right side of robot
+                p.draw(renderer, 8.0, Color.green);
+                // path of left side of robot
+                p.draw(renderer, -8.0, darkGreen);
             }
         }
         
     }
     
+    /**
+     * Return a NavPath.Renderer that draws onto the graphical field.
+     */
+    private NavPath.Renderer renderer(Graphics g, Graphics2D g2) {
+        return new NavPath.Renderer() {
+            public void line(double x1, double y1, double x2, double y2, Color color) {
+                graphLine(g, x1, y1, x2, y2, color);
+            }
+            public void arc(double cx, double cy, double radius, double startAngle, double endAngle, boolean clockwise, Color color) {
+                graphArc(g2, cx, cy, radius, startAngle*180/Math.PI, endAngle*180/Math.PI, !clockwise, color);
+            }
+        };
+    }
+    
     /**
      * Draw grid overlay of tile and tile mesh onto field
      */
@@ -619,37 +694,67 @@ public class DrawField extends JPanel {
      */
     @Override
     public void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime();
         super.paintComponent(g);
             
         setBackground(Color.DARK_GRAY);            
         Graphics2D g2 = (Graphics2D) g;
 
+        // Each overlay drawn is recorded as a FlightEvents.PaintOverlay
+        FlightEvents.PaintOverlay overlay;
+
         // draw floor of field
         g.setColor(Color.LIGHT_GRAY);
         g.fillRect(BORDER+FIELD_PIXEL_ORIGIN_X,BORDER+FIELD_PIXEL_ORIGIN_Y,FIELD_PIXEL_SIZE_X,FIELD_PIXEL_SIZE_Y);
             
+        // draw clearance heatmap, if necessary
+        if (gf.showClearance) {
+            overlay = new FlightEvents.PaintOverlay("Clearance");
+            drawClearance(g, g2);
+            overlay.commit();
+        }
+        
         // draw field markings
+        overlay = new FlightEvents.PaintOverlay("Field Graphics");
         drawFieldGraphics(g, g2);
+        overlay.commit();
 
         // draw Nav Path and Length
         g2.setStroke(new BasicStroke(3));
+        overlay = new FlightEvents.PaintOverlay("Nav Path");
         drawNavPath(g, g2);
+        overlay.commit();
             
         // draw robot-stop overlays
         g2.setStroke(new BasicStroke(5));
         if (gf.showRobotStops) {
+            overlay = new FlightEvents.PaintOverlay("Robot Stops");
             drawRobotStops(g, g2);
+            overlay.commit();
         }
         
+        // draw robot at its first contact with the field, if any
+        overlay = new FlightEvents.PaintOverlay("Collision");
+        drawCollision(g, g2);
+        overlay.commit();
+        
+        // draw path elements the robot cannot drive, if any
+        overlay = new FlightEvents.PaintOverlay("Infeasible");
+        drawInfeasible(g, g2);
+        overlay.commit();
+        
         // draw robot-track overlays
         g2.setStroke(new BasicStroke(3));        
         if (gf.showRobotTracks) {
+            overlay = new FlightEvents.PaintOverlay("Robot Tracks");
             drawRobotTracks(g, g2);
+            overlay.commit();
         }
             
         Color color;
         // draw Navpoint overlays, if necessary
         if (gf.showNavPoints && (gf.sourceNavPoints != null)) {
+            overlay = new FlightEvents.PaintOverlay("NavPoints");
             int i = 0;
             for (NavPoint npt : gf.sourceNavPoints) {
                 color = npt.stop ? Color.red : Color.black;
@@ -664,21 +769,21 @@ public class DrawField extends JPanel {
             // add highlight of NavPoint selected in JTable
             int row = gf.nptTable.getSelectedRow();
             if (row >= 0) {                
-                System.out.println("row:"+row);
                 try {
                     g2.setStroke(new BasicStroke(2));
-                    System.out.println(" "+gf.nptTable.getModel().getValueAt(row,1));
                     double x = Double.parseDouble(gf.nptTable.getModel().getValueAt(row,1).toString());
                     double y = Double.parseDouble(gf.nptTable.getModel().getValueAt(row,2).toString());
-                    System.out.println("Highlight x:"+x+" y:"+y);
+                    Diagnostics.trace(DIAG, () -> "row:"+row+" Highlight x:"+x+" y:"+y);
                     graphCircle(g, x, y, 1.5, Color.white, true);
                     graphCircle(g, x, y, 3.0, Color.white, false);
                     g2.setStroke(new BasicStroke(3));
                 } catch (NullPointerException e) {}
             }
+            overlay.commit();
         }
         // draw waypoint overlays, if necessary
         if (gf.showWaypoints) {
+            overlay = new FlightEvents.PaintOverlay("Waypoints");
             int i = 0;
             for (NavPoint npt : gf.waypoints) {
                 color = npt.stop ? Color.red : Color.black;
@@ -690,29 +795,44 @@ public class DrawField extends JPanel {
                 }
                 i = i+1;
             }
+            overlay.commit();
         }
                     
         // draw grid overlay, if necessary
         if (gf.showGrid) {
+            overlay = new FlightEvents.PaintOverlay("Grid");
             drawGrid(g, g2);
+            overlay.commit();
         }
         
         // draw compass, if necessary
         if (gf.showCompass) {
+            overlay = new FlightEvents.PaintOverlay("Compass");
             drawCompass(g, g2);
+            overlay.commit();
         }
             
         // draw simulation result overlay, if necessary
         if (gf.showSim && (gf.simNavPoints != null)) {
+            overlay = new FlightEvents.PaintOverlay("Simulation");
             for (NavPoint npt : gf.simNavPoints) {
                 graphCircle(g, npt.pt.x, npt.pt.y, 1.0, Color.black, true);                    
             }
+            overlay.commit();
         }
             
         // draw field perimeter
         g.setColor(Color.black);
         g2.setStroke(new BasicStroke(3));
         g.drawRect(BORDER-2,BORDER-2,FIELD_PIXEL_SIZE_X+2,FIELD_PIXEL_SIZE_Y+2);
+        
+        // draw timings overlay, if necessary; the paint time shown is that of the previous paint
+        if (gf.showTimings) {
+            overlay = new FlightEvents.PaintOverlay("Timings");
+            drawTimings(g, g2);
+            overlay.commit();
+        }
+        gf.paintTimes.recordSince(paintStart);
     }
     
     public DrawField(GameField me) {
@@ -0,0 +1,96 @@
+package waypoint;
+
+import java.util.Map;
+
+/**
+ * Interface to the kinematics of a robot's drivetrain, relating the motion of the robot's body
+ * to the travel of its driven wheels, each of which has a motor and an encoder.
+ *
+ * Body motion is given in the robot's frame: forward along the way the robot faces, left
+ * across it, and turn counter-clockwise in radians. Wheel travel is measured along each
+ * wheel's direction of drive, in the same length unit as the body motion.
+ *
+ * The robot file names the drivetrain with the optional key DRIVETRAIN:
+ *   TANK     (default) - left and right wheels,                 motors { left, right }
+ *   MECANUM            - four mecanum wheels with 45 degree rollers, motors { frontLeft, frontRight, backLeft, backRight }
+ *   X_DRIVE            - four omni wheels at 45 degrees in the corners, motors as for MECANUM
+ */
+public interface Drivetrain {
+
+    /**
+     * Return the name of this drivetrain, as the robot file's DRIVETRAIN key gives it.
+     */
+    String name();
+
+    /**
+     * Return the number of driven wheels, each with its own motor and encoder.
+     */
+    int motorCount();
+
+    /**
+     * Return true if the drivetrain can move the robot in any direction, whichever way it faces.
+     */
+    boolean isHolonomic();
+
+    /**
+     * Return the distance between the centers of the left and right wheels.
+     */
+    double trackWidth();
+
+    /**
+     * Return the speed the robot travels forward with its fastest wheels at a given speed:
+     * the wheels' speed for a tank or mecanum drive, sqrt(2) times it for an X-drive.
+     * @param wheelSpeed - speed of the fastest wheels, as at full power
+     */
+    default double forwardSpeed(double wheelSpeed) {
+        double[] wheels = new double[motorCount()];
+        inverse(1.0, 0.0, 0.0, wheels);
+        double fastest = 0.0;
+        for (double wheel : wheels) {
+            fastest = Math.max(fastest, Math.abs(wheel));
+        }
+        return wheelSpeed / fastest;
+    }
+
+    /**
+     * Inverse kinematics: the travel of each wheel that moves the robot's body by a given amount.
+     * @param forward - travel along the way the robot faces
+     * @param left    - travel across, to the robot's left
+     * @param turn    - turn, in radians counter-clockwise
+     * @param wheels  - filled with the travel of each wheel, in motor order
+     */
+    void inverse(double forward, double left, double turn, double[] wheels);
+
+    /**
+     * Forward kinematics: the motion of the robot's body given the travel of each wheel, as the
+     * wheels' encoders read it.
+     * @param wheels - travel of each wheel, in motor order
+     * @param motion - filled with { forward, left, turn }
+     */
+    void forward(double[] wheels, double[] motion);
+
+    /**
+     * Return the drivetrain described by a robot file; a tank drive of SimRobot's default
+     * width if there is no robot file, or it does not name a drivetrain, as the simulation
+     * drove the robot before the robot file could name one.
+     * @param robot - Map of the robot file's keys and values; may be null
+     */
+    static Drivetrain forRobot(Map<String, String> robot) {
+        if (robot == null || !robot.containsKey("DRIVETRAIN")) {
+            return new TankDrive(SimRobot.DEFAULT_WIDTH_INCHES);
+        }
+        double track = Double.parseDouble(robot.get("SIDE_TO_SIDE")) - Double.parseDouble(robot.get("WHEEL_WIDTH"));
+        double wheelBase = Double.parseDouble(robot.get("FRONT_TO_BACK")) - Double.parseDouble(robot.get("WHEEL_DIAMETER"));
+        String kind = robot.get("DRIVETRAIN");
+        if (kind.equals(MecanumDrive.NAME)) {
+            return new MecanumDrive(track, wheelBase);
+        }
+        if (kind.equals(XDrive.NAME)) {
+            return new XDrive(track, wheelBase);
+        }
+        if (!kind.equals(TankDrive.NAME)) {
+            System.out.println("Unknown DRIVETRAIN: "+kind+", using "+TankDrive.NAME);
+        }
+        return new TankDrive(track);
+    }
+}
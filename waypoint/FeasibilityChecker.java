@@ -0,0 +1,196 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Class to check that the robot, as described by the robot file, can drive a path as computed.
+ */
+public class FeasibilityChecker {
+
+    // The drive is a tank drive, with its wheels SIDE_TO_SIDE - WHEEL_WIDTH apart, center to center,
+    // about the middle of the robot, which is ORIGIN_X_OFFSET to the left of the path reference point.
+    // On a turn of curvature k (positive turning left), a wheel that is d to the right of the
+    // reference point runs at 1 + k*d times the speed of the reference point.
+    //
+    // The robot file may give limits of the robot; a limit it does not give is not checked:
+    //   MIN_TURN_RADIUS        inches, smallest radius the reference point may turn on
+    //   MIN_WHEEL_SPEED_RATIO  slowest the inner wheel may run, as a fraction of the outer wheel;
+    //                          0.0 if not given, so the inner wheel may not run backward
+    //   MAX_REVERSALS          most times the robot may reverse direction along a path
+    //   MAX_STOPS              most stops along a path, not counting the end of the path
+    // Reversals must be made at stops in any case. Arcs of radius 0.0 turn in place, and Gaps are
+    // not driven, so neither is checked for its turn. Only a holonomic Drivetrain may strafe.
+
+    private static final double SAMPLE_STEP = 0.5;   // inches between samples of the curvature along a path element
+    private static final String DIAG = "FeasibilityChecker";  // source of this class's diagnostics
+
+    private double leftWheel;        // distance of the left and right wheels to the right of the reference point
+    private double rightWheel;
+    private double minTurnRadius = 0.0;
+    private double minWheelSpeedRatio = 0.0;
+    private int maxReversals = Integer.MAX_VALUE;
+    private int maxStops = Integer.MAX_VALUE;
+    private boolean canStrafe;
+
+    /**
+     * Return the parts of a path the robot cannot drive, in the order they occur along the path;
+     * an empty List if it can drive the whole path.
+     */
+    public List<Infeasibility> checkPath(List<NavPath> path) {
+        List<Infeasibility> found = new ArrayList<>();
+        if (path == null) { return found; }
+        int reversals = 0;
+        int stops = 0;
+        for (int e = 0; e < path.size(); e++) {
+            NavPath p = path.get(e);
+            if (e > 0) {
+                NavPath last = path.get(e-1);
+                if (last.stop) { stops++; }
+                if (stops > maxStops && last.stop) {
+                    found.add(new Infeasibility(e, Infeasibility.Kind.STOPS, p.i,
+                                                "stop "+stops+" of at most "+maxStops));
+                }
+                if (isReversal(last, p)) {
+                    reversals++;
+                    if (!last.stop) {
+                        found.add(new Infeasibility(e, Infeasibility.Kind.REVERSAL, p.i, "reversal without a stop"));
+                    }
+                    else if (reversals > maxReversals) {
+                        found.add(new Infeasibility(e, Infeasibility.Kind.REVERSAL, p.i,
+                                                    "reversal "+reversals+" of at most "+maxReversals));
+                    }
+                }
+            }
+            Infeasibility turn = checkTurn(e, p);
+            if (turn != null) { found.add(turn); }
+            if (!canStrafe && p.isStraight() && Math.abs(Math.sin(p.orientation)) > 0.000001) {
+                found.add(new Infeasibility(e, Infeasibility.Kind.STRAFE, p.i,
+                                            String.format(Locale.US, "facing %.1f degrees off the heading",
+                                                          Math.toDegrees(p.orientation))));
+            }
+            else if (!canStrafe && p.turn != 0.0) {
+                found.add(new Infeasibility(e, Infeasibility.Kind.STRAFE, p.i,
+                                            String.format(Locale.US, "turning %.1f degrees off the heading as it travels",
+                                                          Math.toDegrees(p.turn))));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Return true if the robot can drive every turn of a path: no turn is tighter than the
+     * minimum radius, and no inner wheel runs too slowly for its outer wheel.
+     */
+    public boolean isDrivable(List<NavPath> path) {
+        for (int e = 0; e < path.size(); e++) {
+            if (checkTurn(e, path.get(e)) != null) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * Return the ratio of the speed of the inner wheel to the outer wheel on a turn of a given
+     * curvature, positive turning left; 1.0 going straight.
+     * @param backward - true if the robot faces backward, against its direction of travel
+     */
+    public double wheelSpeedRatio(double curvature, boolean backward) {
+        double left  = 1.0 + curvature*(backward ? 0.0 - leftWheel  : leftWheel);
+        double right = 1.0 + curvature*(backward ? 0.0 - rightWheel : rightWheel);
+        double outer = Math.max(Math.abs(left), Math.abs(right));
+        if (outer == 0.0) { return 1.0; }
+        return Math.min(left, right) / outer;
+    }
+
+    // Return the infeasibility of the tightest turn of a path element, or null if it has none
+    private Infeasibility checkTurn(int e, NavPath p) {
+        if (p.isTurnInPlace() || p.isGap()) { return null; }
+        boolean backward = Math.cos(p.orientation) < 0.0;
+        // the tightest turn each way, and where it starts
+        double left = 0.0;
+        double right = 0.0;
+        double leftAt = 0.0;
+        double rightAt = 0.0;
+        double length = p.length();
+        int n = Math.max(1, (int) Math.ceil(length / SAMPLE_STEP));
+        for (int k = 0; k <= n; k++) {
+            double at = length * k / n;
+            double curvature = p.curvatureAt(at);
+            if (curvature > left)  { left = curvature;  leftAt = at; }
+            if (curvature < right) { right = curvature; rightAt = at; }
+        }
+        Infeasibility turn = checkCurvature(e, left, backward, p.poseAt(leftAt));
+        return (turn != null) ? turn : checkCurvature(e, right, backward, p.poseAt(rightAt));
+    }
+
+    private Infeasibility checkCurvature(int e, double curvature, boolean backward, NavPoint pose) {
+        if (curvature == 0.0) { return null; }
+        double radius = 1.0/Math.abs(curvature);
+        if (radius < minTurnRadius) {
+            return new Infeasibility(e, Infeasibility.Kind.TURN_RADIUS, pose,
+                                     String.format(Locale.US, "radius %.2f of at least %.2f", radius, minTurnRadius));
+        }
+        double ratio = wheelSpeedRatio(curvature, backward);
+        if (ratio < minWheelSpeedRatio) {
+            return new Infeasibility(e, Infeasibility.Kind.WHEEL_SPEED_RATIO, pose,
+                                     String.format(Locale.US, "ratio %.3f of at least %.3f on radius %.2f",
+                                                   ratio, minWheelSpeedRatio, radius));
+        }
+        return null;
+    }
+
+    // True if the robot reverses its direction of travel going from one path element to the next
+    private static boolean isReversal(NavPath last, NavPath next) {
+        if (last.isTurnInPlace() || next.isTurnInPlace() || last.isGap() || next.isGap()) {
+            return false;
+        }
+        if (last.length() <= 0.0 || next.length() <= 0.0) { return false; }
+        double from = last.poseAt(last.length()).heading;
+        double to = next.poseAt(0.0).heading;
+        return Math.cos(to - from) < 0.0;
+    }
+
+    // Return the number a robot file gives for an optional key, or a default if it gives none or not a number
+    private static double optional(Map<String, String> robot, String key, double value) {
+        if (!robot.containsKey(key)) { return value; }
+        try {
+            return Double.parseDouble(robot.get(key));
+        }
+        catch (NumberFormatException e) {
+            Diagnostics.warn(DIAG, () -> key+" is not a number: "+robot.get(key)+", using "+value);
+            return value;
+        }
+    }
+
+    /**
+     * String of the limits checked
+     */
+    public String toString() {
+        return String.format(Locale.US, "min_turn_radius:%.2f min_wheel_speed_ratio:%.3f max_reversals:%s max_stops:%s",
+                             minTurnRadius, minWheelSpeedRatio,
+                             (maxReversals == Integer.MAX_VALUE) ? "-" : Integer.toString(maxReversals),
+                             (maxStops == Integer.MAX_VALUE) ? "-" : Integer.toString(maxStops));
+    }
+
+    /**
+     * Constructor
+     * @param robot - Map of the robot file's keys and values
+     */
+    public FeasibilityChecker(Map<String, String> robot) {
+        double offsetX = 0.0 - Double.parseDouble(robot.get("ORIGIN_X_OFFSET"));
+        double track = Double.parseDouble(robot.get("SIDE_TO_SIDE")) - Double.parseDouble(robot.get("WHEEL_WIDTH"));
+        leftWheel  = offsetX - track/2.0;
+        rightWheel = offsetX + track/2.0;
+        canStrafe = Drivetrain.forRobot(robot).isHolonomic();
+        minTurnRadius = optional(robot, "MIN_TURN_RADIUS", minTurnRadius);
+        minWheelSpeedRatio = optional(robot, "MIN_WHEEL_SPEED_RATIO", minWheelSpeedRatio);
+        if (robot.containsKey("MAX_REVERSALS")) {
+            maxReversals = (int) optional(robot, "MAX_REVERSALS", maxReversals);
+        }
+        if (robot.containsKey("MAX_STOPS")) {
+            maxStops = (int) optional(robot, "MAX_STOPS", maxStops);
+        }
+    }
+}
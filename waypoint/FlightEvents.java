@@ -0,0 +1,112 @@
+package waypoint;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events of path generation, simulation, file loading and painting,
+ * so a flight recording breaks the time spent down by what the application was doing.
+ *
+ * Each event begins when it is constructed and records its duration when committed.
+ * While no recording is running, constructing and committing an event does nothing.
+ * Record with, for example:
+ *   java -XX:StartFlightRecording=filename=waypoint.jfr waypoint.GameField
+ * and look for the "WayPoint" category in JDK Mission Control or `jfr print --events`.
+ */
+public final class FlightEvents {
+
+    @Name("waypoint.GenPath")
+    @Label("Generate Path")
+    @Category({"WayPoint", "Path"})
+    @Description("Path generated through a List of NavPoints")
+    public static final class GenPath extends Event {
+        @Label("NavPoints")     int navPoints;
+        @Label("Connections")   int pairs;
+        @Label("Path Elements") int pathElements;
+        @Label("Elements Removed by Smoothing") int smoothingRemoved;
+
+        GenPath(int navPoints) {
+            this.navPoints = navPoints;
+            this.pairs = Math.max(0, navPoints-1);
+            begin();
+        }
+    }
+
+    @Name("waypoint.ResolveStrategy")
+    @Label("Resolve Strategy")
+    @Category({"WayPoint", "Path"})
+    @Description("One strategy of CalcPath.resolveConnection tried on a connection, and its outcome")
+    public static final class Strategy extends Event {
+        @Label("Strategy") String strategy;
+        @Label("Outcome")  String outcome;   // resolved or failed
+        @Label("Reason")   String reason;
+
+        Strategy(String strategy) {
+            this.strategy = strategy;
+            begin();
+        }
+    }
+
+    @Name("waypoint.SimPath")
+    @Label("Simulate Path")
+    @Category({"WayPoint", "Simulation"})
+    @Description("Simulated run of the robot along a path")
+    public static final class SimPath extends Event {
+        @Label("Path Elements") int pathElements;
+        @Label("Ticks")         int ticks;
+        @Label("Completed")     boolean completed;  // false if the robot left the field
+        @Label("Seconds")       double seconds;     // simulated time to reach the end of the path
+        @Label("Lowest Battery Voltage") double minVoltage;
+        @Label("RMS Cross-Track Error")  double rmsError;   // inches
+
+        SimPath(int pathElements) {
+            this.pathElements = pathElements;
+            begin();
+        }
+    }
+
+    @Name("waypoint.FileLoad")
+    @Label("File Load")
+    @Category({"WayPoint", "File"})
+    @Description("Settings, robot, field, NavPoint or NavPath file read by GameFieldFileHandler")
+    public static final class FileLoad extends Event {
+        @Label("Kind")      String kind;
+        @Label("File Name") String fileName;
+        @Label("Items")     int items;      // settings, graphic elements, NavPoints or NavPaths read
+        @Label("Succeeded") boolean succeeded;
+
+        FileLoad(String kind, String fileName) {
+            this.kind = kind;
+            this.fileName = fileName;
+            begin();
+        }
+
+        /**
+         * Commit this event for a file read into a given number of items; -1 if reading failed.
+         */
+        void finish(int items) {
+            this.items = Math.max(0, items);
+            this.succeeded = (items >= 0);
+            commit();
+        }
+    }
+
+    @Name("waypoint.PaintOverlay")
+    @Label("Paint Overlay")
+    @Category({"WayPoint", "Paint"})
+    @Description("One overlay drawn by DrawField.paintComponent")
+    public static final class PaintOverlay extends Event {
+        @Label("Overlay") String overlay;
+
+        PaintOverlay(String overlay) {
+            this.overlay = overlay;
+            begin();
+        }
+    }
+
+    private FlightEvents() {
+    }
+}
@@ -0,0 +1,204 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Class to choose the gains and speed of the simulation's path follower by simulating the robot
+ * along a path with each of a grid of settings.
+ */
+public class GainTuner {
+
+    // Every combination of the candidate gains of a controller and the candidate speeds is
+    // simulated along the path several times, the robot's perturbation seeded the same way for
+    // each, and scored by the mean of three measures to minimize:
+    //   - time to complete the path
+    //   - root-mean-square cross-track error along the way
+    //   - distance from the end of the path where the robot finishes
+    // Settings with which the robot leaves the field or gives up on any run are out. No one
+    // choice of settings is best by every measure, so the tuner returns the Pareto front: the
+    // settings no other settings beat by one measure without losing by another.
+    //
+    // The runs are independent of each other and are simulated in parallel.
+
+    /**
+     * Class to hold one choice of follower settings and its scores.
+     */
+    public static class Trial {
+        final Map<String, String> settings;   // SIM_CONTROLLER, its gains and SIM_SPEED
+        double time = 0.0;                     // mean seconds to complete the path
+        double rmsError = 0.0;                 // mean root-mean-square cross-track error, in inches
+        double endError = 0.0;                 // mean distance from the end of the path, in inches
+        boolean completed = true;              // false if any run failed to complete the path
+
+        /**
+         * Return true if this Trial is no worse than another by every measure, and better by one.
+         */
+        boolean dominates(Trial other) {
+            return (time <= other.time && rmsError <= other.rmsError && endError <= other.endError) &&
+                   (time < other.time || rmsError < other.rmsError || endError < other.endError);
+        }
+
+        /**
+         * String of the scores, then the settings as settings file lines joined on one line
+         */
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("%7.2f\t%7.3f\t%7.3f\t", time, rmsError, endError));
+            for (Map.Entry<String, String> e : settings.entrySet()) {
+                sb.append(" "+e.getKey()+" "+e.getValue());
+            }
+            return sb.toString();
+        }
+
+        Trial(Map<String, String> settings) {
+            this.settings = settings;
+        }
+    }
+
+    // Candidate values of each controller's gains, by settings key, around their defaults.
+    // The PID controller has four gains, so its grid is kept coarse: its combinations
+    // multiply up to several times those of the other two controllers together.
+    private static final String[] PID_KEYS          = { "SIM_PID_KP", "SIM_PID_KI", "SIM_PID_KD", "SIM_PID_KH" };
+    private static final double[][] PID_GRID        = { { 0.05, 0.15, 0.3, 0.6 },
+                                                        { 0.0, 0.02 },
+                                                        { 0.0, 0.02, 0.1 },
+                                                        { 2.0, 4.0, 8.0 } };
+    private static final String[] PURSUIT_KEYS      = { "SIM_LOOKAHEAD" };
+    private static final double[][] PURSUIT_GRID    = { { 3.0, 4.0, 6.0, 8.0, 12.0, 16.0, 24.0 } };
+    private static final String[] RAMSETE_KEYS      = { "SIM_RAMSETE_B", "SIM_RAMSETE_ZETA" };
+    private static final double[][] RAMSETE_GRID    = { { 0.0003, 0.0006, 0.0013, 0.0026, 0.0052 },
+                                                        { 0.3, 0.5, 0.7, 0.85, 1.0 } };
+    private static final double[] SPEEDS            = { 0.6, 0.8, 1.0 };
+
+    private GameField gameField;
+    private List<String> controllers = new ArrayList<>();   // names of the controllers to tune
+    private int seeds;                                       // runs of each choice of settings
+
+    /**
+     * Return the Pareto front of the follower settings in the grid for a path, fastest first.
+     * @param path     - path to simulate the robot along
+     * @param unitTime - control loop cycle time, in milliseconds
+     * @return         - Trials on the Pareto front; empty if no settings complete the path
+     */
+    public List<Trial> tune(PathBuffer path, double unitTime) {
+        List<Trial> trials = new ArrayList<>();
+        if (path == null || path.size() == 0) {
+            return trials;
+        }
+        for (String name : controllers) {
+            if (name.equals(PidController.NAME)) {
+                addTrials(trials, name, PID_KEYS, PID_GRID);
+            }
+            else if (name.equals(PurePursuitController.NAME)) {
+                addTrials(trials, name, PURSUIT_KEYS, PURSUIT_GRID);
+            }
+            else if (name.equals(RamseteController.NAME)) {
+                addTrials(trials, name, RAMSETE_KEYS, RAMSETE_GRID);
+            }
+        }
+        int last = path.size()-1;
+        double[] end = new double[2];
+        path.pointAt(last, path.length[last], end);
+
+        IntStream.range(0, trials.size()).parallel().forEach(t -> {
+            Trial trial = trials.get(t);
+            SimPath simPath = new SimPath(gameField);
+            simPath.updateSimPath(path, unitTime);
+            for (int s = 0; s < seeds; s++) {
+                simPath.updateFollower(trial.settings, s);
+                List<NavPoint> simNavPoints = simPath.doSimPath();
+                NavPoint finish = simNavPoints.get(simNavPoints.size()-1);
+                trial.time += simPath.getTime() / seeds;
+                trial.rmsError += simPath.getRmsError() / seeds;
+                trial.endError += Point.distance(finish.pt, new Point(end[0], end[1])) / seeds;
+                trial.completed &= simPath.completed();
+            }
+        });
+
+        List<Trial> front = new ArrayList<>();
+        for (Trial trial : trials) {
+            if (!trial.completed) { continue; }
+            boolean dominated = false;
+            for (Trial other : trials) {
+                if (other.completed && other.dominates(trial)) {
+                    dominated = true;
+                    break;
+                }
+            }
+            if (!dominated) { front.add(trial); }
+        }
+        front.sort(Comparator.comparingDouble(trial -> trial.time));
+        System.out.println(String.format("Gain tuner: %d settings, %d runs each, %d on the Pareto front",
+                                         trials.size(), seeds, front.size()));
+        return front;
+    }
+
+    /**
+     * Add a Trial for every combination of a controller's candidate gains and the candidate speeds.
+     */
+    private static void addTrials(List<Trial> trials, String name, String[] keys, double[][] grid) {
+        int combinations = SPEEDS.length;
+        for (double[] values : grid) { combinations *= values.length; }
+        for (int c = 0; c < combinations; c++) {
+            Map<String, String> settings = new LinkedHashMap<>();
+            settings.put("SIM_CONTROLLER", name);
+            int rest = c;
+            for (int g = 0; g < keys.length; g++) {
+                settings.put(keys[g], Double.toString(grid[g][rest % grid[g].length]));
+                rest /= grid[g].length;
+            }
+            settings.put("SIM_SPEED", Double.toString(SPEEDS[rest]));
+            trials.add(new Trial(settings));
+        }
+    }
+
+    /**
+     * Class constructor.
+     * @param gameField   - game field, with the robot file, to simulate the robot in
+     * @param controllers - names of the controllers to tune
+     * @param seeds       - runs of each choice of settings, each with its own perturbation
+     */
+    public GainTuner(GameField gameField, List<String> controllers, int seeds) {
+        this.gameField = gameField;
+        this.controllers.addAll(controllers);
+        this.seeds = Math.max(1, seeds);
+    }
+
+    /**
+     * Class constructor from a Map of settings parameters:
+     *   SIM_CONTROLLER  controller to tune; NONE (the default) tunes them all
+     *   TUNE_SEEDS      runs of each choice of settings (default 3)
+     */
+    public GainTuner(GameField gameField, Map<String, String> parameters) {
+        this(gameField, controllersToTune(parameters.getOrDefault("SIM_CONTROLLER", "NONE").trim()),
+             parseInt(parameters.get("TUNE_SEEDS"), 3));
+    }
+
+    private static List<String> controllersToTune(String name) {
+        List<String> names = new ArrayList<>();
+        if (name.equals(PidController.NAME) || name.equals(PurePursuitController.NAME) || name.equals(RamseteController.NAME)) {
+            names.add(name);
+        }
+        else {
+            names.add(PidController.NAME);
+            names.add(PurePursuitController.NAME);
+            names.add(RamseteController.NAME);
+        }
+        return names;
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) { return defaultValue; }
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            System.out.println("Not an integer setting: "+value+", using "+defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -9,7 +9,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
@@ -32,6 +34,7 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingWorker;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.event.TableModelEvent;
@@ -71,6 +74,8 @@ public class GameField extends JFrame {
     protected JTable nptTable;   // queried by DrawField
     private JLabel lengthLabel;
     private JLabel timeLabel;
+    private JLabel pathTimingLabel;   // timings of updatePath, shown next to lengthLabel
+    private JLabel simTimingLabel;    // timings of the simulation, shown next to timeLabel
     private JButton navpointOverlayB;
     private JButton waypointOverlayB;
     private JButton showSimB;
@@ -84,14 +89,33 @@ public class GameField extends JFrame {
     private DrawField fieldPanel;
     private String[] nullArgs;
     private double pathLength = 0.0;
+    private CollisionChecker collisionChecker;
+    private FeasibilityChecker feasibilityChecker;
     
     // accessed by DrawField
     protected List<NavPoint> sourceNavPoints;
     protected List<NavPoint> waypoints;
     protected List<NavPath>  robotNavPaths;
+    protected PathBuffer     robotPathBuffer;   // robotNavPaths packed for the simulation, drawing and exporters
+    protected Map<PathTransform.Kind, List<NavPath>> allianceSides; // robotNavPaths carried to each start position
     protected List<NavPoint> simNavPoints;
     protected List<String>   fieldGraphics;
     protected Map<String, String> myRobot;
+    protected Collision collision;          // first contact of robot with the field along robotNavPaths, or null
+    protected List<Infeasibility> infeasible;   // parts of robotNavPaths the robot cannot drive; empty if none
+    protected ClearanceField clearanceField;
+    
+    private static final String DIAG = "GameField";  // source of this class's diagnostics
+    
+    // Rolling timings of the work behind the gui, over the last TIMING_WINDOW runs of each
+    private static final int TIMING_WINDOW = 50;
+    protected TimingWindow paintTimes      = new TimingWindow("paint", TIMING_WINDOW);
+    protected TimingWindow updatePathTimes = new TimingWindow("updatePath", TIMING_WINDOW);
+    protected TimingWindow genPathTimes    = new TimingWindow("  genPath", TIMING_WINDOW);
+    protected TimingWindow pathFileTimes   = new TimingWindow("  toNavPathFile", TIMING_WINDOW);
+    protected TimingWindow waypointTimes   = new TimingWindow("  genWaypoints", TIMING_WINDOW);
+    protected TimingWindow lengthTimes     = new TimingWindow("  updateLength", TIMING_WINDOW);
+    protected TimingWindow simTimes        = new TimingWindow("simulation", TIMING_WINDOW);
 
     // accessed by DrawField
     protected boolean showGrid = false;
@@ -102,6 +126,8 @@ public class GameField extends JFrame {
     protected boolean showLength = false;
     protected boolean showRobotStops = false;
     protected boolean showRobotTracks = false;
+    protected boolean showClearance = false;
+    protected boolean showTimings = false;
     protected boolean showSim = false;
     protected boolean showSettingsFrame = false; // accessed by (SettingsFrame) mySettings
     
@@ -121,6 +147,8 @@ public class GameField extends JFrame {
         // This checks the command line arguments and loads
         // parameters into the SettingsFrame mySettings.
         parseArgs(args);
+        Diagnostics.setLevel(Diagnostics.levelFromSetting(mySettings.parameters.get("DIAGNOSTICS_LEVEL")));
+        CalcMetrics.dumpEvery(CalcMetrics.dumpSecondsFromSetting(mySettings.parameters.get("CALC_METRICS_DUMP_SECONDS")));
         
         //--------------------------
         // JPanel for Game Field
@@ -140,12 +168,31 @@ public class GameField extends JFrame {
 
         // get robot
         myRobot = GameFieldFileHandler.getRobotFromFile(mySettings.parameters.get("ROBOT_FILE"));
+        if (myRobot != null) {
+            collisionChecker = new CollisionChecker(fieldGraphics, myRobot);
+            feasibilityChecker = new FeasibilityChecker(myRobot);
+        }
         
         
         //debug        
         //System.out.println("-->"+fieldGraphics);
         if (fieldGraphics == null) { return; }
         calcPath = new CalcPath(mySettings);    
+        calcPath.setRobot(myRobot);
+        
+        // get clearance of the field from its solid elements, for scoring paths and checking collisions
+        clearanceField = ClearanceField.forFieldFile(mySettings.parameters.get("FIELD_FILE"), fieldGraphics,
+                                                     ClearanceField.resolutionFromSetting(mySettings.parameters.get("CLEARANCE_RESOLUTION")),
+                                                     mySettings.parameters.get("CLEARANCE_CACHE_DIR"));
+        if (collisionChecker != null) {
+            collisionChecker.setClearanceField(clearanceField);
+            calcPath.setClearanceField(clearanceField, collisionChecker.getFootprintRadius());
+            calcPath.setPathPlanner(new PathPlanner(clearanceField, collisionChecker));
+        }
+        // solve connections again, wider, where they turn tighter than the robot can drive
+        if (feasibilityChecker != null && Boolean.parseBoolean(mySettings.parameters.get("CALC_RESOLVE_INFEASIBLE"))) {
+            calcPath.setFeasibilityChecker(feasibilityChecker);
+        }
         SimPath simPath = new SimPath(this);
         
                 
@@ -153,6 +200,10 @@ public class GameField extends JFrame {
         frame = new JFrame();
         lengthLabel = new JLabel("Length: ");
         timeLabel   = new JLabel("Time: ");
+        pathTimingLabel = new JLabel("");
+        simTimingLabel  = new JLabel("");
+        pathTimingLabel.setVisible(false);
+        simTimingLabel.setVisible(false);
                 
     
         //--------------------------
@@ -335,12 +386,170 @@ public class GameField extends JFrame {
         npEditPanel.add(deleteNPB);
         npEditPanel.add(updateB);
         npEditPanel.add(lengthLabel);
+        npEditPanel.add(pathTimingLabel);
         Dimension psize = new Dimension(25, 25);
         pathB.setPreferredSize(psize);
         npEditPanel.add(pathB);
         npEditPanel.add(new JLabel("Path Color"));
         //
         controlsPanel.add(npEditPanel);
+        
+        
+        //--------------------------
+        // JPanel for Optimizers (subpanel to Controls JPanel)
+        //      Label
+        //      Optimize Headings button
+        //      Optimize Visit Order button
+        //      Tune Follower Gains button
+        //
+        JPanel optPanel = new JPanel();
+        optPanel.setLayout(new FlowLayout());
+        JLabel optLabel = new JLabel(" Optimize:");
+        //
+        // JButton to optimize the headings of drive-through NavPoints
+        //
+        JButton optHeadingsB = new JButton("Headings");
+        optHeadingsB.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                List<NavPoint> navpoints = pullNavPointTable(true);
+                if (navpoints == null) { return; }
+                // The optimizer solves a connection for every pair of candidate headings, so it runs
+                // off the event dispatch thread, with the button off until it is done
+                HeadingOptimizer optimizer = new HeadingOptimizer(calcPath, mySettings.parameters);
+                optHeadingsB.setEnabled(false);
+                new SwingWorker<List<NavPoint>, Void>() {
+                    @Override
+                    protected List<NavPoint> doInBackground() {
+                        return optimizer.optimize(navpoints);
+                    }
+                    @Override
+                    protected void done() {
+                        try {
+                            sourceNavPoints = get();
+                            updateNavPointScrollPane();
+                            updatePath();
+                            updateB.setBackground(null);
+                            frame.repaint();
+                        }
+                        catch (InterruptedException | ExecutionException ex) {
+                            System.out.println("Heading optimizer failed: "+ex.getMessage());
+                        }
+                        optHeadingsB.setEnabled(true);
+                    }
+                }.execute();
+            }
+        });
+        //
+        // JButton to optimize the order in which NavPoints after the first are visited
+        //
+        JButton optOrderB = new JButton("Visit Order");
+        optOrderB.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                List<NavPoint> navpoints = pullNavPointTable(true);
+                if (navpoints == null) { return; }
+                // The optimizer solves a connection for every pair of NavPoints, then searches the
+                // orders, so it runs off the event dispatch thread, with the button off until it is done
+                VisitOrderOptimizer optimizer = new VisitOrderOptimizer(calcPath, mySettings.parameters);
+                optOrderB.setEnabled(false);
+                new SwingWorker<List<NavPoint>, Void>() {
+                    @Override
+                    protected List<NavPoint> doInBackground() {
+                        return optimizer.optimize(navpoints);
+                    }
+                    @Override
+                    protected void done() {
+                        try {
+                            sourceNavPoints = get();
+                            updateNavPointScrollPane();
+                            updatePath();
+                            updateB.setBackground(null);
+                            frame.repaint();
+                        }
+                        catch (InterruptedException | ExecutionException ex) {
+                            System.out.println("Visit order optimizer failed: "+ex.getMessage());
+                        }
+                        optOrderB.setEnabled(true);
+                    }
+                }.execute();
+            }
+        });
+        //
+        // JButton to tune the gains and speed of the simulation's path follower
+        //
+        JButton optGainsB = new JButton("Follower Gains");
+        optGainsB.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                // The tuner simulates hundreds of runs, so it runs off the event dispatch thread,
+                // with the button off until it is done
+                GainTuner tuner = new GainTuner(GameField.this, mySettings.parameters);
+                PathBuffer path = robotPathBuffer;
+                String fileName = mySettings.parameters.getOrDefault("TUNE_OUTFILE", "tune.txt");
+                optGainsB.setEnabled(false);
+                new SwingWorker<List<GainTuner.Trial>, Void>() {
+                    @Override
+                    protected List<GainTuner.Trial> doInBackground() {
+                        return tuner.tune(path, 50.0);
+                    }
+                    @Override
+                    protected void done() {
+                        try {
+                            GameFieldFileHandler.toTuningFile(get(), fileName);
+                        }
+                        catch (InterruptedException | ExecutionException ex) {
+                            System.out.println("Gain tuner failed: "+ex.getMessage());
+                        }
+                        optGainsB.setEnabled(true);
+                    }
+                }.execute();
+            }
+        });
+        //
+        optLabel.setPreferredSize(new Dimension(85, 25));
+        optHeadingsB.setPreferredSize(new Dimension(130, 25));
+        optOrderB.setPreferredSize(new Dimension(130, 25));
+        optGainsB.setPreferredSize(new Dimension(130, 25));
+        optPanel.add(optLabel);
+        optPanel.add(optHeadingsB);
+        optPanel.add(optOrderB);
+        optPanel.add(optGainsB);
+        //
+        controlsPanel.add(optPanel);
+        
+        
+        //--------------------------
+        // JPanel for Mirroring (subpanel to Controls JPanel)
+        //      Label
+        //      Mirror Left/Right button
+        //      Mirror Top/Bottom button
+        //      Rotate button
+        //
+        JPanel mirrorPanel = new JPanel();
+        mirrorPanel.setLayout(new FlowLayout());
+        JLabel mirrorLabel = new JLabel(" Mirror:");
+        mirrorLabel.setPreferredSize(new Dimension(85, 25));
+        mirrorPanel.add(mirrorLabel);
+        String[] mirrorNames = { "Left/Right", "Top/Bottom", "Rotate" };
+        PathTransform.Kind[] mirrorKinds = { PathTransform.Kind.MIRROR_X, PathTransform.Kind.MIRROR_Y, PathTransform.Kind.ROTATE_180 };
+        for (int k = 0; k < mirrorKinds.length; k++) {
+            PathTransform.Kind kind = mirrorKinds[k];
+            JButton mirrorB = new JButton(mirrorNames[k]);
+            mirrorB.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    switchSide(kind);
+                    updateNavPointScrollPane();
+                    updateB.setBackground(null);
+                    frame.repaint();
+                }
+            });
+            mirrorB.setPreferredSize(new Dimension(130, 25));
+            mirrorPanel.add(mirrorB);
+        }
+        //
+        controlsPanel.add(mirrorPanel);
        
         
         //--------------------------
@@ -356,6 +565,7 @@ public class GameField extends JFrame {
         //      Length Overlay button
         //      Robot Overlay button
         //      Robot Overlay button
+        //      Clearance Overlay button
         //
         JPanel overlayPanel1 = new JPanel();
         overlayPanel1.setLayout(new FlowLayout());
@@ -377,6 +587,31 @@ public class GameField extends JFrame {
             }
         });
         //
+        // JButton to toggle clearance heatmap overlay
+        //
+        JButton clearanceOverlayB = new JButton("Clearance");
+        clearanceOverlayB.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showClearance = !showClearance;
+                clearanceOverlayB.setBackground(showClearance ? Color.green : null);
+                frame.repaint();
+            }
+        });
+        //
+        // JButton to toggle the overlay of timings of painting, path updates and simulation
+        //
+        JButton timingsOverlayB = new JButton("Timings");
+        timingsOverlayB.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showTimings = !showTimings;
+                timingsOverlayB.setBackground(showTimings ? Color.green : null);
+                updateTimingLabels();
+                frame.repaint();
+            }
+        });
+        //
         // JButton to toggle NavPoint overlay
         //
         navpointOverlayB = new JButton("NavPoints");
@@ -476,6 +711,7 @@ public class GameField extends JFrame {
         lengthB.setPreferredSize(osize);
         robotStopsOverlayB.setPreferredSize(osize);
         robotTracksOverlayB.setPreferredSize(osize);
+        clearanceOverlayB.setPreferredSize(osize);
         overlayPanel1.add(overlay1Label);
         overlayPanel1.add(gridOverlayB);
         overlayPanel1.add(navpointOverlayB);
@@ -486,6 +722,8 @@ public class GameField extends JFrame {
         overlayPanel2.add(lengthB);
         overlayPanel2.add(robotStopsOverlayB);
         overlayPanel2.add(robotTracksOverlayB);
+        overlayPanel2.add(clearanceOverlayB);
+        overlayPanel2.add(timingsOverlayB);
         //
         controlsPanel.add(overlayPanel1);
         controlsPanel.add(overlayPanel2);
@@ -508,12 +746,15 @@ public class GameField extends JFrame {
         simB.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {   
-                simPath.updateSimPath(robotNavPaths, 50.0);
+                long start = System.nanoTime();
+                simPath.updateSimPath(robotPathBuffer, 50.0);
                 simNavPoints = simPath.doSimPath();
+                simTimes.recordSince(start);
+                updateTimingLabels();
                 GameFieldFileHandler.exportSimPath(simNavPoints);
                 showSim = true;
                 showSimB.setBackground(showSim ? Color.green : null);
-                timeLabel.setText(String.format("Time :%.2f", simNavPoints.size()*50.0/1000.0));
+                timeLabel.setText(String.format("Time :%.2f", simPath.getTime()));
                 frame.repaint();
             }
         });
@@ -552,6 +793,7 @@ public class GameField extends JFrame {
         //
         simPanel.add(simB);
         simPanel.add(timeLabel);
+        simPanel.add(simTimingLabel);
         simPanel.add(showSimB);
         simPanel.add(settingsB);
         //
@@ -565,7 +807,7 @@ public class GameField extends JFrame {
         codeB.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                GameFieldFileHandler.exportCode(robotNavPaths);
+                GameFieldFileHandler.exportCode(robotPathBuffer);
             }
         });
         
@@ -649,7 +891,7 @@ public class GameField extends JFrame {
     
     
     /**
-     * Calculate length of path.
+     * Calculate length of path, as traveled by the side of the robot on the outside of each turn.
      */
     public void updateLength(List<NavPath> navPaths) {
         double length = 0.0;
@@ -662,22 +904,9 @@ public class GameField extends JFrame {
         double rightSideX = robotx/2.0 - robotOffsetx;
         double leftSideX  = robotx/2.0 + robotOffsetx;
         
-        
         if (navPaths != null) {
             for (NavPath p : navPaths) {
-                if (p instanceof Vector) {
-                    Vector v = (Vector) p;
-                    length += v.magnitude;
-                }
-                else if (p instanceof Arc) {
-                    Arc a = (Arc) p;
-                    if ((a.endAngle>a.startAngle) && (Math.abs(a.orientation) < 0.000001)) {
-                        length += (a.radius+rightSideX)*(Math.abs(a.endAngle - a.startAngle));
-                    } 
-                    else {
-                        length += (a.radius+leftSideX)*(Math.abs(a.endAngle - a.startAngle));
-                    }
-                }
+                length += p.trackLength(p.outerSide(rightSideX, leftSideX));
             }
         }    
         lengthLabel.setText(String.format("Length : %.1f", length));
@@ -691,10 +920,76 @@ public class GameField extends JFrame {
         // save the results to file,
         // generate waypoints (all the points between path elements)
         // calculate length of the generated path
+        // check the robot's sweep along the path for collisions
+        // check the robot can drive the path
+        // carry the path to the other start positions of the field
+        long start = System.nanoTime();
+        long t = start;
         robotNavPaths = calcPath.genPath(sourceNavPoints);
+        robotPathBuffer = PathBuffer.of(robotNavPaths);
+        genPathTimes.recordSince(t);
+        allianceSides = PathTransform.allSides(robotNavPaths, fieldGraphics);
+        t = System.nanoTime();
+        GameFieldFileHandler.toNavPathFile(robotNavPaths, mySettings.parameters.get("PATH_OUTFILE"));
+        pathFileTimes.recordSince(t);
+        t = System.nanoTime();
+        waypoints = genWaypoints(robotNavPaths);
+        waypointTimes.recordSince(t);
+        t = System.nanoTime();
+        updateLength(robotNavPaths);            
+        lengthTimes.recordSince(t);
+        updatePathTimes.recordSince(start);
+        collision = (collisionChecker != null) ? collisionChecker.checkPath(robotNavPaths) : null;
+        if (collision != null) {
+            Diagnostics.warn(DIAG, () -> collision.toString());
+        }
+        checkFeasibility();
+        updateTimingLabels();
+    }
+    
+    /**
+     * Show the latest timings of updatePath and the simulation next to the Length and Time
+     * labels, if the timings overlay is on.
+     */
+    public void updateTimingLabels() {
+        pathTimingLabel.setVisible(showTimings);
+        simTimingLabel.setVisible(showTimings);
+        if (!showTimings) { return; }
+        pathTimingLabel.setText(String.format(Locale.US, "%.1f ms (p95 %.1f)",
+                                              updatePathTimes.lastMillis(), updatePathTimes.percentileMillis(0.95)));
+        simTimingLabel.setText(String.format(Locale.US, "%.1f ms (p95 %.1f)",
+                                             simTimes.lastMillis(), simTimes.percentileMillis(0.95)));
+    }
+    
+    /**
+     * Switch to another start position of the field by transforming the NavPoints and
+     * taking the path already carried there by updatePath(), without recomputing it.
+     */
+    public void switchSide(PathTransform.Kind kind) {
+        if (allianceSides == null || sourceNavPoints == null) { return; }
+        PathTransform transform = PathTransform.forField(kind, fieldGraphics);
+        sourceNavPoints = transform.applyNavPoints(sourceNavPoints);
+        robotNavPaths = allianceSides.get(kind);
+        robotPathBuffer = PathBuffer.of(robotNavPaths);
+        allianceSides = PathTransform.allSides(robotNavPaths, fieldGraphics);
         GameFieldFileHandler.toNavPathFile(robotNavPaths, mySettings.parameters.get("PATH_OUTFILE"));
         waypoints = genWaypoints(robotNavPaths);
         updateLength(robotNavPaths);            
+        collision = (collisionChecker != null) ? collisionChecker.checkPath(robotNavPaths) : null;
+        if (collision != null) {
+            Diagnostics.warn(DIAG, () -> collision.toString());
+        }
+        checkFeasibility();
+    }
+    
+    /**
+     * Find the parts of robotNavPaths the robot cannot drive, as limited by the robot file.
+     */
+    private void checkFeasibility() {
+        infeasible = (feasibilityChecker != null) ? feasibilityChecker.checkPath(robotNavPaths) : new ArrayList<>();
+        for (Infeasibility f : infeasible) {
+            Diagnostics.warn(DIAG, () -> f.toString());
+        }
     }
     
     /**
@@ -714,7 +1009,8 @@ public class GameField extends JFrame {
             for (int i = 0; i < navPaths.size(); i++) {                
                 npt = navPaths.get(i).o;
                 npt.stop = navPaths.get(i).stop;
-                npt.orientation = navPaths.get(i).orientation;
+                // the orientation where the element ends, which a holonomic robot may have turned to along it
+                npt.orientation = navPaths.get(i).orientationAt(navPaths.get(i).length());
                 System.out.println("add_to_waypoint("+(i+1)+"):"+npt.toString());
                 waypoints.add(npt);
             }
@@ -34,6 +34,14 @@ public class GameFieldFileHandler {
      * @return         - hashmap of key,value pairs of settings assignments; null if file error
      */
     public static Map<String, String> parseSettingsFile(String fileName) {
+        FlightEvents.FileLoad load = new FlightEvents.FileLoad("settings", fileName);
+        Map<String, String> items = readSettingsFile(fileName);
+        load.finish((items == null) ? -1 : items.size());
+        return items;
+    }
+    
+    // Read the file for parseSettingsFile(), which records the read as a FlightEvents.FileLoad
+    private static Map<String, String> readSettingsFile(String fileName) {
         List<String> requiredKeys = new ArrayList<>(Arrays.asList(
                                         "FIELD_FILE", 
                                         "ROBOT_FILE"));
@@ -91,6 +99,14 @@ public class GameFieldFileHandler {
      * @return         - hashmap of key,value pairs of settings assignments; null if file error
      */
     public static Map<String, String> getRobotFromFile(String fileName) {
+        FlightEvents.FileLoad load = new FlightEvents.FileLoad("robot", fileName);
+        Map<String, String> items = readRobotFile(fileName);
+        load.finish((items == null) ? -1 : items.size());
+        return items;
+    }
+    
+    // Read the file for getRobotFromFile(), which records the read as a FlightEvents.FileLoad
+    private static Map<String, String> readRobotFile(String fileName) {
         List<String> requiredKeys = new ArrayList<>(Arrays.asList(
                                         "SIDE_TO_SIDE", 
                                         "FRONT_TO_BACK",
@@ -98,6 +114,21 @@ public class GameFieldFileHandler {
                                         "WHEEL_WIDTH",
                                         "ORIGIN_X_OFFSET",
                                         "ORIGIN_Y_OFFSET"));
+        // the robot's Drivetrain, a tank drive if not given,
+        // limits of the robot checked by FeasibilityChecker, each checked only if given, and
+        // the response of its motors and battery to the MotorModel, ideal if not given
+        List<String> optionalKeys = new ArrayList<>(Arrays.asList(
+                                        "DRIVETRAIN",
+                                        "MIN_TURN_RADIUS",
+                                        "MIN_WHEEL_SPEED_RATIO",
+                                        "MAX_REVERSALS",
+                                        "MAX_STOPS",
+                                        "MOTOR_FREE_SPEED",
+                                        "MOTOR_TIME_CONSTANT",
+                                        "MAX_ACCELERATION",
+                                        "BATTERY_VOLTAGE",
+                                        "BATTERY_RESISTANCE",
+                                        "MOTOR_STALL_CURRENT"));
                 
         Map<String, String> myRobot = new HashMap<>();
         BufferedReader reader;
@@ -125,6 +156,10 @@ public class GameFieldFileHandler {
                             myRobot.put(chunks[0].trim(), chunks[1].trim());
                             requiredKeys.remove(chunks[0]);
                         }
+                        else if (optionalKeys.contains(chunks[0])) {
+                            myRobot.put(chunks[0].trim(), chunks[1].trim());
+                            optionalKeys.remove(chunks[0]);
+                        }
                         else {
                             System.out.println("Unknown key found");
                             failToParse = true;
@@ -157,6 +192,14 @@ public class GameFieldFileHandler {
      * @return         - list of Strings composed of series of graphic elements and arguments; null if file error
      */
     public static List<String> getFieldGraphicsFromFile(String fileName) {
+        FlightEvents.FileLoad load = new FlightEvents.FileLoad("field", fileName);
+        List<String> items = readFieldGraphicsFile(fileName);
+        load.finish((items == null) ? -1 : items.size());
+        return items;
+    }
+    
+    // Read the file for getFieldGraphicsFromFile(), which records the read as a FlightEvents.FileLoad
+    private static List<String> readFieldGraphicsFile(String fileName) {
     
         boolean hasField = false;
     
@@ -201,6 +244,9 @@ public class GameFieldFileHandler {
                         case "FILLCIRCLE":
                         case "POLYGON":
                         case "FILLPOLYGON":  
+                        case "SOLIDRECT":
+                        case "SOLIDCIRCLE":
+                        case "SOLIDPOLYGON":
                         case "FIELD":                        
                             if (chunks.length < 3)
                                 throw new IOException("Field graphics element needs at least 3 non-whitespace words in: "+fileName+" line: "+lineNum+"\n"+line);
@@ -218,6 +264,14 @@ public class GameFieldFileHandler {
                             if (chunks[0].equals("FILLCIRCLE") && (chunks.length != 6))
                                 throw new IOException("FILLCIRCLE needs 6 non-whitespace words in: "+fileName+" line: "+lineNum+"\n"+line);
 
+                            // SOLID elements are drawn filled and are also obstacles to the robot
+                            if (chunks[0].equals("SOLIDRECT") && (chunks.length != 7))
+                                throw new IOException("SOLIDRECT needs 7 non-whitespace words in: "+fileName+" line: "+lineNum+"\n"+line);
+                            if (chunks[0].equals("SOLIDCIRCLE") && (chunks.length != 6))
+                                throw new IOException("SOLIDCIRCLE needs 6 non-whitespace words in: "+fileName+" line: "+lineNum+"\n"+line);
+                            if (chunks[0].equals("SOLIDPOLYGON") && ((chunks.length < 9) || (chunks.length % 2 != 1)))
+                                throw new IOException("SOLIDPOLYGON needs at least 3 x,y vertices in: "+fileName+" line: "+lineNum+"\n"+line);
+
                             if (chunks[0].equals("FIELD") && (chunks.length != 6))
                                 throw new IOException("FIELD needs 6 non-whitespace words in: "+fileName+" line: "+lineNum+"\n"+line);
                                 
@@ -284,6 +338,14 @@ public class GameFieldFileHandler {
      * @return         - list of NavPoints; null if file error
      */
     public static List<NavPoint> getNavPointsFromFile(String fileName) {
+        FlightEvents.FileLoad load = new FlightEvents.FileLoad("navpoints", fileName);
+        List<NavPoint> items = readNavPointsFile(fileName);
+        load.finish((items == null) ? -1 : items.size());
+        return items;
+    }
+    
+    // Read the file for getNavPointsFromFile(), which records the read as a FlightEvents.FileLoad
+    private static List<NavPoint> readNavPointsFile(String fileName) {
         
         List<NavPoint> navpoints = new ArrayList<>();
         
@@ -323,10 +385,19 @@ public class GameFieldFileHandler {
      * @return         - list of NavPaths; null if file error     
      */
     public static List<NavPath> fromNavPathFile(String fileName) {
+        FlightEvents.FileLoad load = new FlightEvents.FileLoad("navpaths", fileName);
+        List<NavPath> items = readNavPathFile(fileName);
+        load.finish((items == null) ? -1 : items.size());
+        return items;
+    }
+    
+    // Read the file for fromNavPathFile(), which records the read as a FlightEvents.FileLoad
+    private static List<NavPath> readNavPathFile(String fileName) {
     
         List<NavPath> myPath = new ArrayList<>();
     
         double x1, y1, x2, y2;
+        double h1, h2;
         double cx, cy, r, sa, ea;
         boolean c;
     
@@ -368,6 +439,16 @@ public class GameFieldFileHandler {
                             myPath.add(new Arc(cx, cy, r, sa, ea, c));
                             break;
                                         
+                        case "SPLINE":
+                            x1 = Double.parseDouble(chunks[1]);
+                            y1 = Double.parseDouble(chunks[2]);
+                            h1 = Double.parseDouble(chunks[3]);  // heading in radians
+                            x2 = Double.parseDouble(chunks[4]);
+                            y2 = Double.parseDouble(chunks[5]);
+                            h2 = Double.parseDouble(chunks[6]);
+                            myPath.add(new Spline(new NavPoint(x1, y1, h1), new NavPoint(x2, y2, h2)));
+                            break;
+                            
                         case "GAP":
                             x1 = Double.parseDouble(chunks[1]);
                             y1 = Double.parseDouble(chunks[2]);
@@ -421,6 +502,35 @@ public class GameFieldFileHandler {
         }                
     }
     
+    /**
+     * Write the Pareto front of the gain tuner to file.
+     * @param front    - Trials on the Pareto front, fastest first
+     * @param fileName - name of file to write
+     */
+    public static void toTuningFile(List<GainTuner.Trial> front, String fileName) {
+    
+        if (fileName == null || fileName.equals("")) {
+            System.out.println("No filename given for saving the tuning.");
+            return;
+        }
+        
+        BufferedWriter writer;
+        try {
+            writer = new BufferedWriter(new FileWriter(fileName));
+            System.out.println("Writing "+front.size()+" tunings to file: "+fileName);
+            
+            writer.write("// (double)seconds (double)rms_cross_track_error (double)end_error \\\n");
+            writer.write("//     follower settings, as settings file lines joined on one line\n");
+            
+            for (GainTuner.Trial trial : front) {
+                writer.write(trial.toString()+"\n");
+            }    
+            writer.close();
+        } catch (IOException e) {
+            System.out.println(e);
+        }                
+    }
+    
     /**
      * Write NavPaths to file.
      */
@@ -433,23 +543,15 @@ public class GameFieldFileHandler {
             writer.write("// VECTOR (double)x1 (double)y1 (double)x2 (double)y2 (double)orientation\n");
             writer.write("// ARC (double)startingAngle (double)endingAngle (double)x (double)y \\\n");
             writer.write("//     (double)radius (double)orientation (boolean)clockwise\n");
+            writer.write("// SPLINE (double)x1 (double)y1 (double)heading1 (double)x2 (double)y2 (double)heading2 \\\n");
+            writer.write("//     (double)orientation\n");
+            writer.write("// An element along which a holonomic robot turns as it travels ends with \\\n");
+            writer.write("//     (double)turn, its change of orientation\n");
             writer.write("//\n");
             
             if (path != null) {
                 for (NavPath p : path) {
-                    if (p instanceof Vector) {
-                        writer.write("VECTOR\t"+p.i.pt.x+"\t"+p.i.pt.y+"\t"+p.o.pt.x+"\t"+p.o.pt.y+"\t"+p.orientation+"\n");
-                    }
-                    else if (p instanceof Arc) {
-                        Arc q = (Arc) p;
-                        writer.write("ARC\t"+q.startAngle+"\t"+q.endAngle+"\t"+q.center.x+"\t"+q.center.y+"\t"+q.radius+"\t"+q.orientation+"\t"+q.clockwise+"\n");
-                    }
-                    else if (p instanceof Gap) {
-                        writer.write("GAP\t"+p.i.pt.x+"\t"+p.i.pt.y+"\t"+p.o.pt.x+"\t"+p.o.pt.y+"\t"+p.orientation+"\n");
-                    }
-                    else {
-                        System.out.println("Failed to parse NavPath: "+p.toString());
-                    }
+                    p.emitTo(writer);
                 }
             }
             writer.close();
@@ -463,12 +565,20 @@ public class GameFieldFileHandler {
      * Write code to file.
      */
     public static void exportCode(List<NavPath> robotNavPaths) {
+        exportCode(PathBuffer.of(robotNavPaths));
+    }
+    
+    /**
+     * Write code to file, from NavPaths packed into a PathBuffer.
+     */
+    public static void exportCode(PathBuffer path) {
+        if (path == null) { return; }
         BufferedWriter writer;
         try {
             writer = new BufferedWriter(new FileWriter("code.txt"));
             
-            for (NavPath p : robotNavPaths) {
-                writer.write(p.i.pt.x+"\t"+p.i.pt.y+"\n");
+            for (int k = 0; k < path.size(); k++) {
+                writer.write(path.ix[k]+"\t"+path.iy[k]+"\n");
             }    
             writer.close();
         } catch (IOException e) {
@@ -1,5 +1,9 @@
 package waypoint;  
 
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * Class to hold an unresolved Gap between navigation points.
  */
@@ -7,6 +11,75 @@ public class Gap extends NavPath {
 
     String msg;     // internal debugging message
     
+    /**
+     * Return the direction straight across this Gap.
+     */
+    public double heading() {
+        return Point.radianAngle(i.pt, o.pt);
+    }
+    
+    public double length() {
+        return Point.distance(i.pt, o.pt);
+    }
+    
+    /**
+     * A Gap is not driven, so has no tracks.
+     */
+    public double trackLength(double offset) {
+        return 0.0;
+    }
+    
+    public NavPoint poseAt(double s) {
+        double heading = heading();
+        s = Math.max(0.0, Math.min(length(), s));
+        return new NavPoint(new Point(i.pt.x + s*Math.cos(heading), i.pt.y + s*Math.sin(heading)), heading);
+    }
+    
+    public double project(Point pt) {
+        return Vector.project(i.pt.x, i.pt.y, heading(), pt.x, pt.y);
+    }
+    
+    public Vector crossTrackError(NavPoint pose) {
+        double heading = heading();
+        Vector error = new Vector();
+        error.magnitude = Vector.crossTrack(o.pt.x, o.pt.y, heading, pose.pt.x, pose.pt.y);
+        error.heading = heading - pose.heading;
+        return error;
+    }
+    
+    public double headingChange() {
+        return 0.0;
+    }
+    
+    public boolean isGap() {
+        return true;
+    }
+    
+    public NavPath endingAt(NavPoint end) {
+        return rebuilt(new Gap(i, end, msg));
+    }
+    
+    public NavPath startingAt(NavPoint start) {
+        return rebuilt(new Gap(start, o, msg));
+    }
+    
+    public double[] bounds() {
+        return new double[] { Math.min(i.pt.x, o.pt.x), Math.min(i.pt.y, o.pt.y),
+                              Math.max(i.pt.x, o.pt.x), Math.max(i.pt.y, o.pt.y) };
+    }
+    
+    public void emitTo(Writer writer) throws IOException {
+        writer.write("GAP\t"+i.pt.x+"\t"+i.pt.y+"\t"+o.pt.x+"\t"+o.pt.y+"\t"+orientation+turnColumn()+"\n");
+    }
+    
+    /**
+     * A Gap is drawn in yellow, straight across, and has no tracks to draw.
+     */
+    public void draw(Renderer renderer, double offset, Color color) {
+        if (offset != 0.0) { return; }
+        renderer.line(i.pt.x, i.pt.y, o.pt.x, o.pt.y, Color.yellow);
+    }
+    
     /**
      * String of this Gap's parameters
      */ 
@@ -0,0 +1,201 @@
+package waypoint;
+
+/**
+ * Geometry of lines and circles over primitive doubles, for the path solver.
+ *
+ * A line is held as the three coefficients a, b, c of its standard form ax + by + c = 0,
+ * like StdLine, and a point as its x and y. Results are written into an array the caller
+ * provides, starting at a given offset, so solving a connection does not allocate a Point,
+ * StdLine or List for every intermediate result. Operations that need room for intermediate
+ * lines take a scratch array as well, of at least the length given by their *_SCRATCH constant.
+ *
+ * StdLine, Circle and NavPoint.toStdLine() are wrappers around these methods, and give the
+ * same results, to the bit.
+ */
+public final class Geometry {
+
+    public static final int TANGENT_CIRCLES_SCRATCH = 17;
+    public static final int TANGENT_ARC_SCRATCH     = 12;
+
+    /**
+     * Write the line through a point along a heading, as NavPoint.toStdLine() makes it.
+     * @return - false, writing nothing, if no line was made
+     */
+    public static boolean lineThrough(double px, double py, double heading, double[] out, int off) {
+        double a;
+        double b;
+        double c;
+        double den = py*Math.cos(heading) - px*Math.sin(heading);
+
+        // Headings parallel to x-axis need special handling.
+        if ((Math.abs(heading - 0.0)     < 0.000001) ||
+            (Math.abs(heading - Math.PI) < 0.000001)) {
+            a = 0.0;
+            b = 1.0;
+            c = 0.0 - py;
+        }
+        // Headings parallel to y-axis need special handling.
+        else if ((Math.abs(heading - 1.0*Math.PI/2.0) < 0.000001) ||
+                 (Math.abs(heading - 3.0*Math.PI/2.0) < 0.000001)) {
+            a = 1.0;
+            b = 0.0;
+            c = 0.0 - px;
+        }
+        // Points at or aiming through the origin need special handling.
+        else if ((py == 0.0 && px == 0.0) || (Math.abs(den) < 0.0000001)) {
+            a = 0.0 - Math.sin(heading);
+            // want the cos to be taken from [0,PI/2)  [0,180)
+            b = 0.0 + Math.cos(heading % (Math.PI));
+            c = 0.0;
+        }
+        // Else if the point is not on or parallel to the x-axis, use solve-with-b
+        else if (py != 0.0) {
+            a = Math.sin(heading) / den;
+            b = (-1.0 - a * px)/py;
+            c = 1.0;
+        }
+        // Else if the point is not on or parallel to the y-axis, use solve-with-a
+        else if (px != 0.0) {
+            b = Math.cos(heading) / (0.0 - den);
+            a = (-1.0 - b * py)/px;
+            c = 1.0;
+        }
+        else {
+            return false;
+        }
+        out[off]   = a;
+        out[off+1] = b;
+        out[off+2] = c;
+        return true;
+    }
+
+    /**
+     * Write the line perpendicular to line (a,b,c) that contains a point.
+     */
+    public static void perpLineAt(double a, double b, double px, double py, double[] out, int off) {
+        double pa = b;
+        double pb = 0.0 - a;
+        out[off]   = pa;
+        out[off+1] = pb;
+        out[off+2] = 0.0 - (pa*px + pb*py);
+    }
+
+    /**
+     * Write the two lines that bisect the angles between two lines, one after the other.
+     * https://www.math-only-math.com/equations-of-the-bisectors-of-the-angles-between-two-straight-lines.html
+     */
+    public static void bisectors(double a1, double b1, double c1, double a2, double b2, double c2,
+                                 double[] out, int off) {
+        double d1 = Math.sqrt(a1*a1 + b1*b1);
+        double d2 = Math.sqrt(a2*a2 + b2*b2);
+        out[off]   = d2*a1 - d1*a2;
+        out[off+1] = d2*b1 - d1*b2;
+        out[off+2] = d2*c1 - d1*c2;
+        out[off+3] = d2*a1 + d1*a2;
+        out[off+4] = d2*b1 + d1*b2;
+        out[off+5] = d2*c1 + d1*c2;
+    }
+
+    /**
+     * Write the point where two lines intersect.
+     * @return - false, writing nothing, if the lines are parallel
+     */
+    public static boolean intersect(double a1, double b1, double c1, double a2, double b2, double c2,
+                                    double[] out, int off) {
+        double den = (a1*b2) - (a2*b1);
+        if (den == 0.0) {
+            return false;
+        }
+        out[off]   = ((b1*c2) - (b2*c1)) / den;
+        out[off+1] = ((a2*c1) - (a1*c2)) / den;
+        return true;
+    }
+
+    /**
+     * Return the distance between line (a,b,c) and a point.
+     */
+    public static double distance(double a, double b, double c, double px, double py) {
+        return Math.abs(a*px + b*py + c)/Math.sqrt(a*a+b*b);
+    }
+
+    /**
+     * Write the point on line (a,b,c) nearest a given point.
+     */
+    public static void project(double a, double b, double c, double px, double py, double[] out, int off) {
+        double t = (a*px + b*py + c)/(a*a + b*b);
+        out[off]   = px - a*t;
+        out[off+1] = py - b*t;
+    }
+
+    /**
+     * Write the circles tangent to the line of a starting point and heading, and tangent to a
+     * target point and heading at the target point, as (x, y, radius) of each, one after the other.
+     * If the two lines are parallel, the one circle is a semicircle; otherwise there are two.
+     * @param scratch - room for intermediate lines, of length TANGENT_CIRCLES_SCRATCH or more
+     * @param out     - room for the circles, of length 6 or more
+     * @return        - number of circles written
+     */
+    public static int tangentCircles(double sx, double sy, double sh, double tx, double ty, double th,
+                                     double[] scratch, double[] out) {
+        final int START = 0, TARG = 3, TARG_NORMAL = 6, BISECT = 9, POINT = 15;
+        double[] s = scratch;
+
+        // The starting point and the target point, with their headings, define lines,
+        // and the target point a line perpendicular to the target line
+        if (!lineThrough(sx, sy, sh, s, START) || !lineThrough(tx, ty, th, s, TARG)) { return 0; }
+        perpLineAt(s[TARG], s[TARG+1], tx, ty, s, TARG_NORMAL);
+
+        // Check if the start line and target lines are parallel
+        if (!intersect(s[START], s[START+1], s[START+2], s[TARG], s[TARG+1], s[TARG+2], s, POINT)) {
+            // A semicircle solution exists.
+            // Its center is the midpoint of the target point and the intersection of
+            // the starting line and line perpendicular to target line
+            if (!intersect(s[START], s[START+1], s[START+2], s[TARG_NORMAL], s[TARG_NORMAL+1], s[TARG_NORMAL+2], s, POINT)) {
+                return 0;
+            }
+            return circleAt((tx + s[POINT])/2.0, (ty + s[POINT+1])/2.0, tx, ty, out, 0);
+        }
+
+        // If the start line and target line are not parallel then the centers of the two circles
+        // are where the line normal to the target line intersects the bisectors of the two lines.
+        bisectors(s[START], s[START+1], s[START+2], s[TARG], s[TARG+1], s[TARG+2], s, BISECT);
+        int n = 0;
+        for (int k = BISECT; k < BISECT+6; k += 3) {
+            if (intersect(s[TARG_NORMAL], s[TARG_NORMAL+1], s[TARG_NORMAL+2], s[k], s[k+1], s[k+2], s, POINT)) {
+                n += circleAt(s[POINT], s[POINT+1], tx, ty, out, 3*n);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Write the center of the Arc tangent to a point and heading that also passes through
+     * a second point; as Arc.calcArcNavPointToPoint() finds it.
+     * @param scratch - room for intermediate lines, of length TANGENT_ARC_SCRATCH or more
+     * @return        - false, writing nothing, if there is no such Arc: the second point is
+     *                  straight ahead of or behind the first
+     */
+    public static boolean tangentArcCenter(double px, double py, double heading, double qx, double qy,
+                                           double[] scratch, double[] out, int off) {
+        final int CHORD = 0, BISECTOR = 3, LINE = 6, NORMAL = 9;
+        double[] s = scratch;
+        // The center is where the perpendicular bisector of the chord between the points
+        // intersects the line normal to the heading at the first point
+        if (!lineThrough(px, py, Math.atan2(qy - py, qx - px), s, CHORD) || !lineThrough(px, py, heading, s, LINE)) {
+            return false;
+        }
+        perpLineAt(s[CHORD], s[CHORD+1], (px+qx)/2.0, (py+qy)/2.0, s, BISECTOR);
+        perpLineAt(s[LINE], s[LINE+1], px, py, s, NORMAL);
+        return intersect(s[BISECTOR], s[BISECTOR+1], s[BISECTOR+2], s[NORMAL], s[NORMAL+1], s[NORMAL+2], out, off);
+    }
+
+    private static int circleAt(double cx, double cy, double tx, double ty, double[] out, int off) {
+        out[off]   = cx;
+        out[off+1] = cy;
+        out[off+2] = Math.sqrt((cx - tx) * (cx - tx) + (cy - ty) * (cy - ty));
+        return 1;
+    }
+
+    private Geometry() {
+    }
+}
@@ -0,0 +1,201 @@
+package waypoint;  
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Class to choose the headings of drive-through NavPoints that make for the cheapest path.
+ */
+public class HeadingOptimizer {
+
+    // The first NavPoint is the robot's starting pose and stop NavPoints keep the heading
+    // they were given. Every other NavPoint is a drive-through whose heading is free within
+    // a tolerance of its given heading.
+    //
+    // Headings are tried in whole degrees, the same as the NavPoint files and table hold them.
+    // The cost of the connection between two NavPoints only depends on the headings at those
+    // two NavPoints, so the cheapest choice of headings along the whole path is found exactly
+    // with dynamic programming over the candidate headings of each NavPoint in turn.
+
+    private CalcPath calcPath;
+    private CalcOptions options;  // options of calcPath when this optimizer was made, shared by its threads
+    private PathCost cost;
+    private int stepDegrees;      // spacing between candidate headings, in degrees
+    private int toleranceDegrees; // free headings stay within this many degrees of their given heading
+
+    /**
+     * Return a copy of a List of NavPoints with the headings of drive-through NavPoints
+     * chosen to minimize the cost of the path through them.
+     * @param navpoints - List of NavPoints, in sequence
+     * @return          - List of NavPoints with optimized headings; the given List if no improvement is found
+     */
+    public List<NavPoint> optimize(List<NavPoint> navpoints) {
+        if (navpoints == null || navpoints.size() < 2) {
+            return navpoints;
+        }
+        int n = navpoints.size();
+
+        // Candidate headings for each NavPoint; the given heading is always candidate 0.
+        List<double[]> candidates = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            candidates.add(candidateHeadings(navpoints.get(k), (k == 0)));
+        }
+
+        // best[b] - cheapest cost to reach candidate b of the current NavPoint
+        // from[k][b] - candidate of NavPoint k-1 on that cheapest way
+        double[] best = new double[candidates.get(0).length];
+        int[][] from = new int[n][];
+        for (int k = 1; k < n; k++) {
+            NavPoint[] prev = candidateNavPoints(navpoints.get(k-1), candidates.get(k-1));
+            NavPoint[] next = candidateNavPoints(navpoints.get(k),   candidates.get(k));
+            double[] connection = connectionCosts(prev, next);
+            double[] nextBest = new double[next.length];
+            from[k] = new int[next.length];
+            for (int b = 0; b < next.length; b++) {
+                nextBest[b] = Double.MAX_VALUE;
+                for (int a = 0; a < prev.length; a++) {
+                    double c = best[a] + connection[a*next.length + b];
+                    if (c < nextBest[b]) {
+                        nextBest[b] = c;
+                        from[k][b] = a;
+                    }
+                }
+            }
+            best = nextBest;
+        }
+
+        // Trace the cheapest choice back from the final NavPoint.
+        int choice = 0;
+        for (int b = 1; b < best.length; b++) {
+            if (best[b] < best[choice]) { choice = b; }
+        }
+        double optimizedCost = best[choice];
+        int[] chosen = new int[n];
+        for (int k = n-1; k >= 0; k--) {
+            chosen[k] = choice;
+            if (k > 0) { choice = from[k][choice]; }
+        }
+
+        List<NavPoint> optimized = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            optimized.add(candidateNavPoint(navpoints.get(k), candidates.get(k)[chosen[k]]));
+        }
+        double givenCost = pathCost(navpoints);
+        System.out.println(String.format("Heading optimizer: %s %.2f -> %.2f", cost, givenCost, optimizedCost));
+        if (optimizedCost >= givenCost) {
+            return navpoints;
+        }
+        return optimized;
+    }
+
+    /**
+     * Return the cost of the path through a List of NavPoints as they are given.
+     */
+    public double pathCost(List<NavPoint> navpoints) {
+        double total = 0.0;
+        for (int k = 0; k < navpoints.size()-1; k++) {
+            total += connectionCost(navpoints.get(k), navpoints.get(k+1));
+        }
+        return total;
+    }
+
+    /**
+     * Cost of connecting every candidate of one NavPoint to every candidate of the next,
+     * evaluated in parallel.
+     * @return - costs, indexed [a*next.length + b] for candidate a of prev and candidate b of next
+     */
+    private double[] connectionCosts(NavPoint[] prev, NavPoint[] next) {
+        double[] costs = new double[prev.length * next.length];
+        IntStream.range(0, costs.length).parallel().forEach(ab -> {
+            costs[ab] = connectionCost(prev[ab / next.length], next[ab % next.length]);
+        });
+        return costs;
+    }
+
+    private double connectionCost(NavPoint npt1, NavPoint npt2) {
+        return cost.ofConnection(calcPath, options, npt1, npt2);
+    }
+
+    /**
+     * Return the candidate headings, in radians, for a NavPoint.
+     * The given heading comes first; the others are whole degrees stepped away from it.
+     */
+    private double[] candidateHeadings(NavPoint npt, boolean first) {
+        if (first || npt.stop) {
+            return new double[] { npt.heading };
+        }
+        int given = (int) Math.round(Math.toDegrees(npt.heading));
+        List<Integer> degrees = new ArrayList<>();
+        degrees.add(((given % 360) + 360) % 360);
+        int span = Math.min(toleranceDegrees, 180);
+        for (int d = stepDegrees; d <= span; d += stepDegrees) {
+            addHeading(degrees, given + d);
+            addHeading(degrees, given - d);
+        }
+        double[] headings = new double[degrees.size()];
+        headings[0] = npt.heading;
+        for (int i = 1; i < headings.length; i++) { headings[i] = Math.toRadians(degrees.get(i)); }
+        return headings;
+    }
+
+    private static void addHeading(List<Integer> degrees, int heading) {
+        int normalized = ((heading % 360) + 360) % 360;
+        if (!degrees.contains(normalized)) {
+            degrees.add(normalized);
+        }
+    }
+
+    private static NavPoint[] candidateNavPoints(NavPoint npt, double[] headings) {
+        NavPoint[] npts = new NavPoint[headings.length];
+        for (int i = 0; i < headings.length; i++) {
+            npts[i] = candidateNavPoint(npt, headings[i]);
+        }
+        return npts;
+    }
+
+    private static NavPoint candidateNavPoint(NavPoint npt, double heading) {
+        return new NavPoint(new Point(npt.pt.x, npt.pt.y), heading, npt.orientation, npt.stop);
+    }
+
+    /**
+     * Class constructor.
+     * @param calcPath         - path calculator used to connect NavPoints
+     * @param cost             - measure of path cost to minimize
+     * @param stepDegrees      - spacing between candidate headings, in degrees
+     * @param toleranceDegrees - how far a free heading may move from its given heading, in degrees;
+     *                           180 or more leaves it entirely free
+     */
+    public HeadingOptimizer(CalcPath calcPath, PathCost cost, int stepDegrees, int toleranceDegrees) {
+        this.calcPath = calcPath;
+        this.options = calcPath.getOptions();
+        this.cost = cost;
+        this.stepDegrees = Math.max(1, stepDegrees);
+        this.toleranceDegrees = Math.max(0, toleranceDegrees);
+    }
+
+    /**
+     * Class constructor from a Map of settings parameters:
+     *   OPT_OBJECTIVE          LENGTH or TIME (default TIME)
+     *   OPT_HEADING_STEP       degrees between candidate headings (default 10)
+     *   OPT_HEADING_TOLERANCE  degrees a free heading may move (default 180, entirely free)
+     */
+    public HeadingOptimizer(CalcPath calcPath, Map<String, String> parameters) {
+        this(calcPath,
+             PathCost.fromSetting(parameters.get("OPT_OBJECTIVE"), PathCost.TIME),
+             parseInt(parameters.get("OPT_HEADING_STEP"), 10),
+             parseInt(parameters.get("OPT_HEADING_TOLERANCE"), 180));
+    }
+
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) { return defaultValue; }
+        try {
+            return Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            System.out.println("Not an integer setting: "+value+", using "+defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package waypoint;
+
+import java.util.Locale;
+
+/**
+ * Class to hold a part of a path the robot cannot drive as computed, found by FeasibilityChecker.
+ */
+public class Infeasibility {
+
+    // Kinds of infeasibility
+    public enum Kind {
+        TURN_RADIUS("turn tighter than the minimum radius"),
+        WHEEL_SPEED_RATIO("inner wheel too slow for the outer"),
+        REVERSAL("reversal"),
+        STRAFE("strafe on a drivetrain that cannot strafe"),
+        STOPS("too many stops");
+
+        public final String label;
+        Kind(String label) { this.label = label; }
+    }
+
+    int      element;   // index of the NavPath element in the path
+    Kind     kind;
+    NavPoint pose;      // where along the element it is worst
+    String   detail;    // what was found, against what the robot allows
+
+    /**
+     * String of this Infeasibility's parameters
+     */
+    public String toString() {
+        return String.format(Locale.US, "Infeasible element %d, %s: %s, at %s", element, kind.label, detail, pose.toString());
+    }
+
+    /**
+     * Constructor
+     */
+    public Infeasibility(int element, Kind kind, NavPoint pose, String detail) {
+        this.element = element;
+        this.kind = kind;
+        this.pose = pose;
+        this.detail = detail;
+    }
+}
@@ -0,0 +1,44 @@
+package waypoint;
+
+/**
+ * Class to hold the kinematics of a mecanum drive: four wheels, each with rollers at 45 degrees,
+ * so the robot moves in any direction as well as turning. The rollers of the front-left and
+ * back-right wheels run forward-left to back-right, and of the other two forward-right to back-left.
+ */
+public class MecanumDrive implements Drivetrain {
+
+    public static final String NAME = "MECANUM";
+
+    private double trackWidth;   // distance between the centers of the left and right wheels
+    private double wheelBase;    // distance between the centers of the front and back wheels
+    private double lever;        // wheel travel per radian of turn: half the track plus half the wheel base
+
+    public String name()          { return NAME; }
+    public int motorCount()       { return 4; }
+    public boolean isHolonomic()  { return true; }
+    public double trackWidth()    { return trackWidth; }
+
+    public void inverse(double forward, double left, double turn, double[] wheels) {
+        wheels[0] = forward - left - lever*turn;   // front left
+        wheels[1] = forward + left + lever*turn;   // front right
+        wheels[2] = forward + left - lever*turn;   // back left
+        wheels[3] = forward - left + lever*turn;   // back right
+    }
+
+    public void forward(double[] wheels, double[] motion) {
+        motion[0] = ( wheels[0] + wheels[1] + wheels[2] + wheels[3]) / 4.0;
+        motion[1] = (-wheels[0] + wheels[1] + wheels[2] - wheels[3]) / 4.0;
+        motion[2] = (-wheels[0] + wheels[1] - wheels[2] + wheels[3]) / (4.0*lever);
+    }
+
+    /**
+     * Constructor
+     * @param trackWidth - distance between the centers of the left and right wheels
+     * @param wheelBase  - distance between the centers of the front and back wheels
+     */
+    public MecanumDrive(double trackWidth, double wheelBase) {
+        this.trackWidth = trackWidth;
+        this.wheelBase = wheelBase;
+        this.lever = (trackWidth + wheelBase) / 2.0;
+    }
+}
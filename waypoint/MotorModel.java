@@ -0,0 +1,189 @@
+package waypoint;
+
+import java.util.Map;
+
+/**
+ * Class to model the response of a robot's drive motors and battery, for the simulation.
+ *
+ * A DC motor's torque falls linearly with its speed, from stall to free speed, so a wheel driven
+ * at a given power approaches the speed that power gives as a first-order response: it closes a
+ * fixed share of the difference in each interval of time. That share is set by the response's
+ * time constant, the time to close 63% of the difference, which is the robot's effective mass
+ * times the wheels' free speed over their stall force. Traction limits the acceleration further.
+ * The speed a power gives scales with the battery's voltage, which sags below its open-circuit
+ * voltage by the current the motors draw through the battery's internal resistance.
+ *
+ * The robot file configures the model with optional keys:
+ *   MOTOR_FREE_SPEED     - inches per second a wheel travels at full power, without load, at 12 volts
+ *   MOTOR_TIME_CONSTANT  - seconds for a wheel to make 63% of a change of speed; 0.0, the default, for at once
+ *   MAX_ACCELERATION     - inches per second per second a wheel may change speed, as traction allows
+ *   BATTERY_VOLTAGE      - open-circuit volts of the battery; 12 by default
+ *   BATTERY_RESISTANCE   - ohms of the battery and its wiring; 0.0, the default, for no sag
+ *   MOTOR_STALL_CURRENT  - amps each motor draws stalled at 12 volts
+ * Without any of them the model is ideal: a wheel travels at once at the speed its power gives.
+ */
+public class MotorModel {
+
+    public static final double NOMINAL_VOLTAGE = 12.0;          // volts the free speed and stall current are rated at
+    public static final double DEFAULT_FREE_SPEED = 20.0;       // inches per second
+    public static final double DEFAULT_STALL_CURRENT = 9.2;     // amps, of a typical FTC drive motor
+
+    final double freeSpeed;           // inches per second at full power, without load, at the nominal voltage
+    final double timeConstant;        // seconds
+    final double maxAcceleration;     // inches per second per second
+    final double batteryVoltage;      // open-circuit volts
+    final double batteryResistance;   // ohms
+    final double stallCurrent;        // amps per motor at the nominal voltage
+
+    // State of the motors, carried from one step to the next
+    private double[] speed = new double[0];   // inches per second of each wheel
+    private double voltage;                   // volts at the battery under the last step's load
+    private double minVoltage;                // lowest the battery has sagged to
+    // Coefficients of the first-order response, for the step time last used
+    private double stepTime = -1.0;
+    private double decay;                     // share of a difference of speed left after a step
+    private double lag;                       // distance per unit of difference of speed lost over a step
+
+    /**
+     * Return true if this model moves the wheels at once at the speed their power gives,
+     * as a robot without the optional keys does.
+     */
+    public boolean isIdeal() {
+        return timeConstant <= 0.0 && Double.isInfinite(maxAcceleration) &&
+               batteryVoltage == NOMINAL_VOLTAGE && (batteryResistance <= 0.0 || stallCurrent <= 0.0);
+    }
+
+    /**
+     * Return the speed, in inches per second, a wheel travels at full power without load at the nominal voltage.
+     */
+    public double freeSpeed() {
+        return freeSpeed;
+    }
+
+    /**
+     * Return the battery's voltage under the motors' latest load.
+     */
+    public double getVoltage() {
+        return voltage;
+    }
+
+    /**
+     * Return the lowest the battery's voltage has sagged to since the model was made or reset.
+     */
+    public double getMinVoltage() {
+        return minVoltage;
+    }
+
+    /**
+     * Stop the wheels and rest the battery.
+     */
+    public void reset() {
+        speed = new double[0];
+        voltage = batteryVoltage;
+        minVoltage = batteryVoltage;
+    }
+
+    /**
+     * Advance the motors over a step of time at given powers, which hold for the whole step.
+     * @param time   - duration of the step, in seconds
+     * @param powers - power applied to each motor (range: -1.0 to 1.0)
+     * @param travel - filled with the distance each wheel travels over the step, in inches
+     */
+    public void step(double time, double[] powers, double[] travel) {
+        if (speed.length != powers.length) {
+            speed = new double[powers.length];
+        }
+        if (time != stepTime) {
+            stepTime = time;
+            decay = (timeConstant > 0.0) ? Math.exp(-time / timeConstant) : 0.0;
+            lag = timeConstant * (1.0 - decay);
+        }
+        double maxChange = maxAcceleration * time;
+        double scale = voltage / NOMINAL_VOLTAGE;
+        double current = 0.0;
+        for (int m = 0; m < powers.length; m++) {
+            double power = Math.max(-1.0, Math.min(1.0, powers[m]));
+            double target = power * scale * freeSpeed;
+            double v0 = speed[m];
+            // Exact solution of the first-order response over the step
+            double v1 = target + (v0 - target) * decay;
+            double distance = target * time + (v0 - target) * lag;
+            // Traction limits the change of speed, at a constant acceleration
+            if (Math.abs(v1 - v0) > maxChange) {
+                v1 = v0 + Math.signum(v1 - v0) * maxChange;
+                distance = 0.5 * (v0 + v1) * time;
+            }
+            speed[m] = v1;
+            travel[m] = distance;
+            // A motor draws current by the difference between its applied voltage and its back EMF
+            current += stallCurrent * Math.abs(power * scale - 0.5 * (v0 + v1) / freeSpeed);
+        }
+        // The sag under this step's load holds for the next step
+        voltage = Math.max(0.0, batteryVoltage - batteryResistance * current);
+        minVoltage = Math.min(minVoltage, voltage);
+    }
+
+    /**
+     * Return the motor model a robot file describes; an ideal model if there is no robot file.
+     * @param robot - Map of the robot file's keys and values; may be null
+     */
+    public static MotorModel forRobot(Map<String, String> robot) {
+        if (robot == null) {
+            return new MotorModel();
+        }
+        return new MotorModel(optional(robot, "MOTOR_FREE_SPEED", DEFAULT_FREE_SPEED),
+                              optional(robot, "MOTOR_TIME_CONSTANT", 0.0),
+                              optional(robot, "MAX_ACCELERATION", Double.POSITIVE_INFINITY),
+                              optional(robot, "BATTERY_VOLTAGE", NOMINAL_VOLTAGE),
+                              optional(robot, "BATTERY_RESISTANCE", 0.0),
+                              optional(robot, "MOTOR_STALL_CURRENT", DEFAULT_STALL_CURRENT));
+    }
+
+    // Return the positive number a robot file gives for an optional key, or a default if it gives none
+    private static double optional(Map<String, String> robot, String key, double value) {
+        if (!robot.containsKey(key)) { return value; }
+        try {
+            double given = Double.parseDouble(robot.get(key));
+            if (given >= 0.0) { return given; }
+        }
+        catch (NumberFormatException e) {
+        }
+        System.out.println(key+" is not a non-negative number: "+robot.get(key)+", using "+value);
+        return value;
+    }
+
+    /**
+     * String of the model's parameters
+     */
+    public String toString() {
+        return "free_speed:"+freeSpeed+" time_constant:"+timeConstant+" max_acceleration:"+maxAcceleration+
+               " battery_voltage:"+batteryVoltage+" battery_resistance:"+batteryResistance+" stall_current:"+stallCurrent;
+    }
+
+    /**
+     * Constructor
+     * @param freeSpeed         - inches per second a wheel travels at full power, without load, at the nominal voltage
+     * @param timeConstant      - seconds for a wheel to make 63% of a change of speed; 0.0 for at once
+     * @param maxAcceleration   - inches per second per second a wheel may change speed; infinite for no limit
+     * @param batteryVoltage    - open-circuit volts of the battery
+     * @param batteryResistance - ohms of the battery and its wiring
+     * @param stallCurrent      - amps each motor draws stalled at the nominal voltage
+     */
+    public MotorModel(double freeSpeed, double timeConstant, double maxAcceleration,
+                      double batteryVoltage, double batteryResistance, double stallCurrent) {
+        this.freeSpeed = (freeSpeed > 0.0) ? freeSpeed : DEFAULT_FREE_SPEED;
+        this.timeConstant = timeConstant;
+        this.maxAcceleration = (maxAcceleration > 0.0) ? maxAcceleration : Double.POSITIVE_INFINITY;
+        this.batteryVoltage = batteryVoltage;
+        this.batteryResistance = batteryResistance;
+        this.stallCurrent = stallCurrent;
+        reset();
+    }
+
+    /**
+     * Constructor of an ideal model at the default free speed
+     */
+    public MotorModel() {
+        this(DEFAULT_FREE_SPEED, 0.0, Double.POSITIVE_INFINITY, NOMINAL_VOLTAGE, 0.0, DEFAULT_STALL_CURRENT);
+    }
+}
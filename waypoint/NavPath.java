@@ -1,16 +1,221 @@
-package waypoint;  
+package waypoint;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
 
 /**
  * Abstract Class to hold basic contents of NavPath subclasses:
- *   Vector, Arc, Gap
+ *   Vector, Arc, Spline, Gap
+ * and the operations every path element provides, so code working over a path
+ * need not ask which kind of element it has.
  */
-public abstract class NavPath {
+public abstract class NavPath implements Cloneable {
 
     NavPoint i;           // start Point
     NavPoint o;           // end Point
     boolean stop = false; // = true if this path element concludes with a stop
     double  orientation;  // orientation of robot relative to heading in NavPoint i
-    
+    double  turn = 0.0;   // change of orientation along the element, for a holonomic robot turning as it travels
+
+    /**
+     * Destination of drawn path elements, in field coordinates.
+     */
+    public interface Renderer {
+        void line(double x1, double y1, double x2, double y2, Color color);
+        // angles in radians; clockwise from startAngle to endAngle if clockwise, else counter-clockwise
+        void arc(double cx, double cy, double radius, double startAngle, double endAngle, boolean clockwise, Color color);
+    }
+
+    /**
+     * Return the length of this path element, as traveled by the path's reference point.
+     * A Gap counts as the straight distance across it.
+     */
+    public abstract double length();
+
+    /**
+     * Return the length of the track a point offset sideways from the reference point travels
+     * along this path element; 0.0 for a Gap, which the robot does not drive.
+     * @param offset - distance to the right of the reference point, relative to heading; negative to the left
+     */
+    public abstract double trackLength(double offset);
+
+    /**
+     * Return the point and heading of the reference point at a given distance along this path element.
+     * @param s - distance from the start, limited to 0.0 through length()
+     */
+    public abstract NavPoint poseAt(double s);
+
+    /**
+     * Return the distance along this path element of the projection of a given point onto it.
+     * The distance is negative behind the start of a Vector or Gap, and greater than length()
+     * past its end.
+     */
+    public abstract double project(Point pt);
+
+    /**
+     * Return the deviation of a pose from this path element.
+     * @return - Vector, which gives magnitude of error from path
+     *                   but the direction is the heading difference between path element and pose
+     */
+    public abstract Vector crossTrackError(NavPoint pose);
+
+    /**
+     * Return the bounding box of this path element: { minX, minY, maxX, maxY }.
+     */
+    public abstract double[] bounds();
+
+    /**
+     * Write this path element as a line of a NavPath file.
+     */
+    public abstract void emitTo(Writer writer) throws IOException;
+
+    /**
+     * Draw this path element, or a track offset sideways from it.
+     * @param offset - distance to the right of the path, relative to heading; negative to the left
+     */
+    public abstract void draw(Renderer renderer, double offset, Color color);
+
+    /**
+     * Return the offset, as for trackLength(), of the side of the robot that travels furthest
+     * along this path element: the outer side of an Arc, the right side otherwise.
+     * A robot oriented to face backward has its right side on the left of the path.
+     * @param rightSide - distance from the reference point to the right side of the robot
+     * @param leftSide  - distance from the reference point to the left side of the robot
+     */
+    public double outerSide(double rightSide, double leftSide) {
+        if (Math.cos(orientation) < 0.0) {
+            double side = rightSide;
+            rightSide = leftSide;
+            leftSide = side;
+        }
+        return (trackLength(rightSide) >= trackLength(0.0 - leftSide)) ? rightSide : 0.0 - leftSide;
+    }
+
+    /**
+     * Return the curvature of this path element at a given distance along it: positive turning
+     * left (counter-clockwise), negative turning right; 0.0 where it runs straight, and along an
+     * element the robot turns in place on or does not drive.
+     * @param s - distance from the start, limited to 0.0 through length()
+     */
+    public double curvatureAt(double s) {
+        return 0.0;
+    }
+
+    /**
+     * Return the change of heading along this path element, counter-clockwise; for an element
+     * the robot turns in place on, the turn.
+     */
+    public double headingChange() {
+        double change = poseAt(length()).heading - poseAt(0.0).heading;
+        return Math.atan2(Math.sin(change), Math.cos(change));
+    }
+
+    /**
+     * Return true if this path element runs straight, so may be cut short at either end.
+     */
+    public boolean isStraight() {
+        return false;
+    }
+
+    /**
+     * Return true if the robot turns in place on this path element, without traveling.
+     */
+    public boolean isTurnInPlace() {
+        return false;
+    }
+
+    /**
+     * Return true if this path element is a Gap, left unresolved, which the robot does not drive.
+     */
+    public boolean isGap() {
+        return false;
+    }
+
+    /**
+     * Return the two path elements this one splits into at a given distance along it, the second
+     * concluding with this element's stop; null if this kind of element is not split.
+     * @param s - distance from the start, between 0.0 and length()
+     */
+    public NavPath[] splitAt(double s) {
+        return null;
+    }
+
+    /**
+     * Return a path element of the same kind as this one from its start to a given end, as a
+     * Vector straight to it or an Arc about the same center to its angle; null if this element
+     * cannot be so rebuilt. The end need not be this element's own.
+     */
+    public NavPath endingAt(NavPoint end) {
+        return null;
+    }
+
+    /**
+     * Return a path element of the same kind as this one from a given start to its end, as
+     * endingAt() does for the end; null if this element cannot be so rebuilt.
+     */
+    public NavPath startingAt(NavPoint start) {
+        return null;
+    }
+
+    /**
+     * Return a copy of this path element, to change the flags of without changing this one.
+     * The copy shares this element's NavPoints.
+     */
+    public NavPath copy() {
+        try {
+            return (NavPath) super.clone();
+        }
+        catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Return a path element rebuilt from this one, after giving it this element's stop,
+     * orientation and turn.
+     */
+    protected NavPath rebuilt(NavPath p) {
+        p.stop = stop;
+        p.orientation = orientation;
+        p.turn = turn;
+        return p;
+    }
+
+    /**
+     * Return the two path elements split from this one at a given distance along it, after
+     * dividing this element's turn between them and giving the second its stop.
+     */
+    protected NavPath[] split(NavPath first, NavPath second, double s) {
+        first.orientation = orientation;
+        second.orientation = orientationAt(s);
+        first.turn = second.orientation - orientation;
+        second.turn = turn - first.turn;
+        first.stop = false;
+        second.stop = stop;
+        return new NavPath[] { first, second };
+    }
+
+    /**
+     * Return the orientation of the robot relative to the path's heading at a given distance
+     * along this path element. A holonomic robot may turn as it travels, changing its orientation
+     * evenly along the element by turn; otherwise the orientation is the same all along it.
+     * @param s - distance from the start, limited to 0.0 through length()
+     */
+    public double orientationAt(double s) {
+        double length = length();
+        if (turn == 0.0 || length <= 0.0) { return orientation; }
+        return orientation + turn*Math.max(0.0, Math.min(1.0, s/length));
+    }
+
+    /**
+     * Return the turn column that ends a NavPath file line of an element along which the robot
+     * turns as it travels; an empty String for the usual element with a fixed orientation.
+     */
+    protected String turnColumn() {
+        return (turn == 0.0) ? "" : "\t"+turn;
+    }
+
     public String toString() {
         return " i:"+i.toString()+" o:"+o.toString()+ " "+stop;
     }
@@ -45,106 +45,30 @@ public class NavPoint {
      *  parameters of this NavPoint.
      */
     public StdLine toStdLine() {
-        
-        StdLine stdLine = new StdLine();
-        
-        //System.out.println("  pt->line: "+pt.toString()+" heading:" +heading);
-        
-        double den = pt.y*Math.cos(heading) - pt.x*Math.sin(heading);
-
-        // NavPoints parallel to x-axis need special handling.
-        if ((Math.abs(heading - 0.0)     < 0.000001) ||
-            (Math.abs(heading - Math.PI) < 0.000001)) {
-            //System.out.println("    || x-axis");
-            stdLine.a = 0.0;
-            stdLine.b = 1.0;
-            stdLine.c = 0.0 - pt.y;
-        }
-        // NavPoints parallel to y-axis need special handling.
-        else if ((Math.abs(heading - 1.0*Math.PI/2.0) < 0.000001) ||
-                 (Math.abs(heading - 3.0*Math.PI/2.0) < 0.000001)) {
-            //System.out.println("    || y-axis");
-            stdLine.a = 1.0;
-            stdLine.b = 0.0;
-            stdLine.c = 0.0 - pt.x;
-        }
-        // NavPoints at or aim through the origin need special handling.
-        else if ((pt.y == 0.0 && pt.x == 0.0) || (Math.abs(den) < 0.0000001)) {
-            //System.out.println("    . origin");
-            // want the sin to be taken from [-PI/4,PI/4), [-90,90)
-            double bearing = (heading + Math.PI/2) % (Math.PI) - Math.PI/2;
-            stdLine.a = 0.0 - Math.sin(heading);
-            // want the cos to be taken from [0,PI/2)  [0,180)
-            bearing = heading % (Math.PI);
-            //System.out.println("heading "+heading+ " bearing "+bearing);
-            stdLine.b = 0.0 + Math.cos(bearing);
-            stdLine.c = 0.0;
-        }
-        
-        // Else if the point is not on or parallel to the x-axis, use solve-with-b
-        else if (pt.y != 0.0) {
-            //System.out.println("    solve-with-b");        
-            stdLine.a = Math.sin(heading) / den;
-            stdLine.b = (-1.0 - stdLine.a * pt.x)/pt.y;
-            stdLine.c = 1.0;
-        }
-        // Else if the point is not on or parallel to the y-axis, use solve-with-a
-        else if (pt.x != 0.0) {
-            //System.out.println("    solve-with-a");        
-            stdLine.b = Math.cos(heading) / (0.0 - den);
-            stdLine.a = (-1.0 - stdLine.b * pt.y)/pt.x;
-            stdLine.c = 1.0;
-        }
-        else {
-            //System.out.println("    null");        
+        double[] line = new double[3];
+        if (!Geometry.lineThrough(pt.x, pt.y, heading, line, 0)) {
             return null;
         }
-        //System.out.println(stdLine.toString());
-        return stdLine;
+        return new StdLine(line[0], line[1], line[2]);
     }
     
     
     /**
      *  Calculate the difference of position and heading of a NavPoint relative to another NavPoint.
+     *  The given NavPoint is taken to (0.0,0.0) and 90 degrees, and this NavPoint along with it.
+     *  To put many NavPoints relative to the same NavPoint, use Transform2d.frameOf(npt) once.
      */
     public NavPoint relativeTo(NavPoint npt) {
-        // We need to apply the rotation and translation to get the
-        // given NavPoint as an argument to (0.0, 0.0) and 90 degrees 
-        // and apply that to this current NavPoint.
-        NavPoint newNpt = new NavPoint();
-        // apply translation as if to argument NavPoint to get it to (0.0,0.0)
-        // to the current NavPoint.
-        double tx  =  pt.x + (0.0 - npt.pt.x);
-        double ty  =  pt.y + (0.0 - npt.pt.y);
-        // apply rotation as if to argument NavPoint to get it 
-        // to 90 degrees to the current Navpoint.
-        double bearing = Math.PI/2.0 - npt.heading;
-        newNpt.heading = heading + bearing;
-        // http://danceswithcode.net/engineeringnotes/rotations_in_2d/rotations_in_2d.html
-        newNpt.pt.x = tx*Math.cos(bearing) - ty*Math.sin(bearing);
-        newNpt.pt.y = tx*Math.sin(bearing) + ty*Math.cos(bearing);
-        return newNpt;
+        return Transform2d.frameOf(npt).applyInverse(this);
     }
     
     /**
      *  Calculate the position and heading of a NavPoint as referenced to another NavPoint.
+     *  (0.0,0.0) and 90 degrees is taken to the given NavPoint, and this NavPoint along with it.
+     *  To reference many NavPoints to the same NavPoint, use Transform2d.frameOf(npt) once.
      */
     public NavPoint displacedBy(NavPoint npt) {
-        // We need to apply rotation and translation of (0.0,0.0),90
-        // to get to NavPoint given as argument to the current NavPoint
-        NavPoint newNpt = new NavPoint();
-        // apply rotation of origin,90degrees to get to argument Navpoint
-        // to given NavPoint
-        double bearing = npt.heading - Math.PI/2.0;
-        newNpt.heading = heading + bearing;
-        // http://danceswithcode.net/engineeringnotes/rotations_in_2d/rotations_in_2d.html
-        double tx = pt.x*Math.cos(bearing) - pt.y*Math.sin(bearing);
-        double ty = pt.x*Math.sin(bearing) + pt.y*Math.cos(bearing);
-        // apply translation to go from origin to argument NavPoint
-        // to given NavPoint
-        newNpt.pt.x = tx + npt.pt.x;
-        newNpt.pt.y = ty + npt.pt.y;
-        return newNpt;        
+        return Transform2d.frameOf(npt).apply(this);
     }
     
     /**
@@ -0,0 +1,205 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Class to hold a solid field element that the robot must not run into.
+ * Obstacles come from the SOLIDRECT, SOLIDCIRCLE and SOLIDPOLYGON elements of a field file.
+ */
+public class Obstacle {
+
+    String   type;      // field graphics type this obstacle was declared as
+    double[] xs;        // polygon vertices, x-coordinates (SOLIDRECT, SOLIDPOLYGON)
+    double[] ys;        // polygon vertices, y-coordinates (SOLIDRECT, SOLIDPOLYGON)
+    Point    center;    // circle center (SOLIDCIRCLE)
+    double   radius;    // circle radius (SOLIDCIRCLE)
+
+    // bounding box
+    double minX;
+    double minY;
+    double maxX;
+    double maxY;
+
+    /**
+     * Build the List of Obstacles from field graphics, as returned by getFieldGraphicsFromFile().
+     * FieldGraphics in String format are as follows:
+     * [Type] [Color-R] [Color-G] [Color-B] [width] <args...>
+     */
+    public static List<Obstacle> fromFieldGraphics(List<String> fieldGraphics) {
+        List<Obstacle> obstacles = new ArrayList<>();
+        if (fieldGraphics == null) { return obstacles; }
+        for (String f : fieldGraphics) {
+            String[] chunks = f.split("\\s+");
+            switch (chunks[0]) {
+                case "SOLIDRECT":
+                    double x1 = Double.parseDouble(chunks[5]);
+                    double y1 = Double.parseDouble(chunks[6]);
+                    double x2 = Double.parseDouble(chunks[7]);
+                    double y2 = Double.parseDouble(chunks[8]);
+                    obstacles.add(new Obstacle(chunks[0],
+                                               new double[] { x1, x2, x2, x1 },
+                                               new double[] { y1, y1, y2, y2 }));
+                    break;
+                case "SOLIDCIRCLE":
+                    Point c = new Point(Double.parseDouble(chunks[5]), Double.parseDouble(chunks[6]));
+                    obstacles.add(new Obstacle(chunks[0], c, Double.parseDouble(chunks[7])/2.0));
+                    break;
+                case "SOLIDPOLYGON":
+                    int vertices = (chunks.length-5)/2;
+                    double[] xpts = new double[vertices];
+                    double[] ypts = new double[vertices];
+                    for (int i = 0; i < vertices; i++) {
+                        xpts[i] = Double.parseDouble(chunks[(i*2)+5]);
+                        ypts[i] = Double.parseDouble(chunks[(i*2)+6]);
+                    }
+                    obstacles.add(new Obstacle(chunks[0], xpts, ypts));
+                    break;
+            }
+        }
+        return obstacles;
+    }
+
+    /**
+     * Return true if this Obstacle is a circle, false if it is a polygon.
+     */
+    public boolean isCircle() {
+        return (center != null);
+    }
+
+    /**
+     * Return true if a given point is inside this Obstacle.
+     */
+    public boolean contains(double x, double y) {
+        if (isCircle()) {
+            double dx = x - center.x;
+            double dy = y - center.y;
+            return (dx*dx + dy*dy <= radius*radius);
+        }
+        return polygonContains(xs, ys, x, y);
+    }
+
+    /**
+     * Return true if this Obstacle overlaps a given convex polygon, such as a robot footprint.
+     * @param px - x-coordinates of the convex polygon vertices, in order
+     * @param py - y-coordinates of the convex polygon vertices, in order
+     */
+    public boolean intersectsConvex(double[] px, double[] py) {
+        if (isCircle()) {
+            // The circle overlaps if its center is inside the polygon, or an edge passes within its radius
+            if (polygonContains(px, py, center.x, center.y)) { return true; }
+            for (int i = 0, j = px.length-1; i < px.length; j = i++) {
+                if (segmentDistance(px[j], py[j], px[i], py[i], center.x, center.y) <= radius) { return true; }
+            }
+            return false;
+        }
+        // An (possibly concave) obstacle polygon overlaps if any edges cross,
+        // or else one polygon lies entirely inside the other
+        for (int i = 0, j = px.length-1; i < px.length; j = i++) {
+            for (int k = 0, l = xs.length-1; k < xs.length; l = k++) {
+                if (segmentsIntersect(px[j], py[j], px[i], py[i], xs[l], ys[l], xs[k], ys[k])) { return true; }
+            }
+        }
+        return polygonContains(xs, ys, px[0], py[0]) || polygonContains(px, py, xs[0], ys[0]);
+    }
+
+    /**
+     * Return true if a point is inside a polygon, by counting crossings of a ray in +x direction.
+     */
+    static boolean polygonContains(double[] px, double[] py, double x, double y) {
+        boolean inside = false;
+        for (int i = 0, j = px.length-1; i < px.length; j = i++) {
+            if (((py[i] > y) != (py[j] > y)) &&
+                (x < (px[j] - px[i]) * (y - py[i]) / (py[j] - py[i]) + px[i])) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Return the distance from a point (x,y) to the segment (x1,y1)-(x2,y2).
+     */
+    static double segmentDistance(double x1, double y1, double x2, double y2, double x, double y) {
+        double dx = x2 - x1;
+        double dy = y2 - y1;
+        double lengthSq = dx*dx + dy*dy;
+        double t = (lengthSq > 0.0) ? ((x - x1)*dx + (y - y1)*dy) / lengthSq : 0.0;
+        t = Math.max(0.0, Math.min(1.0, t));
+        double ex = x1 + t*dx - x;
+        double ey = y1 + t*dy - y;
+        return Math.sqrt(ex*ex + ey*ey);
+    }
+
+    /**
+     * Return true if segment (x1,y1)-(x2,y2) intersects segment (x3,y3)-(x4,y4), touching included.
+     */
+    static boolean segmentsIntersect(double x1, double y1, double x2, double y2,
+                                     double x3, double y3, double x4, double y4) {
+        double d1 = cross(x3, y3, x4, y4, x1, y1);
+        double d2 = cross(x3, y3, x4, y4, x2, y2);
+        double d3 = cross(x1, y1, x2, y2, x3, y3);
+        double d4 = cross(x1, y1, x2, y2, x4, y4);
+        if (((d1 > 0.0 && d2 < 0.0) || (d1 < 0.0 && d2 > 0.0)) &&
+            ((d3 > 0.0 && d4 < 0.0) || (d3 < 0.0 && d4 > 0.0))) {
+            return true;
+        }
+        // colinear or touching cases
+        return (d1 == 0.0 && onSegment(x3, y3, x4, y4, x1, y1)) ||
+               (d2 == 0.0 && onSegment(x3, y3, x4, y4, x2, y2)) ||
+               (d3 == 0.0 && onSegment(x1, y1, x2, y2, x3, y3)) ||
+               (d4 == 0.0 && onSegment(x1, y1, x2, y2, x4, y4));
+    }
+
+    private static double cross(double ax, double ay, double bx, double by, double cx, double cy) {
+        return (bx - ax)*(cy - ay) - (by - ay)*(cx - ax);
+    }
+
+    private static boolean onSegment(double ax, double ay, double bx, double by, double x, double y) {
+        return (x >= Math.min(ax, bx)) && (x <= Math.max(ax, bx)) &&
+               (y >= Math.min(ay, by)) && (y <= Math.max(ay, by));
+    }
+
+    /**
+     * String of this Obstacle's parameters
+     */
+    public String toString() {
+        if (isCircle()) {
+            return String.format(Locale.US, "%s center: %s radius: %6.2f", type, center.toString(), radius);
+        }
+        return String.format(Locale.US, "%s bounds: (%6.2f,%6.2f)-(%6.2f,%6.2f)", type, minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Constructor of a polygon Obstacle
+     */
+    public Obstacle(String type, double[] xs, double[] ys) {
+        this.type = type;
+        this.xs = xs;
+        this.ys = ys;
+        this.minX = Double.MAX_VALUE;
+        this.minY = Double.MAX_VALUE;
+        this.maxX = -Double.MAX_VALUE;
+        this.maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+    }
+
+    /**
+     * Constructor of a circle Obstacle
+     */
+    public Obstacle(String type, Point center, double radius) {
+        this.type = type;
+        this.center = center;
+        this.radius = radius;
+        this.minX = center.x - radius;
+        this.minY = center.y - radius;
+        this.maxX = center.x + radius;
+        this.maxY = center.y + radius;
+    }
+}
@@ -0,0 +1,161 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Post-pass laying out the way a holonomic robot faces along a path solved for translation alone.
+ * Each NavPoint's heading is the way the robot faces where the path reaches the NavPoint; from
+ * one NavPoint to the next the robot turns the short way, evenly with distance, so it rotates
+ * while it translates rather than stopping to turn. Where the turn is more than the robot can
+ * make at its maximum turn rate over the distance between the NavPoints, the rest of it is made
+ * in place before setting off, with a stop and an Arc of radius 0.0.
+ *
+ * The facing is written onto each path element as its orientation, relative to the element's
+ * heading at its start, and its turn, the change of orientation along it. The facing changes
+ * exactly evenly along Vectors and Arcs, and nearly so along Splines.
+ */
+public final class OrientationProfile {
+
+    private static final double EPSILON = 0.000001;
+
+    /**
+     * Outcome of profiling a path: the profiled path and what was done to it.
+     */
+    public static final class Result {
+        final List<NavPath> path;
+        final int split;          // elements split where a NavPoint falls within them
+        final int turnsInPlace;   // Arcs of radius 0.0 added for turns faster than the robot can make on the move
+
+        Result(List<NavPath> path, int split, int turnsInPlace) {
+            this.path = path;
+            this.split = split;
+            this.turnsInPlace = turnsInPlace;
+        }
+
+        public String toString() {
+            return "Orientation profile split "+split+" path elements at NavPoints and added "+
+                   turnsInPlace+" turns in place: "+path.size()+" elements";
+        }
+    }
+
+    /**
+     * Return a path with the way the robot faces laid out along it. The elements of the given
+     * path are changed: their orientation and turn are set, and a stop may be added.
+     * @param path        - path through the NavPoints, as solved for a holonomic robot
+     * @param navpoints   - NavPoints of the path, whose headings are the ways the robot faces at them
+     * @param maxTurnRate - fastest the robot turns as it travels, in degrees per second
+     * @param fullSpeed   - speed the robot travels at full power, in inches per second
+     */
+    public static Result profile(List<NavPath> path, List<NavPoint> navpoints, double maxTurnRate, double fullSpeed) {
+        // The turn rate, per inch traveled at the robot's full-power speed
+        double ratePerInch = Math.toRadians(maxTurnRate) / fullSpeed;
+
+        // 1. Find where the path reaches each NavPoint, splitting an element where one falls within it.
+        //    at[j] is the index of the element that starts at NavPoint j; the first NavPoint starts
+        //    the path, and the last ends it.
+        List<NavPath> elements = new ArrayList<>(path);
+        int n = navpoints.size();
+        int[] at = new int[n];
+        int split = 0;
+        for (int j = 1; j < n-1; j++) {
+            NavPoint npt = navpoints.get(j);
+            int from = at[j-1];
+            // Past the in-place turn between coincident NavPoints
+            if (npt.isCoincident(navpoints.get(j-1))) {
+                at[j] = (from < elements.size() && elements.get(from).isTurnInPlace()) ? from + 1 : from;
+                continue;
+            }
+            int best = elements.size();
+            double bestS = 0.0;
+            double bestDistance = Double.MAX_VALUE;
+            for (int e = from; e < elements.size(); e++) {
+                NavPath p = elements.get(e);
+                double s = Math.max(0.0, Math.min(p.length(), p.project(npt.pt)));
+                double d = Point.distance(npt.pt, p.poseAt(s).pt);
+                if (d < bestDistance - EPSILON) {
+                    best = e;
+                    bestS = s;
+                    bestDistance = d;
+                }
+            }
+            if (best == elements.size()) {
+                at[j] = best;
+                continue;
+            }
+            NavPath p = elements.get(best);
+            if (bestS < EPSILON) {
+                at[j] = best;
+            }
+            else if (bestS > p.length() - EPSILON) {
+                at[j] = best + 1;
+            }
+            else {
+                NavPath[] halves = p.splitAt(bestS);
+                if (halves != null) {
+                    elements.set(best, halves[0]);
+                    elements.add(best + 1, halves[1]);
+                    at[j] = best + 1;
+                    split++;
+                }
+                else {
+                    // a Spline or Gap is not split; the NavPoint is taken at its nearer end
+                    at[j] = (bestS < 0.5*p.length()) ? best : best + 1;
+                }
+            }
+        }
+        at[n-1] = elements.size();
+
+        // 2. Distance along the path to the start of each element
+        double[] distance = new double[elements.size() + 1];
+        for (int e = 0; e < elements.size(); e++) {
+            distance[e+1] = distance[e] + elements.get(e).length();
+        }
+
+        // 3. Turn the robot from each NavPoint's facing to the next one's, as far as it can on the move
+        List<NavPath> profiled = new ArrayList<>();
+        int turnsInPlace = 0;
+        double facing = navpoints.get(0).heading;
+        for (int j = 1; j < n; j++) {
+            double travel = distance[at[j]] - distance[at[j-1]];
+            double turn = normalize(navpoints.get(j).heading - navpoints.get(j-1).heading);
+            double inPlace = 0.0;
+            if (travel > 0.0 && Math.abs(turn) > ratePerInch*travel) {
+                inPlace = turn - Math.signum(turn)*ratePerInch*travel;
+                Point pt = elements.get(at[j-1]).i.pt;
+                Arc a = new Arc(pt, 0.0, facing, facing + inPlace);
+                a.i = new NavPoint(pt, facing, 0.0, true);
+                a.o = new NavPoint(pt, facing + inPlace);
+                a.stop = true;
+                if (!profiled.isEmpty()) {
+                    profiled.get(profiled.size()-1).stop = true;
+                }
+                profiled.add(a);
+                turnsInPlace++;
+            }
+            double start = distance[at[j-1]];
+            for (int e = at[j-1]; e < at[j]; e++) {
+                NavPath p = elements.get(e);
+                if (travel > 0.0 && !p.isTurnInPlace()) {
+                    double facingIn  = facing + inPlace + (turn - inPlace)*(distance[e]   - start)/travel;
+                    double facingOut = facing + inPlace + (turn - inPlace)*(distance[e+1] - start)/travel;
+                    double heading = p.poseAt(0.0).heading;
+                    p.orientation = normalize(facingIn - heading);
+                    p.turn = (facingOut - facingIn) - p.headingChange();
+                    if (Math.abs(p.turn) < EPSILON) { p.turn = 0.0; }
+                }
+                profiled.add(p);
+            }
+            facing += turn;
+        }
+        return new Result(profiled, split, turnsInPlace);
+    }
+
+    // Return an angle within -PI through PI
+    private static double normalize(double angle) {
+        return Math.atan2(Math.sin(angle), Math.cos(angle));
+    }
+
+    private OrientationProfile() {
+    }
+}
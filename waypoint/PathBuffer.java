@@ -0,0 +1,342 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Class to hold a path packed into parallel arrays, one entry per path element, for
+ * code that runs over every element of a long path: the simulation, path length,
+ * drawing and the exporters. Element k of the path is held at index k of every array.
+ *
+ * A List of NavPaths is converted into a PathBuffer with of(), and back with toNavPaths().
+ */
+public class PathBuffer {
+
+    // Kinds of path elements
+    public static final byte VECTOR = 0;
+    public static final byte ARC    = 1;
+    public static final byte GAP    = 2;
+    public static final byte SPLINE = 3;
+
+    // Bits of flags[]
+    private static final byte STOP      = 1;   // the element concludes with a stop
+    private static final byte CLOCKWISE = 2;   // an Arc turns clockwise
+    private static final byte I_STOP    = 4;   // stop of the starting NavPoint
+    private static final byte O_STOP    = 8;   // stop of the ending NavPoint
+
+    int size = 0;
+
+    byte[]   type;
+    byte[]   flags;
+    // starting and ending NavPoints
+    double[] ix, iy, iHeading, iOrientation;
+    double[] ox, oy, oHeading, oOrientation;
+    // all elements
+    double[] orientation;   // orientation of robot relative to heading
+    double[] turn;          // change of orientation along the element, for a holonomic robot
+    double[] length;        // Vector magnitude, Arc length, or straight distance across a Gap
+    // Vectors; the starting heading of Splines
+    double[] heading;
+    // Arcs
+    double[] cx, cy, radius, startAngle, endAngle;
+    // Gaps
+    String[] msg;
+    // Splines, whose geometry does not pack into a few numbers
+    Spline[] spline;
+
+    /**
+     * Return the number of path elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isStop(int k)      { return (flags[k] & STOP) != 0; }
+    public boolean isClockwise(int k) { return (flags[k] & CLOCKWISE) != 0; }
+    public boolean isStartStop(int k) { return (flags[k] & I_STOP) != 0; }
+    public boolean isEndStop(int k)   { return (flags[k] & O_STOP) != 0; }
+
+    /**
+     * Append a path element.
+     */
+    public void add(NavPath p) {
+        ensureCapacity(size + 1);
+        int k = size;
+        byte f = 0;
+        if (p.stop)   { f |= STOP; }
+        if (p.i.stop) { f |= I_STOP; }
+        if (p.o.stop) { f |= O_STOP; }
+        ix[k] = p.i.pt.x;  iy[k] = p.i.pt.y;  iHeading[k] = p.i.heading;  iOrientation[k] = p.i.orientation;
+        ox[k] = p.o.pt.x;  oy[k] = p.o.pt.y;  oHeading[k] = p.o.heading;  oOrientation[k] = p.o.orientation;
+        orientation[k] = p.orientation;
+        turn[k] = p.turn;
+        if (p instanceof Vector) {
+            Vector v = (Vector) p;
+            type[k] = VECTOR;
+            heading[k] = v.heading;
+            length[k] = v.magnitude;
+        }
+        else if (p instanceof Arc) {
+            Arc a = (Arc) p;
+            type[k] = ARC;
+            if (a.clockwise) { f |= CLOCKWISE; }
+            cx[k] = a.center.x;
+            cy[k] = a.center.y;
+            radius[k] = a.radius;
+            startAngle[k] = a.startAngle;
+            endAngle[k] = a.endAngle;
+            length[k] = a.length;
+        }
+        else if (p instanceof Spline) {
+            Spline s = (Spline) p;
+            type[k] = SPLINE;
+            heading[k] = s.headingAt(0.0);
+            length[k] = s.length;
+            spline[k] = s;
+        }
+        else {
+            type[k] = GAP;
+            heading[k] = Math.atan2(p.o.pt.y - p.i.pt.y, p.o.pt.x - p.i.pt.x);
+            length[k] = Point.distance(p.i.pt, p.o.pt);
+            msg[k] = (p instanceof Gap) ? ((Gap) p).msg : "";
+        }
+        flags[k] = f;
+        size++;
+    }
+
+    /**
+     * Return path element k as a NavPath.
+     */
+    public NavPath get(int k) {
+        NavPoint i = new NavPoint(new Point(ix[k], iy[k]), iHeading[k], iOrientation[k], isStartStop(k));
+        NavPoint o = new NavPoint(new Point(ox[k], oy[k]), oHeading[k], oOrientation[k], isEndStop(k));
+        NavPath p;
+        if (type[k] == VECTOR) {
+            Vector v = new Vector();
+            v.i = i;
+            v.o = o;
+            v.heading = heading[k];
+            v.magnitude = length[k];
+            p = v;
+        }
+        else if (type[k] == ARC) {
+            Arc a = new Arc(cx[k], cy[k], radius[k], startAngle[k], endAngle[k], isClockwise(k));
+            a.i = i;
+            a.o = o;
+            a.length = length[k];
+            p = a;
+        }
+        else if (type[k] == SPLINE) {
+            p = new Spline(i, o);
+        }
+        else {
+            p = new Gap(i, o, msg[k]);
+        }
+        p.stop = isStop(k);
+        p.orientation = orientation[k];
+        p.turn = turn[k];
+        return p;
+    }
+
+    /**
+     * Return the path as a List of NavPaths.
+     */
+    public List<NavPath> toNavPaths() {
+        List<NavPath> path = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            path.add(get(k));
+        }
+        return path;
+    }
+
+    /**
+     * Return a path packed into a PathBuffer; an empty PathBuffer if the path is null.
+     */
+    public static PathBuffer of(List<NavPath> path) {
+        PathBuffer buffer = new PathBuffer((path == null) ? 0 : path.size());
+        if (path != null) {
+            for (NavPath p : path) {
+                buffer.add(p);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Return the heading of the robot's path at the start of element k.
+     */
+    public double startHeading(int k) {
+        if (type[k] == ARC) {
+            return isClockwise(k) ? startAngle[k] - Math.PI/2.0 : startAngle[k] + Math.PI/2.0;
+        }
+        return heading[k];
+    }
+
+    /**
+     * Return the distance along element k of the projection of a given point onto it,
+     * as NavPath.project() gives it.
+     */
+    public double project(int k, double px, double py) {
+        if (type[k] == ARC) {
+            return Arc.project(cx[k], cy[k], radius[k], startAngle[k], isClockwise(k), px, py);
+        }
+        if (type[k] == SPLINE) {
+            return spline[k].project(px, py);
+        }
+        return Vector.project(ix[k], iy[k], heading[k], px, py);
+    }
+    
+    /**
+     * Return the deviation of a given point from element k, as NavPath.crossTrackError() gives its magnitude.
+     */
+    public double crossTrack(int k, double px, double py) {
+        if (type[k] == ARC) {
+            return Arc.radialError(cx[k], cy[k], radius[k], px, py);
+        }
+        if (type[k] == SPLINE) {
+            return spline[k].crossTrack(px, py);
+        }
+        return Vector.crossTrack(ox[k], oy[k], heading[k], px, py);
+    }
+    
+    /**
+     * Return the deviation of a given point from element k, as crossTrack() gives it, signed:
+     * positive to the left of the element, relative to its heading, and negative to the right.
+     */
+    public double lateralError(int k, double px, double py) {
+        if (type[k] == ARC) {
+            // left of a counter-clockwise Arc is inside it
+            double error = Arc.radialError(cx[k], cy[k], radius[k], px, py);
+            return isClockwise(k) ? error : 0.0 - error;
+        }
+        if (type[k] == SPLINE) {
+            double t = spline[k].nearestParameter(px, py);
+            double h = spline[k].headingAt(t);
+            return (py - spline[k].y(t))*Math.cos(h) - (px - spline[k].x(t))*Math.sin(h);
+        }
+        return (py - iy[k])*Math.cos(heading[k]) - (px - ix[k])*Math.sin(heading[k]);
+    }
+
+    /**
+     * Return the heading of element k where a given point projects onto it.
+     */
+    public double headingAt(int k, double px, double py) {
+        if (type[k] == ARC) {
+            return Arc.tangentAt(cx[k], cy[k], isClockwise(k), px, py);
+        }
+        if (type[k] == SPLINE) {
+            return spline[k].headingAt(spline[k].nearestParameter(px, py));
+        }
+        return heading[k];
+    }
+    
+    /**
+     * Return the curvature of element k where a given point projects onto it:
+     * positive turning left (counter-clockwise), negative turning right.
+     */
+    public double curvatureAt(int k, double px, double py) {
+        if (type[k] == ARC) {
+            return isClockwise(k) ? -1.0/radius[k] : 1.0/radius[k];
+        }
+        if (type[k] == SPLINE) {
+            return spline[k].curvatureAtParameter(spline[k].nearestParameter(px, py));
+        }
+        return 0.0;
+    }
+
+    /**
+     * Return the orientation of the robot relative to the heading of element k at a given
+     * distance along it, as NavPath.orientationAt() gives it.
+     */
+    public double orientationAt(int k, double s) {
+        if (turn[k] == 0.0 || length[k] <= 0.0) { return orientation[k]; }
+        return orientation[k] + turn[k]*Math.max(0.0, Math.min(1.0, s/length[k]));
+    }
+
+    /**
+     * Return the point at a given distance along element k, as NavPath.poseAt() gives it.
+     * @param xy - filled with { x, y }
+     */
+    public void pointAt(int k, double s, double[] xy) {
+        s = Math.max(0.0, Math.min(length[k], s));
+        if (type[k] == ARC) {
+            if (radius[k] <= 0.0) {
+                xy[0] = ix[k];
+                xy[1] = iy[k];
+                return;
+            }
+            double angle = startAngle[k] + (isClockwise(k) ? -s : s) / radius[k];
+            xy[0] = cx[k] + radius[k]*Math.cos(angle);
+            xy[1] = cy[k] + radius[k]*Math.sin(angle);
+            return;
+        }
+        if (type[k] == SPLINE) {
+            Point pt = spline[k].poseAt(s).pt;
+            xy[0] = pt.x;
+            xy[1] = pt.y;
+            return;
+        }
+        xy[0] = ix[k] + s*Math.cos(heading[k]);
+        xy[1] = iy[k] + s*Math.sin(heading[k]);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= type.length) { return; }
+        int n = Math.max(capacity, 2*type.length);
+        type = Arrays.copyOf(type, n);
+        flags = Arrays.copyOf(flags, n);
+        ix = Arrays.copyOf(ix, n);
+        iy = Arrays.copyOf(iy, n);
+        iHeading = Arrays.copyOf(iHeading, n);
+        iOrientation = Arrays.copyOf(iOrientation, n);
+        ox = Arrays.copyOf(ox, n);
+        oy = Arrays.copyOf(oy, n);
+        oHeading = Arrays.copyOf(oHeading, n);
+        oOrientation = Arrays.copyOf(oOrientation, n);
+        orientation = Arrays.copyOf(orientation, n);
+        turn = Arrays.copyOf(turn, n);
+        length = Arrays.copyOf(length, n);
+        heading = Arrays.copyOf(heading, n);
+        cx = Arrays.copyOf(cx, n);
+        cy = Arrays.copyOf(cy, n);
+        radius = Arrays.copyOf(radius, n);
+        startAngle = Arrays.copyOf(startAngle, n);
+        endAngle = Arrays.copyOf(endAngle, n);
+        msg = Arrays.copyOf(msg, n);
+        spline = Arrays.copyOf(spline, n);
+    }
+
+    /**
+     * Class constructor.
+     * @param capacity - number of path elements to make room for
+     */
+    public PathBuffer(int capacity) {
+        int n = Math.max(1, capacity);
+        type = new byte[n];
+        flags = new byte[n];
+        ix = new double[n];
+        iy = new double[n];
+        iHeading = new double[n];
+        iOrientation = new double[n];
+        ox = new double[n];
+        oy = new double[n];
+        oHeading = new double[n];
+        oOrientation = new double[n];
+        orientation = new double[n];
+        turn = new double[n];
+        length = new double[n];
+        heading = new double[n];
+        cx = new double[n];
+        cy = new double[n];
+        radius = new double[n];
+        startAngle = new double[n];
+        endAngle = new double[n];
+        msg = new String[n];
+        spline = new Spline[n];
+    }
+
+    public PathBuffer() {
+        this(16);
+    }
+}
@@ -0,0 +1,104 @@
+package waypoint;
+
+import java.util.Map;
+
+/**
+ * Interface to a closed-loop path follower for the simulation, which corrects the robot's
+ * travel by its deviation from the path each cycle of the control loop.
+ *
+ * A controller steers the robot's travel as it would a robot that drives only forward and turns:
+ * it commands a speed along the robot's travel heading and a rate of turn of that heading. A tank
+ * drive's travel heading is the way it faces, or the opposite way along a reversal; a holonomic
+ * robot's is the direction it moves in, which it turns without turning the way it faces.
+ *
+ * The settings file chooses the controller with SIM_CONTROLLER:
+ *   NONE          (default) - no controller: the open-loop follower of SimPath
+ *   PID                     - PID on the cross-track error, with heading error and curvature feedforward
+ *   PURE_PURSUIT            - steer onto the arc through a point a lookahead distance along the path
+ *   RAMSETE                 - nonlinear feedback on the error of the robot's pose from the path's
+ * and the gains each controller documents, which are optional. SIM_SPEED sets the speed a
+ * controller drives at, as a fraction of full speed; 1.0 by default.
+ */
+public interface PathController {
+
+    /**
+     * Return the name of this controller, as the settings file's SIM_CONTROLLER gives it.
+     */
+    String name();
+
+    /**
+     * Forget what was learned following a path, before following another.
+     */
+    void reset();
+
+    /**
+     * Command the robot's travel for the next cycle of the control loop.
+     * @param path    - path being followed
+     * @param pathPt  - robot's position, indexed to the path element it is following
+     * @param travel  - heading the robot travels along, in radians
+     * @param error   - deviation of the robot from the path element: magnitude is the cross-track
+     *                  error, positive with the robot to the left of the path, and heading is the
+     *                  path's heading less the robot's travel heading
+     * @param speed   - fastest the robot travels, in inches per second
+     * @param dt      - time until the next cycle, in seconds
+     * @param command - filled with { speed in inches per second, turn rate in radians per second }
+     */
+    void command(PathBuffer path, PathPoint pathPt, double travel, Vector error, double speed, double dt, double[] command);
+
+    /**
+     * Return the controller a settings file chooses with SIM_CONTROLLER, with the gains it gives;
+     * null, for SimPath's open-loop follower, if it chooses none.
+     * @param parameters - Map of settings parameters; may be null
+     */
+    static PathController fromSettings(Map<String, String> parameters) {
+        if (parameters == null) { return null; }
+        String kind = parameters.getOrDefault("SIM_CONTROLLER", "NONE").trim();
+        if (kind.equals(PidController.NAME)) {
+            return new PidController(gain(parameters, "SIM_PID_KP", PidController.DEFAULT_KP),
+                                     gain(parameters, "SIM_PID_KI", PidController.DEFAULT_KI),
+                                     gain(parameters, "SIM_PID_KD", PidController.DEFAULT_KD),
+                                     gain(parameters, "SIM_PID_KH", PidController.DEFAULT_KH));
+        }
+        if (kind.equals(PurePursuitController.NAME)) {
+            return new PurePursuitController(gain(parameters, "SIM_LOOKAHEAD", PurePursuitController.DEFAULT_LOOKAHEAD));
+        }
+        if (kind.equals(RamseteController.NAME)) {
+            return new RamseteController(gain(parameters, "SIM_RAMSETE_B", RamseteController.DEFAULT_B),
+                                         gain(parameters, "SIM_RAMSETE_ZETA", RamseteController.DEFAULT_ZETA));
+        }
+        if (!kind.equals("NONE")) {
+            System.out.println("Unknown SIM_CONTROLLER: "+kind+", using NONE");
+        }
+        return null;
+    }
+
+    /**
+     * Return the speed a settings file sets with SIM_SPEED for a controller to drive at, as a
+     * fraction of full speed: above 0.0 and at most 1.0, and 1.0 if it sets none.
+     * @param parameters - Map of settings parameters; may be null
+     */
+    static double speed(Map<String, String> parameters) {
+        if (parameters == null) { return 1.0; }
+        double speed = gain(parameters, "SIM_SPEED", 1.0);
+        if (speed <= 0.0 || speed > 1.0) {
+            System.out.println("SIM_SPEED is not above 0.0 and at most 1.0: "+speed+", using 1.0");
+            return 1.0;
+        }
+        return speed;
+    }
+
+    /**
+     * Return the non-negative number a settings file gives for a gain, or a default if it gives none.
+     */
+    static double gain(Map<String, String> parameters, String key, double value) {
+        if (!parameters.containsKey(key)) { return value; }
+        try {
+            double given = Double.parseDouble(parameters.get(key).trim());
+            if (given >= 0.0) { return given; }
+        }
+        catch (NumberFormatException e) {
+        }
+        System.out.println(key+" is not a non-negative number: "+parameters.get(key)+", using "+value);
+        return value;
+    }
+}
@@ -0,0 +1,63 @@
+package waypoint;  
+
+import java.util.List;
+
+/**
+ * Measures of how expensive a path is to drive, used to compare candidate paths.
+ *   LENGTH - distance traveled by the path's reference point, in inches
+ *   TIME   - estimated drive time, in seconds, with the outer side of the robot at the
+ *            speed it travels forward at full power, as the CalcOptions give the robot
+ * A path containing a Gap cannot be driven and costs Double.POSITIVE_INFINITY.
+ */
+public enum PathCost {
+
+    LENGTH,
+    TIME;
+
+    // Cost of a connection left with a Gap, so connections still rank by how many Gaps they leave
+    public static final double GAP_PENALTY = 1.0e6;
+
+    /**
+     * Return the cost of a given path under this measure.
+     * @param options - options the path was solved with, which give the robot's speed and width
+     */
+    public double of(List<NavPath> path, CalcOptions options) {
+        if (CalcPath.hasGap(path)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (this == LENGTH) {
+            return CalcPath.pathLength(path);
+        }
+        double time = 0.0;
+        for (NavPath p : path) {
+            // The outer wheels run at full power on the outer side of an Arc,
+            // which also covers turning in place on an Arc of radius 0.0.
+            time += p.trackLength(p.outerSide(0.5*options.trackWidth, 0.5*options.trackWidth)) / options.fullSpeed;
+        }
+        return time;
+    }
+
+    /**
+     * Return the cost of connecting two NavPoints under this measure, where a Gap costs GAP_PENALTY.
+     * The intermediate waypoint search is left out: optimizers evaluate far too many
+     * connections to run it for each of them.
+     */
+    public double ofConnection(CalcPath calcPath, CalcOptions options, NavPoint npt1, NavPoint npt2) {
+        double c = of(calcPath.resolveConnection(npt1, npt2, options, false), options);
+        return Double.isInfinite(c) ? GAP_PENALTY : c;
+    }
+
+    /**
+     * Return the PathCost named by a settings value, or a default if the value is missing or unknown.
+     */
+    public static PathCost fromSetting(String value, PathCost defaultCost) {
+        if (value == null) { return defaultCost; }
+        try {
+            return PathCost.valueOf(value.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException e) {
+            System.out.println("Unknown path cost: "+value+", using "+defaultCost);
+            return defaultCost;
+        }
+    }
+}
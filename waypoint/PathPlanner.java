@@ -0,0 +1,206 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Class to plan a way around the solid field elements between two NavPoints,
+ * for connections that CalcPath would otherwise drive straight through an obstacle.
+ */
+public class PathPlanner {
+
+    // Planning is A* over a state lattice: the path reference point on a grid of PLAN_CELL
+    // cells, and the robot heading in one of eight directions 45 degrees apart. From each
+    // state the robot may move one cell ahead, or turn 45 degrees while moving one cell into
+    // the new direction. A state is free if the robot's footprint, turned to the state's
+    // heading, is clear of the field. Which states are free only depends on the field and
+    // the robot, so it is found once, when the planner is made.
+    //
+    // The search is guided by the straight distance to the goal cell and stops at the first
+    // state to reach the goal cell at the heading nearest the goal's. Every few states along the planned route become
+    // intermediate NavPoints, and the existing Vector/Arc solver connects as few of them
+    // as it can while keeping clear of every obstacle.
+
+    private static final double PLAN_CELL = 2.0;     // inches
+    private static final int    HEADINGS = 8;
+    private static final int    CHAIN_SPACING = 4;   // states of the route between intermediate NavPoints
+    private static final double TURN_PENALTY = 2.0;  // inches added to the cost of each 45 degree turn
+    private static final int[]  DX = { 1, 1, 0, -1, -1, -1,  0,  1 };
+    private static final int[]  DY = { 0, 1, 1,  1,  0, -1, -1, -1 };
+
+    private CollisionChecker checker;
+    private double originX;
+    private double originY;
+    private int    columns;
+    private int    rows;
+    private boolean[] free;      // free[(row*columns + column)*HEADINGS + heading]
+
+    private static final String DIAG = "PathPlanner";  // source of this class's diagnostics
+
+    /**
+     * Return true if the robot runs into the field anywhere along a path.
+     */
+    public boolean collides(List<NavPath> path) {
+        return (checker.checkPath(path) != null);
+    }
+
+    /**
+     * Connect two NavPoints by way of intermediate NavPoints planned around the field's obstacles.
+     * @param calcPath - path calculator that connects the planned NavPoints
+     * @param options  - options to connect the planned NavPoints with
+     * @param npt1     - Initial NavPoint
+     * @param npt2     - Final NavPoint
+     * return          - List of NavPaths clear of obstacles; null if no clear way is found
+     */
+    public List<NavPath> planConnection(CalcPath calcPath, CalcOptions options, NavPoint npt1, NavPoint npt2) {
+        List<NavPoint> chain = plan(npt1, npt2);
+        if (chain == null) {
+            Diagnostics.warn(DIAG, () -> "Path planner: no way around obstacles");
+            return null;
+        }
+        chain.add(npt2);
+
+        // From each NavPoint reached, connect to the farthest planned NavPoint that the solver
+        // reaches cleanly, skipping the ones in between.
+        List<NavPath> path = new ArrayList<>();
+        NavPoint at = npt1;
+        int next = 0;
+        while (next < chain.size()) {
+            List<NavPath> hop = null;
+            int reached = -1;
+            for (int k = chain.size()-1; k >= next; k--) {
+                List<NavPath> candidate = calcPath.resolveConnection(at, chain.get(k), options, false);
+                if (!CalcPath.hasGap(candidate) && !collides(candidate)) {
+                    hop = candidate;
+                    reached = k;
+                    break;
+                }
+            }
+            if (hop == null) {
+                Diagnostics.warn(DIAG, () -> "Path planner: planned NavPoints do not connect");
+                return null;
+            }
+            path.addAll(hop);
+            at = chain.get(reached);
+            next = reached+1;
+        }
+        Diagnostics.info(DIAG, () -> "Path planner: resolved with "+path.size()+" path elements");
+        return path;
+    }
+
+    /**
+     * Plan a route between two NavPoints around the field's obstacles.
+     * @return - intermediate NavPoints along the route, not including npt1 and npt2;
+     *           null if there is no route
+     */
+    public List<NavPoint> plan(NavPoint npt1, NavPoint npt2) {
+        // NavPoints off the grid, as on the field's edge, are taken to the nearest cell
+        int start = cellIndex(npt1.pt.x, npt1.pt.y);
+        int goal  = cellIndex(npt2.pt.x, npt2.pt.y);
+        int startHeading = headingIndex(npt1.heading);
+        int goalState = goal*HEADINGS + headingIndex(npt2.heading);
+        // the search ends at the goal cell, so distances are measured to its center
+        double goalX = cellX(goal);
+        double goalY = cellY(goal);
+
+        int states = columns*rows*HEADINGS;
+        double[] cost = new double[states];
+        int[] from = new int[states];
+        Arrays.fill(cost, Double.MAX_VALUE);
+        PriorityQueue<double[]> open = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        int s0 = start*HEADINGS + startHeading;
+        cost[s0] = 0.0;
+        from[s0] = -1;
+        open.add(new double[] { heuristic(start, goalX, goalY), s0 });
+        int found = -1;
+        while (!open.isEmpty()) {
+            double[] top = open.poll();
+            int s = (int) top[1];
+            int cell = s / HEADINGS;
+            if (top[0] > cost[s] + heuristic(cell, goalX, goalY) + 1.0e-9) { continue; } // stale entry
+            if (s == goalState) {
+                found = s;
+                break;
+            }
+            int h = s % HEADINGS;
+            int c = cell % columns;
+            int r = cell / columns;
+            for (int turn = -1; turn <= 1; turn++) {
+                int nh = (h + turn + HEADINGS) % HEADINGS;
+                int nc = c + DX[nh];
+                int nr = r + DY[nh];
+                if (nc < 0 || nc >= columns || nr < 0 || nr >= rows) { continue; }
+                int ncell = nr*columns + nc;
+                int ns = ncell*HEADINGS + nh;
+                // the goal cell is always entered, as the goal itself may sit off the lattice
+                if (!free[ns] && ncell != goal) { continue; }
+                double step = ((DX[nh] != 0 && DY[nh] != 0) ? Math.sqrt(2.0) : 1.0) * PLAN_CELL;
+                double c2 = cost[s] + step + ((turn != 0) ? TURN_PENALTY : 0.0);
+                if (c2 < cost[ns]) {
+                    cost[ns] = c2;
+                    from[ns] = s;
+                    open.add(new double[] { c2 + heuristic(ncell, goalX, goalY), ns });
+                }
+            }
+        }
+        if (found < 0) { return null; }
+
+        // Walk back along the route, and take every CHAIN_SPACING-th state as an intermediate NavPoint.
+        List<Integer> route = new ArrayList<>();
+        for (int s = found; s >= 0; s = from[s]) {
+            route.add(0, s);
+        }
+        List<NavPoint> chain = new ArrayList<>();
+        for (int k = CHAIN_SPACING; k < route.size()-1; k += CHAIN_SPACING) {
+            int cell = route.get(k) / HEADINGS;
+            chain.add(new NavPoint(new Point(cellX(cell), cellY(cell)), 2.0*Math.PI * (route.get(k) % HEADINGS) / HEADINGS));
+        }
+        return chain;
+    }
+
+    private double heuristic(int cell, double goalX, double goalY) {
+        return Math.hypot(cellX(cell) - goalX, cellY(cell) - goalY);
+    }
+
+    private double cellX(int cell) {
+        return originX + (cell % columns + 0.5)*PLAN_CELL;
+    }
+
+    private double cellY(int cell) {
+        return originY + (cell / columns + 0.5)*PLAN_CELL;
+    }
+
+    private int cellIndex(double x, double y) {
+        int c = (int) Math.floor((x - originX) / PLAN_CELL);
+        int r = (int) Math.floor((y - originY) / PLAN_CELL);
+        c = Math.max(0, Math.min(columns-1, c));
+        r = Math.max(0, Math.min(rows-1, r));
+        return r*columns + c;
+    }
+
+    private static int headingIndex(double heading) {
+        int h = (int) Math.round(heading / (2.0*Math.PI / HEADINGS));
+        return ((h % HEADINGS) + HEADINGS) % HEADINGS;
+    }
+
+    /**
+     * Class constructor.
+     * @param clearanceField - clearance of the field, whose grid the planning grid covers
+     * @param checker        - collision checker of the same field and the robot
+     */
+    public PathPlanner(ClearanceField clearanceField, CollisionChecker checker) {
+        this.checker = checker;
+        this.originX = clearanceField.originX;
+        this.originY = clearanceField.originY;
+        this.columns = Math.max(1, (int) Math.ceil(clearanceField.columns*clearanceField.resolution / PLAN_CELL));
+        this.rows    = Math.max(1, (int) Math.ceil(clearanceField.rows*clearanceField.resolution / PLAN_CELL));
+        free = new boolean[columns*rows*HEADINGS];
+        for (int cell = 0; cell < columns*rows; cell++) {
+            for (int h = 0; h < HEADINGS; h++) {
+                free[cell*HEADINGS + h] = checker.isClear(cellX(cell), cellY(cell), 2.0*Math.PI * h / HEADINGS);
+            }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Post-pass over a computed path that leaves fewer, longer elements for the robot to follow,
+ * each element costing the robot's path follower a transition:
+ *   - consecutive elements are merged where the first, continued to the end of the second,
+ *     keeps within the tolerance of both, as colinear Vectors and Arcs about the same center do
+ *   - elements shorter than the tolerance that hardly turn, such as tiny Vectors and Arcs of
+ *     radius 0.0 at coincident NavPoints with the same heading, are dropped
+ *   - sharp corners between Vectors are rounded off with an Arc, the fillet, that stays
+ *     within the tolerance of the corner
+ * Elements are never merged across a stop, a Gap or a turn in place, and strafing Vectors, along
+ * which the robot does not face its direction of travel, are not filleted. An element is dropped
+ * only where the next one can be rebuilt to start exactly where the last one ended, so the path
+ * stays continuous; the last element of the path is never dropped.
+ */
+public final class PathSmoother {
+
+    private static final double HEADING_TOLERANCE = Math.PI/180.0;   // headings within a degree are the same
+
+    /**
+     * Outcome of smoothing a path: the smoothed path and what was done to it.
+     */
+    public static final class Result {
+        final List<NavPath> path;
+        final int merged;     // elements merged into the one before them
+        final int dropped;    // elements dropped as negligible
+        final int filleted;   // Arcs added at sharp corners
+
+        Result(List<NavPath> path, int merged, int dropped, int filleted) {
+            this.path = path;
+            this.merged = merged;
+            this.dropped = dropped;
+            this.filleted = filleted;
+        }
+
+        /**
+         * Return the number of elements removed from the path, by merging or dropping them.
+         */
+        public int removed() {
+            return merged + dropped;
+        }
+
+        public String toString() {
+            return "Smoothing removed "+removed()+" path elements ("+merged+" merged, "+dropped+" dropped)"+
+                   " and added "+filleted+" fillets: "+path.size()+" elements";
+        }
+    }
+
+    /**
+     * Return a path smoothed within a given position tolerance. The elements of the given
+     * path are not changed.
+     * @param path      - path to smooth
+     * @param tolerance - how far, in inches, the smoothed path may stray from the given one
+     */
+    public static Result smooth(List<NavPath> path, double tolerance) {
+        List<NavPath> out = new ArrayList<>();
+        int merged = 0;
+        int dropped = 0;
+        NavPath negligible = null;   // element held back, dropped if the next one can start where the last one ends
+        for (NavPath p : path) {
+            NavPath last = out.isEmpty() ? null : out.get(out.size()-1);
+            if (negligible != null) {
+                NavPath next = p.startingAt(last.o);
+                if (next != null && Point.distance(next.poseAt(0.0).pt, last.o.pt) < 0.000001) {
+                    if (negligible.stop && !last.stop) {
+                        last = last.copy();
+                        last.stop = true;
+                        out.set(out.size()-1, last);
+                    }
+                    p = next;
+                    dropped++;
+                }
+                else {
+                    out.add(negligible);
+                    last = negligible;
+                }
+                negligible = null;
+            }
+            if (last != null && !last.isGap() && isNegligible(p, tolerance)) {
+                negligible = p;
+                continue;
+            }
+            NavPath joined = (last == null) ? null : merge(last, p, tolerance);
+            if (joined != null) {
+                out.set(out.size()-1, joined);
+                merged++;
+                continue;
+            }
+            out.add(p);
+        }
+        if (negligible != null) {
+            out.add(negligible);
+        }
+
+        List<NavPath> smoothed = new ArrayList<>();
+        int filleted = 0;
+        for (NavPath p : out) {
+            NavPath last = smoothed.isEmpty() ? null : smoothed.get(smoothed.size()-1);
+            List<NavPath> corner = (last == null) ? null : fillet(last, p, tolerance);
+            if (corner != null) {
+                smoothed.remove(smoothed.size()-1);
+                smoothed.addAll(corner);
+                filleted++;
+                continue;
+            }
+            smoothed.add(p);
+        }
+        return new Result(smoothed, merged, dropped, filleted);
+    }
+
+    // True if a path element is too short to be worth a transition, and turns by too little,
+    // along it or between the headings of its NavPoints, for dropping it to bend the path
+    private static boolean isNegligible(NavPath p, double tolerance) {
+        return !p.isGap() && p.length() < tolerance && Math.abs(p.headingChange()) <= HEADING_TOLERANCE &&
+               Math.abs(turn(p.i.heading, p.o.heading)) <= HEADING_TOLERANCE;
+    }
+
+    // Return a single element doing the work of two consecutive ones; null if they don't merge.
+    // The first element, rebuilt to the end of the second, must reach it exactly, pass within
+    // the tolerance of both, leave and arrive along their headings, and turn less than a full circle.
+    private static NavPath merge(NavPath a, NavPath b, double tolerance) {
+        if (a.stop || Math.abs(a.orientation - b.orientation) > 0.000001 || a.turn != 0.0 || b.turn != 0.0 ||
+            Point.distance(a.o.pt, b.i.pt) > tolerance ||
+            a.isGap() || b.isGap() || a.isTurnInPlace() || b.isTurnInPlace() ||
+            Math.abs(a.headingChange()) + Math.abs(b.headingChange()) >= 2.0*Math.PI) {
+            return null;
+        }
+        NavPath joined = a.endingAt(b.o);
+        if (joined == null ||
+            Point.distance(joined.poseAt(joined.length()).pt, b.o.pt) > 0.000001 ||
+            Math.abs(turn(a.poseAt(0.0).heading, joined.poseAt(0.0).heading)) > HEADING_TOLERANCE ||
+            Math.abs(turn(b.poseAt(b.length()).heading, joined.poseAt(joined.length()).heading)) > HEADING_TOLERANCE ||
+            offPath(joined, a.poseAt(0.5*a.length()).pt) > tolerance ||
+            offPath(joined, a.o.pt) > tolerance ||
+            offPath(joined, b.poseAt(0.5*b.length()).pt) > tolerance) {
+            return null;
+        }
+        joined.stop = b.stop;
+        return joined;
+    }
+
+    // Return the distance of a point from the nearest point of a path element
+    private static double offPath(NavPath p, Point pt) {
+        double s = Math.max(0.0, Math.min(p.length(), p.project(pt)));
+        return Point.distance(pt, p.poseAt(s).pt);
+    }
+
+    // Return the elements that replace two straight elements meeting at a sharp corner: the
+    // elements cut short, with an Arc tangent to both between them; null if there is no corner
+    // to fillet
+    private static List<NavPath> fillet(NavPath a, NavPath b, double tolerance) {
+        if (!a.isStraight() || !b.isStraight() || a.stop ||
+            Math.abs(a.orientation - b.orientation) > 0.000001 || a.turn != 0.0 || b.turn != 0.0 ||
+            Point.distance(a.o.pt, b.i.pt) > 0.000001 ||
+            isStrafe(a) || isStrafe(b)) {
+            return null;
+        }
+        double headingA = a.poseAt(0.0).heading;
+        double headingB = b.poseAt(0.0).heading;
+        double theta = turn(headingA, headingB);
+        if (Math.abs(theta) <= HEADING_TOLERANCE || Math.abs(theta) >= Math.PI - HEADING_TOLERANCE) {
+            return null;
+        }
+        // The fillet of radius r leaves each element r*tan(theta/2) short of the corner, and its
+        // middle passes r*(1/cos(theta/2) - 1) inside the corner, which is kept to the tolerance.
+        double half = Math.abs(theta)/2.0;
+        double radius = tolerance / (1.0/Math.cos(half) - 1.0);
+        double cut = radius * Math.tan(half);
+        double room = Math.min(a.length(), b.length());
+        if (cut > room) {
+            cut = room;
+            radius = cut / Math.tan(half);
+        }
+        Point corner = a.o.pt;
+        Point t1 = new Point(corner.x - cut*Math.cos(headingA), corner.y - cut*Math.sin(headingA));
+        Point t2 = new Point(corner.x + cut*Math.cos(headingB), corner.y + cut*Math.sin(headingB));
+        boolean clockwise = (theta < 0.0);
+        double normal = headingA + (clockwise ? -Math.PI/2.0 : Math.PI/2.0);
+        Point center = new Point(t1.x + radius*Math.cos(normal), t1.y + radius*Math.sin(normal));
+
+        List<NavPath> elements = new ArrayList<>();
+        if (a.length() - cut > 0.000001) {
+            elements.add(a.endingAt(new NavPoint(t1, headingA, a.orientation, false)));
+        }
+        Arc arc = new Arc(center.x, center.y, radius, Point.radianAngle(center, t1), Point.radianAngle(center, t2), clockwise);
+        arc.i = new NavPoint(t1, headingA, a.orientation, false);
+        arc.o = new NavPoint(t2, headingB, b.orientation, false);
+        arc.orientation = a.orientation;
+        elements.add(arc);
+        if (b.length() - cut > 0.000001) {
+            elements.add(b.startingAt(new NavPoint(t2, headingB, b.orientation, false)));
+        }
+        else {
+            arc.stop = b.stop;
+        }
+        return elements;
+    }
+
+    // True if the robot does not face along a straight element, but strafes along it
+    private static boolean isStrafe(NavPath p) {
+        double heading = p.poseAt(0.0).heading;
+        return Math.abs(Math.sin(p.orientation)) > Math.sin(HEADING_TOLERANCE) ||
+               Math.abs(turn(heading, p.i.heading)) > HEADING_TOLERANCE ||
+               Math.abs(turn(heading, p.o.heading)) > HEADING_TOLERANCE;
+    }
+
+    // Return the turn from one heading to another, from -PI to PI
+    private static double turn(double from, double to) {
+        return Math.atan2(Math.sin(to - from), Math.cos(to - from));
+    }
+
+    private PathSmoother() {
+    }
+}
@@ -0,0 +1,182 @@
+package waypoint;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class to carry a computed path to the other start positions of a symmetric field,
+ * by mirroring or rotating it about the field's centerlines instead of recomputing it.
+ */
+public class PathTransform {
+
+    // Kinds of transforms, about the center (cx, cy) of the field:
+    //   IDENTITY   - the path as computed
+    //   MIRROR_X   - x mirrored across the vertical centerline:   (x,y) -> (2cx-x, y)
+    //   MIRROR_Y   - y mirrored across the horizontal centerline: (x,y) -> (x, 2cy-y)
+    //   ROTATE_180 - rotated half a turn about the field center:  (x,y) -> (2cx-x, 2cy-y)
+    //
+    // Every Vector and Arc maps exactly onto a Vector or Arc. A mirror turns headings and
+    // the angles of Arcs about their centers the other way, so clockwise Arcs become
+    // counter-clockwise, and the robot's orientation relative to its heading changes sign.
+    // A rotation adds half a turn to every heading and angle and keeps the rest.
+    public enum Kind { IDENTITY, MIRROR_X, MIRROR_Y, ROTATE_180 }
+
+    Kind   kind;
+    double cx;  // center of the field
+    double cy;
+
+    /**
+     * Return a point transformed.
+     */
+    public Point apply(Point pt) {
+        switch (kind) {
+            case MIRROR_X:   return new Point(2.0*cx - pt.x, pt.y);
+            case MIRROR_Y:   return new Point(pt.x, 2.0*cy - pt.y);
+            case ROTATE_180: return new Point(2.0*cx - pt.x, 2.0*cy - pt.y);
+            default:         return new Point(pt.x, pt.y);
+        }
+    }
+
+    /**
+     * Return a direction, in radians, transformed. This serves for headings and for
+     * the angles of points on an Arc about its center alike.
+     */
+    public double applyAngle(double angle) {
+        double a;
+        switch (kind) {
+            case MIRROR_X:   a = Math.PI - angle; break;
+            case MIRROR_Y:   a = 0.0 - angle;     break;
+            case ROTATE_180: a = angle + Math.PI; break;
+            default:         return angle;
+        }
+        return Math.atan2(Math.sin(a), Math.cos(a));
+    }
+
+    /**
+     * Return a robot orientation, relative to its heading, transformed.
+     */
+    public double applyOrientation(double orientation) {
+        return isMirror() ? 0.0 - orientation : orientation;
+    }
+
+    /**
+     * Return true if this transform mirrors, reversing the sense of turns.
+     */
+    public boolean isMirror() {
+        return (kind == Kind.MIRROR_X) || (kind == Kind.MIRROR_Y);
+    }
+
+    /**
+     * Return a NavPoint transformed.
+     */
+    public NavPoint apply(NavPoint npt) {
+        return new NavPoint(apply(npt.pt), applyAngle(npt.heading), applyOrientation(npt.orientation), npt.stop);
+    }
+
+    /**
+     * Return a path element transformed.
+     */
+    public NavPath apply(NavPath p) {
+        NavPath t;
+        if (p instanceof Vector) {
+            Vector v = (Vector) p;
+            Vector tv = new Vector(apply(v.i), apply(v.o));
+            tv.heading = applyAngle(v.heading);
+            t = tv;
+        }
+        else if (p instanceof Arc) {
+            Arc a = (Arc) p;
+            Point c = apply(a.center);
+            boolean clockwise = isMirror() ? !a.clockwise : a.clockwise;
+            Arc ta = new Arc(c.x, c.y, a.radius, applyAngle(a.startAngle), applyAngle(a.endAngle), clockwise);
+            ta.length = a.length;
+            ta.i = apply(a.i);
+            ta.o = apply(a.o);
+            t = ta;
+        }
+        else if (p instanceof Spline) {
+            // A Spline is set by its NavPoints, and is carried with them
+            t = new Spline(apply(p.i), apply(p.o));
+        }
+        else {
+            Gap g = (Gap) p;
+            t = new Gap(apply(g.i), apply(g.o), g.msg);
+        }
+        t.stop = p.stop;
+        t.orientation = applyOrientation(p.orientation);
+        t.turn = applyOrientation(p.turn);
+        return t;
+    }
+
+    /**
+     * Return a path transformed, element by element.
+     */
+    public List<NavPath> applyPath(List<NavPath> path) {
+        if (path == null) { return null; }
+        List<NavPath> transformed = new ArrayList<>();
+        for (NavPath p : path) {
+            transformed.add(apply(p));
+        }
+        return transformed;
+    }
+
+    /**
+     * Return a List of NavPoints transformed.
+     */
+    public List<NavPoint> applyNavPoints(List<NavPoint> navpoints) {
+        if (navpoints == null) { return null; }
+        List<NavPoint> transformed = new ArrayList<>();
+        for (NavPoint npt : navpoints) {
+            transformed.add(apply(npt));
+        }
+        return transformed;
+    }
+
+    /**
+     * Return a computed path carried to every start position of a field, by kind of transform.
+     * The path is computed once; each other start position only costs a transform.
+     * @param path          - path computed for the NavPoints as given (IDENTITY)
+     * @param fieldGraphics - field graphics giving the FIELD whose center the transforms are about
+     */
+    public static Map<Kind, List<NavPath>> allSides(List<NavPath> path, List<String> fieldGraphics) {
+        Map<Kind, List<NavPath>> sides = new EnumMap<>(Kind.class);
+        for (Kind k : Kind.values()) {
+            sides.put(k, (k == Kind.IDENTITY) ? path : forField(k, fieldGraphics).applyPath(path));
+        }
+        return sides;
+    }
+
+    /**
+     * Return a transform about the center of the FIELD in a field's graphics.
+     * A field without a FIELD element is taken to be centered on (0.0, 0.0).
+     */
+    public static PathTransform forField(Kind kind, List<String> fieldGraphics) {
+        double x = 0.0;
+        double y = 0.0;
+        if (fieldGraphics != null) {
+            for (String f : fieldGraphics) {
+                String[] chunks = f.split("\\s+");
+                if (chunks[0].equals("FIELD")) {
+                    x = (Double.parseDouble(chunks[4]) + Double.parseDouble(chunks[6])) / 2.0;
+                    y = (Double.parseDouble(chunks[5]) + Double.parseDouble(chunks[7])) / 2.0;
+                    break;
+                }
+            }
+        }
+        return new PathTransform(kind, x, y);
+    }
+
+    /**
+     * Class constructor.
+     * @param kind - kind of transform
+     * @param cx   - x-coordinate of the center the transform is about
+     * @param cy   - y-coordinate of the center the transform is about
+     */
+    public PathTransform(Kind kind, double cx, double cy) {
+        this.kind = kind;
+        this.cx = cx;
+        this.cy = cy;
+    }
+}
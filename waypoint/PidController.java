@@ -0,0 +1,63 @@
+package waypoint;
+
+/**
+ * Class to follow a path with PID control of the cross-track error. The robot travels at full
+ * speed and turns as the path curves, corrected toward the path by the cross-track error, its
+ * integral and its rate of change, and toward the path's heading by the heading error.
+ *
+ * Gains, from the settings file:
+ *   SIM_PID_KP - radians per second of turn per inch of cross-track error
+ *   SIM_PID_KI - radians per second of turn per inch-second of accumulated cross-track error
+ *   SIM_PID_KD - radians per second of turn per inch per second of change of cross-track error
+ *   SIM_PID_KH - radians per second of turn per radian of heading error
+ */
+public class PidController implements PathController {
+
+    public static final String NAME = "PID";
+
+    public static final double DEFAULT_KP = 0.15;
+    public static final double DEFAULT_KI = 0.0;
+    public static final double DEFAULT_KD = 0.02;
+    public static final double DEFAULT_KH = 4.0;
+
+    private double kp, ki, kd, kh;
+
+    private double integral = 0.0;
+    private double lastError = 0.0;
+    private boolean first = true;
+
+    public String name() { return NAME; }
+
+    public void reset() {
+        integral = 0.0;
+        lastError = 0.0;
+        first = true;
+    }
+
+    public void command(PathBuffer path, PathPoint pathPt, double travel, Vector error, double speed, double dt, double[] command) {
+        double e = error.magnitude;
+        integral += e*dt;
+        double rate = first ? 0.0 : (e - lastError)/dt;
+        lastError = e;
+        first = false;
+        double headingError = Math.atan2(Math.sin(error.heading), Math.cos(error.heading));
+        // The robot to the left of the path turns right, toward it
+        command[0] = speed;
+        command[1] = speed*path.curvatureAt(pathPt.index, pathPt.pt.x, pathPt.pt.y) + kh*headingError
+                     - (kp*e + ki*integral + kd*rate);
+    }
+
+    /**
+     * Constructor
+     * @param kp - gain of the cross-track error
+     * @param ki - gain of the integral of the cross-track error
+     * @param kd - gain of the rate of change of the cross-track error
+     * @param kh - gain of the heading error
+     */
+    public PidController(double kp, double ki, double kd, double kh) {
+        this.kp = kp;
+        this.ki = ki;
+        this.kd = kd;
+        this.kh = kh;
+    }
+}
@@ -0,0 +1,60 @@
+package waypoint;
+
+/**
+ * Class to follow a path by pure pursuit: the robot steers onto the circular arc that takes it
+ * through a goal point a lookahead distance further along the path than where it is, turning
+ * at full speed as that arc curves. A longer lookahead follows more smoothly but cuts corners.
+ *
+ * Gain, from the settings file:
+ *   SIM_LOOKAHEAD - inches along the path from the robot to the goal point
+ */
+public class PurePursuitController implements PathController {
+
+    public static final String NAME = "PURE_PURSUIT";
+
+    public static final double DEFAULT_LOOKAHEAD = 8.0;
+    public static final double MAX_BEND = Math.toRadians(10.0);   // largest turn where elements join that is not a corner
+
+    private double lookahead;
+    private double[] goal = new double[2];
+
+    public String name() { return NAME; }
+
+    public void reset() {
+    }
+
+    public void command(PathBuffer path, PathPoint pathPt, double travel, Vector error, double speed, double dt, double[] command) {
+        // Walk the lookahead distance along the path, onto the elements that follow if need be;
+        // the goal stays where the robot stops, or at a corner, so it cuts no corner short
+        int k = pathPt.index;
+        double s = Math.max(0.0, path.project(k, pathPt.pt.x, pathPt.pt.y)) + lookahead;
+        while (s > path.length[k] && k < path.size()-1 && !path.isStop(k) && path.type[k+1] != PathBuffer.GAP &&
+               !isCorner(path, k)) {
+            s -= path.length[k];
+            k++;
+        }
+        path.pointAt(k, s, goal);
+        // The goal in the robot's travel frame: ahead and to the left
+        double dx = goal[0] - pathPt.pt.x;
+        double dy = goal[1] - pathPt.pt.y;
+        double left = dy*Math.cos(travel) - dx*Math.sin(travel);
+        double distance2 = dx*dx + dy*dy;
+        command[0] = speed;
+        command[1] = (distance2 > 0.0) ? speed*2.0*left/distance2 : 0.0;
+    }
+
+    // Return true if the path turns by more than MAX_BEND where element k ends
+    private boolean isCorner(PathBuffer path, int k) {
+        path.pointAt(k, path.length[k], goal);
+        double bend = path.startHeading(k+1) - path.headingAt(k, goal[0], goal[1]);
+        return Math.abs(Math.atan2(Math.sin(bend), Math.cos(bend))) > MAX_BEND;
+    }
+
+    /**
+     * Constructor
+     * @param lookahead - inches along the path from the robot to the goal point
+     */
+    public PurePursuitController(double lookahead) {
+        this.lookahead = (lookahead > 0.0) ? lookahead : DEFAULT_LOOKAHEAD;
+    }
+}
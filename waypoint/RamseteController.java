@@ -0,0 +1,50 @@
+package waypoint;
+
+/**
+ * Class to follow a path with the Ramsete controller, a nonlinear feedback law on the error of
+ * the robot's pose from the reference pose on the path, where the robot projects onto it. The
+ * reference travels at full speed and turns as the path curves; the robot's speed and turn rate
+ * are those of the reference, corrected by the pose error so that it converges onto the path.
+ *
+ * Gains, from the settings file:
+ *   SIM_RAMSETE_B    - aggressiveness of convergence, per square inch (2.0 per square meter is common)
+ *   SIM_RAMSETE_ZETA - damping, from 0.0 to 1.0
+ */
+public class RamseteController implements PathController {
+
+    public static final String NAME = "RAMSETE";
+
+    public static final double DEFAULT_B = 0.0013;   // 2.0 per square meter
+    public static final double DEFAULT_ZETA = 0.7;
+
+    private double b, zeta;
+
+    public String name() { return NAME; }
+
+    public void reset() {
+    }
+
+    public void command(PathBuffer path, PathPoint pathPt, double travel, Vector error, double speed, double dt, double[] command) {
+        double headingError = Math.atan2(Math.sin(error.heading), Math.cos(error.heading));
+        // The reference pose lies across the path from the robot, by the cross-track error;
+        // its position in the robot's travel frame, ahead and to the left:
+        double ex = error.magnitude*Math.sin(headingError);
+        double ey = 0.0 - error.magnitude*Math.cos(headingError);
+        double v = speed;
+        double w = speed*path.curvatureAt(pathPt.index, pathPt.pt.x, pathPt.pt.y);
+        double k = 2.0*zeta*Math.sqrt(w*w + b*v*v);
+        double sinc = (Math.abs(headingError) < 1.0e-6) ? 1.0 : Math.sin(headingError)/headingError;
+        command[0] = v*Math.cos(headingError) + k*ex;
+        command[1] = w + k*headingError + b*v*sinc*ey;
+    }
+
+    /**
+     * Constructor
+     * @param b    - aggressiveness of convergence, per square inch
+     * @param zeta - damping, from 0.0 to 1.0
+     */
+    public RamseteController(double b, double zeta) {
+        this.b = (b > 0.0) ? b : DEFAULT_B;
+        this.zeta = zeta;
+    }
+}
@@ -40,13 +40,48 @@ public class SettingsFrame extends JFrame {
         // PATH_OUTFILE path.txt
         // CALC_ALLOW_WAYPOINT_REVERSALS
         // CALC_ALLOW_STRAFE
+        // CALC_WAYPOINT_SEARCH
+        // CALC_SPLINE_CONNECTIONS false
+        // CALC_SMOOTH_TOLERANCE 0.0
+        // CALC_RESOLVE_INFEASIBLE false
+        // CALC_HOLONOMIC false
+        // CALC_MAX_TURN_RATE 180.0
+        // OPT_OBJECTIVE TIME
+        // OPT_HEADING_STEP 10
+        // OPT_HEADING_TOLERANCE 180
+        // OPT_FIX_LAST_NAVPOINT false
+        // CLEARANCE_RESOLUTION 1.0
+        // CLEARANCE_CACHE_DIR clearance
+        // DIAGNOSTICS_LEVEL INFO
+        // CALC_METRICS_DUMP_SECONDS 0
         // SIM_UNITTIME 50.0
         // SIM_PERTURBATION 0.1
         // SIM_NAVPOINTFILE sim.txt
+        // SIM_CONTROLLER NONE
+        // SIM_PID_KP 0.15
+        // SIM_PID_KI 0.0
+        // SIM_PID_KD 0.02
+        // SIM_PID_KH 4.0
+        // SIM_LOOKAHEAD 8.0
+        // SIM_RAMSETE_B 0.0013
+        // SIM_RAMSETE_ZETA 0.7
+        // SIM_SPEED 1.0
+        // SIM_ADAPTIVE false
+        // SIM_STEP_TOLERANCE 0.05
+        // SIM_MAX_UNITTIME 500.0
+        // TUNE_SEEDS 3
+        // TUNE_OUTFILE tune.txt
     private JTextField field_fileTF;
     private JTextField robot_fileTF;
     private JCheckBox calc_reversalCB;
     private JCheckBox calc_strafeCB;
+    private JCheckBox calc_searchCB;
+    private JCheckBox calc_splineCB;
+    private JTextField calc_smoothTF;
+    private JCheckBox calc_resolveCB;
+    private JCheckBox calc_holonomicCB;
+    private JTextField calc_turnRateTF;
+    private JTextField sim_controllerTF;
     private JButton updateB;
         
      
@@ -68,6 +103,13 @@ public class SettingsFrame extends JFrame {
         newParams.put("ROBOT_FILE", robot_fileTF.getText());
         newParams.put("CALC_ALLOW_WAYPOINT_REVERSALS", Boolean.toString(calc_reversalCB.isSelected()));
         newParams.put("CALC_ALLOW_STRAFE", Boolean.toString(calc_reversalCB.isSelected()));
+        newParams.put("CALC_WAYPOINT_SEARCH", Boolean.toString(calc_searchCB.isSelected()));
+        newParams.put("CALC_SPLINE_CONNECTIONS", Boolean.toString(calc_splineCB.isSelected()));
+        newParams.put("CALC_SMOOTH_TOLERANCE", calc_smoothTF.getText());
+        newParams.put("CALC_RESOLVE_INFEASIBLE", Boolean.toString(calc_resolveCB.isSelected()));
+        newParams.put("CALC_HOLONOMIC", Boolean.toString(calc_holonomicCB.isSelected()));
+        newParams.put("CALC_MAX_TURN_RATE", calc_turnRateTF.getText());
+        newParams.put("SIM_CONTROLLER", sim_controllerTF.getText());
         return newParams;
         
     }
@@ -121,6 +163,53 @@ public class SettingsFrame extends JFrame {
         calc_strafeP.add(calc_strafeCB);        
         settingsPanel.add(calc_strafeP);
         
+        // Waypoint search defaults to on if not given in the settings file
+        JPanel calc_searchP = new JPanel();
+        calc_searchP.add(new JLabel("CALC_WAYPOINT_SEARCH"));
+        calc_searchCB = new JCheckBox("", !"false".equals(parameters.get("CALC_WAYPOINT_SEARCH")));
+        calc_searchP.add(calc_searchCB);        
+        settingsPanel.add(calc_searchP);
+        
+        JPanel calc_splineP = new JPanel();
+        calc_splineP.add(new JLabel("CALC_SPLINE_CONNECTIONS"));
+        calc_splineCB = new JCheckBox("", Boolean.parseBoolean(parameters.get("CALC_SPLINE_CONNECTIONS")));
+        calc_splineP.add(calc_splineCB);        
+        settingsPanel.add(calc_splineP);
+        
+        // Smoothing is off unless a settings file gives a tolerance
+        JPanel calc_smoothP = new JPanel();
+        calc_smoothP.add(new JLabel("CALC_SMOOTH_TOLERANCE"));
+        calc_smoothTF = new JTextField(parameters.getOrDefault("CALC_SMOOTH_TOLERANCE", "0.0"));
+        calc_smoothTF.setPreferredSize(tfSize);
+        calc_smoothP.add(calc_smoothTF);        
+        settingsPanel.add(calc_smoothP);
+        
+        JPanel calc_resolveP = new JPanel();
+        calc_resolveP.add(new JLabel("CALC_RESOLVE_INFEASIBLE"));
+        calc_resolveCB = new JCheckBox("", Boolean.parseBoolean(parameters.get("CALC_RESOLVE_INFEASIBLE")));
+        calc_resolveP.add(calc_resolveCB);        
+        settingsPanel.add(calc_resolveP);
+        
+        JPanel calc_holonomicP = new JPanel();
+        calc_holonomicP.add(new JLabel("CALC_HOLONOMIC"));
+        calc_holonomicCB = new JCheckBox("", Boolean.parseBoolean(parameters.get("CALC_HOLONOMIC")));
+        calc_holonomicP.add(calc_holonomicCB);        
+        settingsPanel.add(calc_holonomicP);
+        
+        JPanel calc_turnRateP = new JPanel();
+        calc_turnRateP.add(new JLabel("CALC_MAX_TURN_RATE"));
+        calc_turnRateTF = new JTextField(parameters.getOrDefault("CALC_MAX_TURN_RATE", Double.toString(CalcOptions.DEFAULT_MAX_TURN_RATE)));
+        calc_turnRateTF.setPreferredSize(tfSize);
+        calc_turnRateP.add(calc_turnRateTF);        
+        settingsPanel.add(calc_turnRateP);
+        
+        JPanel sim_controllerP = new JPanel();
+        sim_controllerP.add(new JLabel("SIM_CONTROLLER"));
+        sim_controllerTF = new JTextField(parameters.getOrDefault("SIM_CONTROLLER", "NONE"));
+        sim_controllerTF.setPreferredSize(tfSize);
+        sim_controllerP.add(sim_controllerTF);        
+        settingsPanel.add(sim_controllerP);
+        
         updateB = new JButton("Update Settings");
         updateB.addActionListener(new ActionListener() {
             @Override
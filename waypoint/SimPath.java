@@ -2,6 +2,7 @@ package waypoint;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class to run through a path simulation.
@@ -15,26 +16,63 @@ public class SimPath {
     //     SimPath (constructor) - The dimensions of the game field are used for path error checking.
     //     updateSimPath()       - Use this method to update any parameters used in the simulation,
     //                             like path for the robot to traverse, given as an argument of List of NavPaths.
+    //     updateFollower()      - Use this method to follow the path with given settings rather than the
+    //                             settings file's, and to seed the robot's perturbation.
     //     doSimPath()           - Use this method to run a simulation of the robot traversing a path. 
+    //     getRmsError()         - Root-mean-square cross-track error of the last simulation.
+    //     getTime()             - Seconds the robot took to traverse the path in the last simulation.
+    //     completed()           - Whether the last simulation traversed the whole path.
     //  private methods:
 
-    private List<NavPath> robotIntendedPath; // Path for robot to traverse
+    private PathBuffer    robotIntendedPath; // Path for robot to traverse
     private SimRobot      simRobot;          // Instantiation of a hypothetical robot
+    private PathController controller;       // closed-loop follower the settings choose; null for the open-loop one
+    private Map<String, String> followerSettings;  // settings choosing the follower instead of the settings file's
+    private boolean seeded = false;          // true to seed the robot's perturbation
+    private long seed;
     private GameField     gameField;         // Reference to playing field the Path resides in
     
     
     private double coincidenceDistance = 0.1;    
+    private double lookaheadSteps = 3.0;      // how many steps ahead along the path a holonomic robot aims
     private double perturbationPct = 0.1;    
     private double unitTime;                  // parameter holding time between iterations of the control loop
+    private double stepDistance = 0.0;        // distance the robot travels forward at full power in unitTime
+    private double headingTolerance = Math.PI/180.0;   // how near a holonomic robot turning in place must come to facing the way it should
+    
+    // Adaptive stepping takes steps of time as long as the error of the robot's pose allows, up to
+    // maxUnitTime, and no longer than it takes to reach the end of the path element it follows.
+    // The follower then sets the motors' power once a step, as a slower control loop would.
+    private boolean adaptive = false;         // true to vary the step of time; false to step by unitTime
+    private double stepTolerance = 0.05;      // inches of error in the robot's pose allowed over a step
+    private double maxUnitTime;               // longest step of time
+    private double minUnitTime;               // shortest step of time
+    private double stepTime;                  // the step of time being taken
+    private double stepError = 0.0;           // error in the robot's pose over the last step, in inches
+    private double stepSpeed = 0.0;           // speed of the robot over the last step, in inches per ms
+    private double stepTurnRate = 0.0;        // rate the robot turned over the last step, in radians per ms
+    private double clock = 0.0;               // ms of simulated time, to the start of the step being taken
+    private double crossingTime = 0.0;        // ms of simulated time when the robot last reached the end of a path element
+    private double time = 0.0;                // seconds the robot took to traverse the path, in the last simulation
     
     // Variables to hold robot's encoder readings
-    private double leftEncoder;   
-    private double rightEncoder;
+    private double[] wheelEncoders;         // in the order of the drivetrain's motors
     private double strafeEncoder;
+    private double[] wheels = new double[4];   // scratch for the drivetrain's kinematics
+    private double[] motion = new double[3];
+    private double[] target = new double[2];
+    private double[] command = new double[2];   // { speed, turn rate } the controller commands
+    private double travelHeading;               // heading a holonomic robot travels along, under a controller
+    private double[] toStop;                    // distance from the end of each path element to the next stop
+    private double speedFraction = 1.0;         // fraction of full speed a controller drives at
+    private double rmsError = 0.0;              // root-mean-square cross-track error of the last simulation
+    private boolean completed = false;          // true if the last simulation traversed the whole path
     
     private Vector errorVector;             // placeholder for storing deviation of robot from the path
     private boolean reverse = false;
     
+    private static final String DIAG = "SimPath";  // source of this class's diagnostics
+    
     /**
      *  Calculate the positional and heading error from the path given a 
      *  navigation point of (x,y,theta) and last-known-element.
@@ -46,7 +84,32 @@ public class SimPath {
     
         // 1. Create a simulated robot. This gives something for this path simulator
         // to apply motor power levels to and to read encoder values from.
-        simRobot = new SimRobot();
+        // Its drivetrain and motors are as the robot file describes, or a tank drive with
+        // ideal motors without one.
+        simRobot = new SimRobot(Drivetrain.forRobot(gameField.myRobot), MotorModel.forRobot(gameField.myRobot));
+        if (seeded) {
+            simRobot.setSeed(seed);
+        }
+        // Its path follower is the controller the settings choose, or open-loop without one.
+        Map<String, String> settings = (followerSettings != null) ? followerSettings :
+                                       (gameField.mySettings == null) ? null : gameField.mySettings.parameters;
+        controller = PathController.fromSettings(settings);
+        speedFraction = PathController.speed(settings);
+        // It steps through time by unitTime, or adaptively if the settings choose
+        adaptive = (settings != null) && Boolean.parseBoolean(settings.get("SIM_ADAPTIVE"));
+        if (adaptive) {
+            stepTolerance = setting(settings, "SIM_STEP_TOLERANCE", 0.05);
+            maxUnitTime = Math.max(unitTime, setting(settings, "SIM_MAX_UNITTIME", 10.0*unitTime));
+            minUnitTime = 0.1*unitTime;
+        }
+        stepError = 0.0;
+        stepSpeed = 0.0;
+        stepTurnRate = 0.0;
+        clock = 0.0;
+        crossingTime = 0.0;
+        if (controller != null) {
+            controller.reset();
+        }
     
         // 2. Create a List of NavPoints. These will record the robot's poses as it
         // traverses the path.
@@ -55,33 +118,24 @@ public class SimPath {
         // 3. Determine robot's pose at start of the path
         // check to make sure the path has path elements!
         if (robotIntendedPath == null) {
-            System.out.println("Path is null, returning from SimPath");
+            Diagnostics.warn(DIAG, () -> "Path is null, returning from SimPath");
             return null;
         }
         else if (robotIntendedPath.size() == 0) {
-            System.out.println("Path has 0 elements, returning from SimPath");
+            Diagnostics.warn(DIAG, () -> "Path has 0 elements, returning from SimPath");
             return null;
         }
-        NavPath p = robotIntendedPath.get(0);
-        System.out.println("Initial path element:");
+        FlightEvents.SimPath simPathEvent = new FlightEvents.SimPath(robotIntendedPath.size());
+        PathBuffer path = robotIntendedPath;
         
-        NavPoint npt = new NavPoint(p.i);
-        if (p instanceof Gap) {
-            Gap g = (Gap) p;
-            npt.heading = Point.radianAngle(g.i.pt, g.o.pt);
-            System.out.println(g.toString());
-        }
-        else if (p instanceof Vector) {
-            Vector v = (Vector) p;
-            npt.heading = v.heading;
-            System.out.println(v.toString(true));
-        }
-        else if (p instanceof Arc) {
-            Arc a = (Arc) p;
-            if (a.clockwise) { npt.heading = a.startAngle - Math.PI/2.0; }
-            else             { npt.heading = a.startAngle + Math.PI/2.0; }
-            System.out.println(a.toString(true));
-        }         
+        // start at the first path element, heading along it;
+        // a holonomic robot faces as oriented to the path element
+        double startHeading = path.startHeading(0);
+        if (simRobot.drivetrain.isHolonomic()) {
+            startHeading += path.orientation[0];
+        }
+        NavPoint npt = new NavPoint(new Point(path.ix[0], path.iy[0]), startHeading, 0.0, path.isStartStop(0));
+        Diagnostics.debug(DIAG, () -> "Initial path element:\n"+path.get(0).toString());
         // Create a NavPoint that represents the very beginning of path.
         // Add this NavPoint to the List of recorded robot poses.
         navPoints.add(npt);
@@ -95,8 +149,35 @@ public class SimPath {
         int finalElementIndex = robotIntendedPath.size();   // The size of the List of path elements marks the end of the path
         
         // 5. Read encoders to get starting values
-        leftEncoder  = simRobot.getLeftEncoder();
-        rightEncoder = simRobot.getRightEncoder();
+        // the robot's step forward at full power; faster than its wheels for an X-drive
+        simRobot.drivetrain.inverse(1.0, 0.0, 0.0, wheels);
+        double maxWheel = 0.0;
+        for (int m = 0; m < simRobot.drivetrain.motorCount(); m++) {
+            maxWheel = Math.max(maxWheel, Math.abs(wheels[m]));
+        }
+        stepDistance = unitTime * simRobot.TICKS_PER_MS_PER_FULL_POWER / simRobot.TICKS_PER_INCH / maxWheel;
+        // A robot whose motors lag its commands may lose the path and circle without leaving the
+        // field; give up once it has had ten times as long as the path takes at full speed, and half a minute more
+        double pathLength = 0.0;
+        for (int k = 0; k < path.size(); k++) {
+            pathLength += path.length[k];
+        }
+        long maxTicks = (long) (10.0*pathLength/stepDistance + 30000.0/unitTime);
+        double maxTime = maxTicks*unitTime;
+        // Distance on from the end of each path element to where the robot next stops, for a
+        // controller to slow down for; the end of the path is a stop
+        toStop = new double[path.size()];
+        for (int k = path.size()-2; k >= 0; k--) {
+            toStop[k] = path.isStop(k) ? 0.0 : path.length[k+1] + toStop[k+1];
+        }
+        travelHeading = path.startHeading(0);
+        errorVector = calcErrorVector(path, pathPt);
+        double sumSquaredError = 0.0;
+        wheelEncoders = new double[simRobot.drivetrain.motorCount()];
+        for (int m = 0; m < wheelEncoders.length; m++) {
+            wheelEncoders[m] = simRobot.getEncoder(m);
+        }
+        strafeEncoder = simRobot.getStrafeEncoder();
         
         
         //
@@ -106,27 +187,36 @@ public class SimPath {
         //     - last path element in the path is traversed
         //     - (optional) user sets a limit to number of NavPoint generated while traversing the path
         //     - robot is determined to have gone outside the game field
+        //     - robot has run far longer than the path should take
         //
         while ((pathPt.index < finalElementIndex) &&
                //(navPoints.size() < 180) &&  // for debugging, use this to end the simulation after so many loop iterations
+               (clock < maxTime) &&
                inBounds &&
                true) {
                
+            // 0. Choose the step of time to take
+            stepTime = adaptive ? adaptiveStepTime(pathPt) : unitTime;
                
             // 1. Apply power
-            //    Note: in this simplistic model there's no error correction
-            setRobotDriveMotorPower(unitTime, robotIntendedPath.get(pathPt.index));
+            //    Note: the open-loop follower makes no error correction; a controller
+            //    corrects by the deviation from the path found in step 4
+            setRobotDriveMotorPower(stepTime, pathPt);
             
             // 2. Calculate new pose of the robot, based on encoder readings
+            PathPoint lastPt = pathPt;
             pathPt = getRobotPose(pathPt);            
             // keep for debugging
-            System.out.println(" robot pathPt: "+pathPt.toString());
+            PathPoint pose = pathPt;
+            Diagnostics.trace(DIAG, () -> " robot pathPt: "+pose.toString());
         
             // 3. Calculate which path element the robot is now following
-            pathPt = traversePath(robotIntendedPath, pathPt);
+            pathPt = traversePath(robotIntendedPath, lastPt, pathPt);
+            clock += stepTime;
                         
             // 4. Calculate the deviation from the path        
             errorVector = calcErrorVector(robotIntendedPath, pathPt);
+            sumSquaredError += errorVector.magnitude*errorVector.magnitude*stepTime;
             
             // record the robot's progress
             navPoints.add(new NavPoint(pathPt));
@@ -134,15 +224,35 @@ public class SimPath {
             inBounds = (pathPt.pt.x >= gameField.FIELD_ORIGIN_X) && (pathPt.pt.x <= (gameField.FIELD_ORIGIN_X + gameField.FIELD_WIDTH_X)) &&
                        (pathPt.pt.y >= gameField.FIELD_ORIGIN_Y) && (pathPt.pt.y <= (gameField.FIELD_ORIGIN_Y + gameField.FIELD_WIDTH_Y));
         }
+        simPathEvent.ticks = navPoints.size()-1;
+        completed = (pathPt.index >= finalElementIndex);
+        // the robot completed the path when it reached the end of the last path element
+        time = (completed ? crossingTime : clock) / 1000.0;
+        simPathEvent.completed = completed;
+        simPathEvent.seconds = time;
+        simPathEvent.minVoltage = simRobot.motors.getMinVoltage();
+        rmsError = (clock > 0.0) ? Math.sqrt(sumSquaredError/clock) : 0.0;
+        simPathEvent.rmsError = rmsError;
+        simPathEvent.commit();
         return navPoints;        
     }
         
     /**
      *  Set power levels of drive motors.
      *  @param unitTime - control loop cycle time
-     *  @param p        - 'current' path element
+     *  @param pathPt   - 'current' robot pose, indexed to the 'current' path element
      */
-    private void setRobotDriveMotorPower(double unitTime, NavPath p) { //, boolean reverse) {
+    private void setRobotDriveMotorPower(double unitTime, PathPoint pathPt) { //, boolean reverse) {
+        if (controller != null) {
+            setControlledMotorPower(unitTime, pathPt);
+            return;
+        }
+        if (simRobot.drivetrain.isHolonomic()) {
+            setHolonomicMotorPower(unitTime, pathPt);
+            return;
+        }
+        PathBuffer path = robotIntendedPath;
+        int k = pathPt.index;
         
         // For Gaps and Vectors, use the default settings:
         double leftPower  = 1.0;
@@ -151,11 +261,26 @@ public class SimPath {
         // For Arc, apply full power to exteroir side of robot to the arc center
         //     and partial power to the interior side of robot to the arc center
         // The ratio of exteror/interior power depends on the radius of the arc
-        if (p instanceof Arc) {
-            Arc a = (Arc) p;
+        if (path.type[k] == PathBuffer.ARC) {
             double maxPower = 1.0;
-            double arcPower = maxPower * ( a.radius - 0.5*simRobot.robotWidthInches ) / ( a.radius + 0.5*simRobot.robotWidthInches );
-            if (a.clockwise) {
+            double arcPower = maxPower * ( path.radius[k] - 0.5*simRobot.robotWidthInches ) / ( path.radius[k] + 0.5*simRobot.robotWidthInches );
+            if (path.isClockwise(k)) {
+                leftPower = maxPower;
+                rightPower = arcPower;
+            }
+            else {
+                leftPower = arcPower;
+                rightPower = maxPower;
+            }
+        }
+        // For Spline, do the same with the radius of curvature where the robot is along it,
+        // which changes smoothly from element to element
+        else if (path.type[k] == PathBuffer.SPLINE) {
+            double maxPower = 1.0;
+            double curvature = path.curvatureAt(k, pathPt.pt.x, pathPt.pt.y);
+            double halfWidth = 0.5*simRobot.robotWidthInches*Math.abs(curvature);
+            double arcPower = maxPower * ( 1.0 - halfWidth ) / ( 1.0 + halfWidth );
+            if (curvature < 0.0) {
                 leftPower = maxPower;
                 rightPower = arcPower;
             }
@@ -174,7 +299,181 @@ public class SimPath {
         // apply simulated movement with power to simRobot motors over some time interval
         simRobot.moveRobot(unitTime, leftPower, rightPower);
     }
+    
+    /**
+     *  Set power levels of the drive motors of a holonomic robot, which moves along the path
+     *  whichever way it faces, while turning to face as oriented to the path element:
+     *  along it, backward on a reversal, or to the side on a strafe.
+     *  @param unitTime - control loop cycle time
+     *  @param pathPt   - 'current' robot pose, indexed to the 'current' path element
+     */
+    private void setHolonomicMotorPower(double unitTime, PathPoint pathPt) {
+        PathBuffer path = robotIntendedPath;
+        int k = pathPt.index;
+        Drivetrain drivetrain = simRobot.drivetrain;
+        
+        if (path.type[k] == PathBuffer.ARC && path.radius[k] <= 0.0) {
+            turnInPlace(unitTime, pathPt);
+            return;
+        }
+        
+        // Travel toward a point a few steps ahead along the path element, which brings the robot
+        // back onto it and to its endpoint, and face as oriented to the path element where the robot is.
+        double step = stepDistance*(unitTime/this.unitTime);
+        double along = path.project(k, pathPt.pt.x, pathPt.pt.y);
+        path.pointAt(k, along + lookaheadSteps*step, target);
+        double travel = Math.atan2(target[1] - pathPt.pt.y, target[0] - pathPt.pt.x);
+        double facing = path.headingAt(k, pathPt.pt.x, pathPt.pt.y) + path.orientationAt(k, along);
+        double turn = Math.atan2(Math.sin(facing - pathPt.heading), Math.cos(facing - pathPt.heading));
+        
+        // Ask for a step of travel plus the whole turn, and scale all the wheels together so the
+        // fastest runs at full power, keeping the direction of travel and the share of turning.
+        double bearing = travel - pathPt.heading;
+        drivetrain.inverse(step*Math.cos(bearing), step*Math.sin(bearing), turn, wheels);
+        double maxWheel = 0.0;
+        for (int m = 0; m < drivetrain.motorCount(); m++) {
+            maxWheel = Math.max(maxWheel, Math.abs(wheels[m]));
+        }
+        double[] powers = new double[drivetrain.motorCount()];
+        for (int m = 0; m < powers.length; m++) {
+            powers[m] = wheels[m] / maxWheel;
+        }
+        simRobot.moveRobot(unitTime, powers);
+    }
      
+    /**
+     *  Turn in place, on an Arc of radius 0.0: hold position and turn to face the Arc's ending
+     *  angle, which is a heading. No wheel runs faster than it must to finish in this step, so
+     *  the robot comes to rest facing the way it should rather than turning past it.
+     *  @param unitTime - control loop cycle time
+     *  @param pathPt   - 'current' robot pose, indexed to the 'current' path element
+     */
+    private void turnInPlace(double unitTime, PathPoint pathPt) {
+        PathBuffer path = robotIntendedPath;
+        int k = pathPt.index;
+        double dx = path.ix[k] - pathPt.pt.x;
+        double dy = path.iy[k] - pathPt.pt.y;
+        double cos = Math.cos(pathPt.heading);
+        double sin = Math.sin(pathPt.heading);
+        double turn = Math.atan2(Math.sin(path.endAngle[k] - pathPt.heading), Math.cos(path.endAngle[k] - pathPt.heading));
+        simRobot.drivetrain.inverse(dx*cos + dy*sin, dy*cos - dx*sin, turn, wheels);
+        moveAtMost(unitTime);
+    }
+    
+    /**
+     *  Set power levels of the drive motors as the controller commands, slowing for the next stop
+     *  as fast as the motors may decelerate. A tank drive turns its travel heading by turning the
+     *  way it faces; a holonomic robot turns its travel heading alone, and faces as oriented to
+     *  the path element, as for the open-loop follower.
+     *  @param unitTime - control loop cycle time
+     *  @param pathPt   - 'current' robot pose, indexed to the 'current' path element
+     */
+    private void setControlledMotorPower(double unitTime, PathPoint pathPt) {
+        PathBuffer path = robotIntendedPath;
+        int k = pathPt.index;
+        if (path.type[k] == PathBuffer.ARC && path.radius[k] <= 0.0) {
+            turnInPlace(unitTime, pathPt);
+            return;
+        }
+        double seconds = unitTime / 1000.0;
+        double along = path.project(k, pathPt.pt.x, pathPt.pt.y);
+        controller.command(path, pathPt, travelHeading(path, pathPt), errorVector, speedFraction*stepDistance/(this.unitTime/1000.0), seconds, command);
+        double speed = command[0];
+        double deceleration = simRobot.motors.maxAcceleration;
+        if (!Double.isInfinite(deceleration)) {
+            double remaining = Math.max(0.0, path.length[k] - along) + toStop[k];
+            speed = Math.min(speed, Math.sqrt(2.0*deceleration*remaining));
+        }
+        double step = speed*seconds;
+        double turn = command[1]*seconds;
+        if (simRobot.drivetrain.isHolonomic()) {
+            travelHeading += turn;
+            double bearing = travelHeading - pathPt.heading;
+            double facing = path.headingAt(k, pathPt.pt.x, pathPt.pt.y) + path.orientationAt(k, along);
+            double faceTurn = Math.atan2(Math.sin(facing - pathPt.heading), Math.cos(facing - pathPt.heading));
+            simRobot.drivetrain.inverse(step*Math.cos(bearing), step*Math.sin(bearing), faceTurn, wheels);
+        }
+        else {
+            // backing along a reversal, oriented to face against the path's heading
+            simRobot.drivetrain.inverse(step*Math.cos(path.orientation[k]), 0.0, turn, wheels);
+        }
+        moveAtMost(unitTime);
+    }
+    
+    /**
+     *  Move the robot by the wheel travel in wheels[], or as much of it as full power gives in
+     *  unitTime, scaling all the wheels together to keep the robot's direction and turn.
+     *  @param unitTime - control loop cycle time
+     */
+    private void moveAtMost(double unitTime) {
+        Drivetrain drivetrain = simRobot.drivetrain;
+        double fullPowerStep = unitTime * simRobot.TICKS_PER_MS_PER_FULL_POWER / simRobot.TICKS_PER_INCH;
+        double maxWheel = fullPowerStep;
+        for (int m = 0; m < drivetrain.motorCount(); m++) {
+            maxWheel = Math.max(maxWheel, Math.abs(wheels[m]));
+        }
+        double[] powers = new double[drivetrain.motorCount()];
+        for (int m = 0; m < powers.length; m++) {
+            powers[m] = wheels[m] / maxWheel;
+        }
+        simRobot.moveRobot(unitTime, powers);
+    }
+    
+    /**
+     *  Return the heading the robot travels along: a tank drive faces along it, or against it
+     *  on a reversal; a holonomic robot under a controller keeps it apart from the way it faces.
+     *  @param path   - full robot path
+     *  @param pathPt - 'current' robot pose, indexed to the 'current' path element
+     */
+    private double travelHeading(PathBuffer path, PathPoint pathPt) {
+        if (controller != null && simRobot.drivetrain.isHolonomic()) {
+            return travelHeading;
+        }
+        int k = Math.min(pathPt.index, path.size()-1);
+        return pathPt.heading - path.orientation[k];
+    }
+    
+    /**
+     *  Choose the step of time to take next, stepping adaptively: as long a step as keeps the error of
+     *  the robot's pose within stepTolerance, and short enough near the end of the path element
+     *  the robot follows to end on it.
+     *  @param pathPt - 'current' robot pose, indexed to the 'current' path element
+     *  @return       - step of time, between minUnitTime and maxUnitTime
+     */
+    private double adaptiveStepTime(PathPoint pathPt) {
+        PathBuffer path = robotIntendedPath;
+        int k = pathPt.index;
+        double step = maxUnitTime;
+        // The error of a step grows as the square of its length, so as the square of its time
+        if (stepError > 0.0) {
+            step = Math.min(step, 0.9*stepTime*Math.sqrt(stepTolerance/stepError));
+        }
+        // Turning in place, step as long as the robot takes to face the way it should at the rate
+        // it last turned; it does not travel
+        if (path.type[k] == PathBuffer.ARC && path.radius[k] <= 0.0) {
+            double error = path.endAngle[k] - pathPt.heading;
+            double remaining = Math.abs(Math.atan2(Math.sin(error), Math.cos(error))) - headingTolerance;
+            if (remaining > 0.0 && stepTurnRate > 0.0) {
+                step = Math.min(step, remaining / stepTurnRate);
+            }
+            return Math.max(minUnitTime, step);
+        }
+        // A step of a length along a curve errs by half the length times the turn over it;
+        // that is half the curvature times the square of the length
+        double curvature = (path.type[k] == PathBuffer.ARC) ? 1.0/path.radius[k] :
+                           (path.type[k] == PathBuffer.SPLINE) ? Math.abs(path.curvatureAt(k, pathPt.pt.x, pathPt.pt.y)) : 0.0;
+        double speed = (stepSpeed > 0.0) ? stepSpeed : stepDistance/unitTime;
+        if (curvature > 0.0) {
+            step = Math.min(step, Math.sqrt(2.0*stepTolerance/curvature) / speed);
+        }
+        // End the step at the end of the path element, at the speed the robot last made
+        double remaining = path.length[k] - path.project(k, pathPt.pt.x, pathPt.pt.y);
+        if (remaining > 0.0) {
+            step = Math.min(step, remaining / speed);
+        }
+        return Math.max(minUnitTime, Math.min(maxUnitTime, step));
+    }
+    
     /**
      *  Read robot encoders and calculate robot pose.
      *  @param pathPt   - 'current' robot pose, expressed as a PathPoint
@@ -187,40 +486,48 @@ public class SimPath {
         PathPoint newPathPt = new PathPoint();  
         newPathPt.index     = pathPt.index;
     
-        // read encoders to get new encoder values since last reading
-        double nextLeftEncoder  = simRobot.getLeftEncoder();
-        double nextRightEncoder = simRobot.getRightEncoder();
-        
-        // find difference in encoder values since last reading
-        double deltaLeftEncoder  = nextLeftEncoder  - leftEncoder;
-        double deltaRightEncoder = nextRightEncoder - rightEncoder;
-        
-        // save the new encoder values for next iteration through control loop
-        leftEncoder  = nextLeftEncoder;
-        rightEncoder = nextRightEncoder;
-        
+        // read encoders to get the travel of each wheel since last reading,
+        // and save the new encoder values for next iteration through control loop
+        Drivetrain drivetrain = simRobot.drivetrain;
+        for (int m = 0; m < wheelEncoders.length; m++) {
+            double nextEncoder = simRobot.getEncoder(m);
+            wheels[m] = (nextEncoder - wheelEncoders[m]) / simRobot.TICKS_PER_INCH;
+            wheelEncoders[m] = nextEncoder;
+        }
+        double nextStrafeEncoder = simRobot.getStrafeEncoder();
+        double strafeInches = (nextStrafeEncoder - strafeEncoder) / simRobot.TICKS_PER_INCH;
+        strafeEncoder = nextStrafeEncoder;
         
         // Use an approximation of movement to calculate new pose (x,y,theta)
         // based on the difference between the current and previous encoder readiings.
         //
-        // A simple algorithm is to assume the robot traveled 'straight' at a distance that is the average
-        // of the two left-side and right-side encoders. This approximation is only valid over very
-        // short distances. 
-        double midTravelInches = (deltaLeftEncoder + deltaRightEncoder)/ (2.0 * simRobot.TICKS_PER_INCH);
-        newPathPt.pt.x = pathPt.pt.x + midTravelInches * Math.cos(pathPt.heading);
-        newPathPt.pt.y = pathPt.pt.y + midTravelInches * Math.sin(pathPt.heading);
+        // A simple algorithm is to assume the robot traveled 'straight' by the drivetrain's forward
+        // kinematics, in the direction it faced at the last reading, and across by the strafe encoder.
+        // This approximation is only valid over very short distances. 
+        drivetrain.forward(wheels, motion);
+        double forwardInches = motion[0];
+        double cos = Math.cos(pathPt.heading);
+        double sin = Math.sin(pathPt.heading);
+        // Stepping adaptively, over longer distances, the robot travels in the direction it faced
+        // halfway through the step instead; the difference between the two is the error of the
+        // simpler approximation, by which the next step is chosen.
+        if (adaptive) {
+            double inches = Math.sqrt(forwardInches*forwardInches + strafeInches*strafeInches);
+            stepError = 0.5*inches*Math.abs(motion[2]);
+            stepSpeed = inches / stepTime;
+            stepTurnRate = Math.abs(motion[2]) / stepTime;
+            cos = Math.cos(pathPt.heading + 0.5*motion[2]);
+            sin = Math.sin(pathPt.heading + 0.5*motion[2]);
+        }
+        newPathPt.pt.x = pathPt.pt.x + forwardInches*cos - strafeInches*sin;
+        newPathPt.pt.y = pathPt.pt.y + forwardInches*sin + strafeInches*cos;
         // keep for debugging:
-        //System.out.println("leftE: "+deltaLeftEncoder+" rightE: "+deltaRightEncoder+" midI: "+midTravelInches);
+        //System.out.println("wheels: "+Arrays.toString(wheels)+" forward: "+forwardInches+" strafe: "+strafeInches);
         //
-        // The change in heading of the robot is approximated to be the arctan of the difference between
-        // the left-side and right-side encoders. 
-        double bearing = Math.atan ( Math.abs(deltaLeftEncoder - deltaRightEncoder) / simRobot.robotWidthTicks);
-        if (deltaLeftEncoder > deltaRightEncoder) {
-            newPathPt.heading = pathPt.heading - bearing;
-        }
-        else {
-            newPathPt.heading = pathPt.heading + bearing;
-        }
+        // The change in heading of the robot is also given by the drivetrain's forward kinematics;
+        // for a tank drive, the arctan of the difference between the left-side and right-side encoders
+        // across the width of the robot.
+        newPathPt.heading = pathPt.heading + motion[2];
         // Return the newly calcuated pose (x,y,theta)
         return newPathPt;
     }
@@ -228,11 +535,12 @@ public class SimPath {
     /**
      * Given robot's pose and last known path element being traversed,
      * calculate which path element is now being tracked.
-     * @param path   - full robot path, expressed as List of path elements
+     * @param path   - full robot path
+     * @param lastPt - robot pose at the start of the step of time just taken
      * @param pathPt - 'current' robot pose
      * @return       - 'current' robot pose indexed to the 'current' path element
      */
-    private PathPoint traversePath(List<NavPath> path, PathPoint pathPt) {
+    private PathPoint traversePath(PathBuffer path, PathPoint lastPt, PathPoint pathPt) {
         // Tracking a path involves moving past the endpoints of successive path elements.
         PathPoint newPathPt = new PathPoint(pathPt);
         int finalPathIndex = path.size()-1;
@@ -242,19 +550,32 @@ public class SimPath {
         while (keepTraversing && (currentPathIndex <= finalPathIndex)) {        
             //System.out.println("path element: "+idx);
             // Call method to check if endpoint of the 'current' path element has been reached
-            boolean goNextElement = reachedEndpoint(path.get(currentPathIndex), pathPt);
+            boolean goNextElement = reachedEndpoint(path, currentPathIndex, pathPt);
             // If the endpoint of a path element has been reached, then increment the
             // path element index to examine the next path element
-            if (goNextElement) { currentPathIndex += 1; }
+            if (goNextElement) {
+                crossingTime = clock + stepTime*crossingFraction(path, currentPathIndex, lastPt, pathPt);
+                currentPathIndex += 1;
+            }
             // Else if the endpoing has not been reached then we can exit the loop
             else { keepTraversing = false; }
             //keep for debugging
-            System.out.println("Reached endpoint="+goNextElement);
+            Diagnostics.trace(DIAG, () -> "Reached endpoint="+goNextElement);
+            if (goNextElement && Diagnostics.isListening()) {
+                Diagnostics.event(DIAG, "reached", "path element "+(currentPathIndex-1), String.format("at %.3f s", crossingTime/1000.0));
+            }
         }
         // if going to a new path element, set the pathpoint heading to the nav point
-        // of the new path element
+        // of the new path element; a holonomic robot turns to it as it goes instead, and
+        // a robot under a controller steers onto it. A holonomic robot under a controller
+        // changes its direction of travel to the new path element's at once.
         if ((newPathPt.index != currentPathIndex) && (currentPathIndex <= finalPathIndex)) {
-            newPathPt.heading = path.get(currentPathIndex).i.heading;            
+            if (controller == null && !simRobot.drivetrain.isHolonomic()) {
+                newPathPt.heading = path.iHeading[currentPathIndex];
+            }
+            else if (controller != null && simRobot.drivetrain.isHolonomic()) {
+                travelHeading = path.startHeading(currentPathIndex);
+            }
         }
         newPathPt.index = currentPathIndex;
         return newPathPt;
@@ -264,149 +585,95 @@ public class SimPath {
     /**
      * Determine if location of pathPt exceeds the distance of the path element
      * or is near-coincident with the endpoint if the path element is a stop.
-     * @param p      - 'current' NavPath
+     * @param path   - full robot path
+     * @param k      - index of 'current' path element
      * @param pathPt - 'current' robot pose (x,y,theta), expressed as a PathPoint
      * @return       - boolean, true if this algorithm determines the robot's pose reached 
      *                          the endpoint of the current path element
      */
-    private boolean reachedEndpoint(NavPath p, PathPoint pathPt) {
+    private boolean reachedEndpoint(PathBuffer path, int k, PathPoint pathPt) {
     
-        StdLine inLine;
-        StdLine normalLine;
-        
-        if (p instanceof Gap) {
-            Vector v = new Vector(p.i, p.o);
-            System.out.println("Checking against Gap: "+v.toString());
-            // Get line between points in gap
-            inLine = v.toStdLine();
-            // Get line normal to gap that intersects at gap starting point
-            normalLine = StdLine.perpLineAtPoint(inLine, v.i.pt);
-            // Get line parallel to vector through path point
-            StdLine paraLine = StdLine.perpLineAtPoint(normalLine, pathPt.pt);
-            // Get intersection of lines normal to and parallel to vector
-            Point ipt = StdLine.intersectionPoint(normalLine, paraLine);
-            // Create a vector to get a magnitude from (parallel) vector starting point to path point
-            Vector iv = new Vector(ipt, pathPt.pt);
-            // If parallel vector is opposite direction of path vector then distance is negative.
-            double inLineDistance = iv.magnitude;            
-            if (Math.abs(iv.heading - v.heading) > 0.1) {inLineDistance = 0 - inLineDistance;}
-            // return true of given pathPt is located past the endpoint of the gap,
-            // as relative to the startpoint of the gap.
-            if (inLineDistance >= v.magnitude) { return true; }
-            // If this gap is a stop, allow for near-coincidence to endpoint
-            double ptDistance = Point.distance(pathPt.pt, v.o.pt);
-            return (ptDistance <= coincidenceDistance);
-        }
-        else if (p instanceof Vector) {            
-            Vector v = (Vector) p;
-            //keep for debugging:
-            System.out.println("Checking against Vector: "+v.toString());
-            
-            // Find the distance the pathPoint is normal to the Vector.
-            inLine = v.toStdLine();
-            // Get line normal to vector that intersects at vector starting point
-            normalLine = StdLine.perpLineAtPoint(inLine, v.i.pt);
-            // Get line parallel to vector through path point
-            StdLine paraLine = StdLine.perpLineAtPoint(normalLine, pathPt.pt);
-            // Get intersection of lines normal to and parallel to vector
-            Point ipt = StdLine.intersectionPoint(normalLine, paraLine);
-            // Create a vector to get a magnitude from (parallel) vector starting point to path point
-            Vector iv = new Vector(ipt, pathPt.pt);
-            // If parallel vector is opposite direction of path vector then distance is negative.
-            double inLineDistance = iv.magnitude;            
-            //keep for debugging
-            //System.out.println("inLineH: "+iv.heading+" v-H: "+v.heading+" iL: "+inLine.toString()+" nL: "+normalLine.toString()+" pL: "+paraLine.toString()+" ipt: "+ipt.toString());
-            if (Math.abs(iv.heading - v.heading) > 0.1) {inLineDistance = 0 - inLineDistance;}
-            // return true of given pathPt is located past the endpoint of the vector,
-            // as relative to the startpoint of the vector.
-            //keep for debugging
-            //System.out.println("inLine: "+inLineDistance+ " v-mag: "+v.magnitude);
-            if (inLineDistance >= v.magnitude) { return true; }
-            // If this vector is a stop, allow for near-coincidence to endpoint
-            double ptDistance = Point.distance(pathPt.pt, p.o.pt);
-            //keep for debugging:
-            //if (ptDistance <= coincidenceDistance) { System.out.println("coincident"); }
-            return (ptDistance <= coincidenceDistance);
-        }
-        else if (p instanceof Arc) {
-            Arc a = (Arc) p;
-            //keep for debugging:
-            System.out.println("Checking against Arc: "+a.toString());
-            
-            // Find the distance along the arc the given pathPoint is.
-            // Given that the pathPoint may not be exactly on the arc, then calculate the distance
-            // based on a projection of the pathPoint onto the arc from the center of the arc.
-            double rtheta = Point.radianAngle(a.center, pathPt.pt);
-            double inArcDistance = Math.min(Arc.calcLength(a.clockwise, a.startAngle, rtheta, a.radius),
-                                            Arc.calcLength(!a.clockwise, a.startAngle, rtheta, a.radius)); 
-            //keep for debugging:
-            //System.out.println("aL: "+a.length+" inArc: "+inArcDistance);
-            // If the pathPoint is further along the arc than the arc endpoint then return TRUE
-            if (inArcDistance >= a.length) { 
-                return true; 
-            }
-            // Calculate the distance between the pathPoint and the endpoint of the Arc
-            double ptDistance = Point.distance(pathPt.pt, p.o.pt);
-            // If the pathPoint is near-coincident to the endpoint of the Arc then return TRUE
-            return (ptDistance <= coincidenceDistance);
+        if (Diagnostics.isEnabled(Diagnostics.Level.TRACE)) {
+            Diagnostics.trace(DIAG, () -> "Checking against: "+path.get(k).toString());
         }
-        else {
-            // error!
+        // A holonomic robot, or one under a controller, turning in place on an Arc of radius 0.0
+        // has reached its end when it faces the Arc's ending angle, which is a heading.
+        if (path.type[k] == PathBuffer.ARC && path.radius[k] <= 0.0 && (simRobot.drivetrain.isHolonomic() || controller != null)) {
+            double error = path.endAngle[k] - pathPt.heading;
+            return Math.abs(Math.atan2(Math.sin(error), Math.cos(error))) <= headingTolerance;
+        }
+        // Find the distance along the element the pathPoint is. Given that the pathPoint may not be
+        // exactly on the element, the distance is that of the projection of the pathPoint onto it.
+        // Behind the starting point of a Vector or Gap, the distance is negative.
+        double inDistance = path.project(k, pathPt.pt.x, pathPt.pt.y);
+        //keep for debugging:
+        //System.out.println("length: "+path.length[k]+" in: "+inDistance);
+        // If the pathPoint is further along the element than its endpoint then return TRUE
+        if (inDistance >= path.length[k]) { return true; }
+        // If the pathPoint is near-coincident to the endpoint of the element then return TRUE
+        double dx = pathPt.pt.x - path.ox[k];
+        double dy = pathPt.pt.y - path.oy[k];
+        double distance = Math.sqrt(dx*dx + dy*dy);
+        if (distance <= coincidenceDistance) { return true; }
+        // If the pathPoint is within the step just taken of the endpoint, and past it along the element's
+        // ending heading, then return TRUE: a robot that follows an Arc closely may step past
+        // its endpoint without coming near-coincident, where the Arc's projection cannot tell
+        // past its end from before its start.
+        if (distance <= stepDistance*(stepTime/unitTime)) {
+            double endHeading = path.headingAt(k, path.ox[k], path.oy[k]);
+            return (dx*Math.cos(endHeading) + dy*Math.sin(endHeading) >= 0.0);
         }
         return false;
+    }
     
+    /**
+     * Locate where in a step the robot reached the end of a path element: the share of the step
+     * at which it crossed the line through the endpoint, across the element's ending heading,
+     * or for a turn in place, came to face the ending angle. Moving linearly over the step, the
+     * robot crosses where the distance past it changes sign.
+     * @param path   - full robot path
+     * @param k      - index of the path element reached
+     * @param lastPt - robot pose at the start of the step
+     * @param pathPt - robot pose at the end of the step
+     * @return       - share of the step, from 0.0 to 1.0; 1.0 if the robot came near-coincident without crossing
+     */
+    private double crossingFraction(PathBuffer path, int k, PathPoint lastPt, PathPoint pathPt) {
+        if (path.type[k] == PathBuffer.ARC && path.radius[k] <= 0.0) {
+            double error = path.endAngle[k] - lastPt.heading;
+            double remaining = Math.abs(Math.atan2(Math.sin(error), Math.cos(error))) - headingTolerance;
+            double turned = Math.abs(pathPt.heading - lastPt.heading);
+            if (remaining <= 0.0) { return 0.0; }
+            return (turned > remaining) ? remaining / turned : 1.0;
+        }
+        double endHeading = path.headingAt(k, path.ox[k], path.oy[k]);
+        double cos = Math.cos(endHeading);
+        double sin = Math.sin(endHeading);
+        double before = (lastPt.pt.x - path.ox[k])*cos + (lastPt.pt.y - path.oy[k])*sin;
+        double after  = (pathPt.pt.x - path.ox[k])*cos + (pathPt.pt.y - path.oy[k])*sin;
+        if (before >= 0.0) { return 0.0; }
+        if (after <= before || after < 0.0) { return 1.0; }
+        return (0.0 - before) / (after - before);
     }
     
     /**
      * Calculate position error and heading error of the path point in the
      * frame of reference of the path element the path point is indexed to.
-     * @param path   - List of path elements
+     * @param path   - full robot path
      * @param pathPt - current robot pose (x,y,theta), expressed as a PathPoint
-     * @return       - Vector, which gives magnitude of error from path 
-     *                         but the direction is the heading difference between robot and path element
+     * @return       - Vector, which gives magnitude of error from path, positive to the left of it,
+     *                         but the direction is the heading difference between path element and
+     *                         the robot's travel heading
      */
-    private Vector calcErrorVector(List<NavPath> path, PathPoint pathPt) {
+    private Vector calcErrorVector(PathBuffer path, PathPoint pathPt) {
     
-        StdLine inLine;
         Vector errorVector = new Vector();
     
-        int idx = pathPt.index;
-        if (idx >= path.size()) { idx = path.size()-1; }
+        int k = pathPt.index;
+        if (k >= path.size()) { k = path.size()-1; }
         
-        NavPath p = path.get(idx);
-        if (p instanceof Gap) {
-            // ...get the normal distance of the pathPt to the Gap
-            // create a Vector from the Gap path element
-            Vector v = new Vector(p.i, p.o);
-            // create a line from the (Vector) Gap path element
-            inLine = v.toStdLine();
-            // get the distance from the robot's location to the line
-            errorVector.magnitude = inLine.distanceTo(pathPt.pt);
-            errorVector.heading = v.heading - pathPt.heading;
-            return errorVector;                        
-        }
-        else if (p instanceof Vector) {
-            // ...get the normal distance of the pathPt to the Vector
-            Vector v = (Vector) p;
-            // create a line from the Vector path element
-            inLine = v.toStdLine();
-            // get the distance from the robot's location to the line
-            errorVector.magnitude = inLine.distanceTo(pathPt.pt);
-            errorVector.heading = v.heading - pathPt.heading;
-            return errorVector;            
-        }
-        else if (p instanceof Arc) {
-            Arc a = (Arc) p;
-            double rtheta = Point.radianAngle(a.center, pathPt.pt);
-            if (a.clockwise) { rtheta -= Math.PI/2.0; }
-            else             { rtheta += Math.PI/2.0; }
-            errorVector.heading = rtheta - pathPt.heading;
-            errorVector.magnitude = Point.distance(a.center, pathPt.pt) - a.radius;
-            return errorVector;            
-        }
-        else {
-            // error
-        }
+        // ...get the normal distance of the pathPt to the path element
+        errorVector.magnitude = path.lateralError(k, pathPt.pt.x, pathPt.pt.y);
+        errorVector.heading = path.headingAt(k, pathPt.pt.x, pathPt.pt.y) - travelHeading(path, pathPt);
         return errorVector;
     }
     
@@ -417,11 +684,68 @@ public class SimPath {
      *  @param unitTime - control loop cycle time
      */
     public void updateSimPath(List<NavPath> simPath, double unitTime) {
-        this.robotIntendedPath = new ArrayList<>();
-        for (NavPath p : simPath) {
-            this.robotIntendedPath.add(p);
-        }    
+        this.robotIntendedPath = PathBuffer.of(simPath);
         this.unitTime = unitTime;
+        this.stepTime = unitTime;
+    }
+    
+    /**
+     *  Update the path parameters for this simulator to traverse.
+     *  @param simPath  - path to traverse, already packed into a PathBuffer
+     *  @param unitTime - control loop cycle time
+     */
+    public void updateSimPath(PathBuffer simPath, double unitTime) {
+        this.robotIntendedPath = simPath;
+        this.unitTime = unitTime;
+        this.stepTime = unitTime;
+    }
+    
+    /**
+     *  Follow the path as given settings choose, rather than as the settings file does, and seed
+     *  the robot's perturbation so that the simulation repeats exactly.
+     *  @param settings - Map of settings parameters choosing the path follower; null for the settings file's
+     *  @param seed     - seed of the robot's perturbation
+     */
+    public void updateFollower(Map<String, String> settings, long seed) {
+        this.followerSettings = settings;
+        this.seed = seed;
+        this.seeded = true;
+    }
+    
+    /**
+     *  Return the root-mean-square cross-track error, in inches, of the last simulation.
+     */
+    public double getRmsError() {
+        return rmsError;
+    }
+    
+    /**
+     *  Return the seconds of simulated time the robot took, in the last simulation, to reach the
+     *  end of the path; or that it ran for, if it did not complete the path.
+     */
+    public double getTime() {
+        return time;
+    }
+    
+    /**
+     *  Return true if the robot traversed the whole path in the last simulation, rather than
+     *  leaving the field or giving up.
+     */
+    public boolean completed() {
+        return completed;
+    }
+    
+    // Return the positive number a settings file gives for a simulation setting, or a default if it gives none
+    private static double setting(Map<String, String> settings, String key, double value) {
+        if (!settings.containsKey(key)) { return value; }
+        try {
+            double given = Double.parseDouble(settings.get(key).trim());
+            if (given > 0.0) { return given; }
+        }
+        catch (NumberFormatException e) {
+        }
+        System.out.println(key+" is not a positive number: "+settings.get(key)+", using "+value);
+        return value;
     }
     
     /**
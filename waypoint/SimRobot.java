@@ -1,57 +1,136 @@
-package waypoint;  
+package waypoint;
 
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Random;
 
 /**
- * Class to represent a robot. 
- * Although this robot is in tank-drive mode, it can be configured for mecanum.
+ * Class to represent a robot.
+ * The robot drives with a given Drivetrain: a tank drive, unless configured for mecanum or X-drive.
+ * Its motors respond to power as a given MotorModel has them: at once, unless configured with
+ * the robot's acceleration and battery.
  */
 public class SimRobot {
 
-    // 
-    private double leftEncoder = 0.0;
-    private double rightEncoder = 0.0;
+    public static final double DEFAULT_WIDTH_INCHES = 16.0;
+
+    // Each driven wheel has an encoder, in the Drivetrain's motor order.
+    // The strafe encoder is an undriven wheel across the robot, reading its travel to the left.
+    private double[] wheelEncoders;
     private double strafeEncoder = 0.0;
     // Methods to retrieve encoder readings
-    public double getLeftEncoder()   { return leftEncoder; }
-    public double getRightEncoder()  { return rightEncoder; }
-    public double getStrafeEncoder() { return strafeEncoder; }
-    
+    public double getEncoder(int motor) { return wheelEncoders[motor]; }
+    public double getStrafeEncoder()    { return strafeEncoder; }
+    // the left and right encoders average the wheels on each side of a four-wheel drivetrain
+    public double getLeftEncoder()   { return (wheelEncoders.length == 2) ? wheelEncoders[0] : (wheelEncoders[0] + wheelEncoders[2])/2.0; }
+    public double getRightEncoder()  { return (wheelEncoders.length == 2) ? wheelEncoders[1] : (wheelEncoders[1] + wheelEncoders[3])/2.0; }
+
     // This is very much dependent on the robot:
     //   - diameter of wheels
     //   - linearity of motor reponse
-    //   - torque and speed of motors
+    //   - torque and speed of motors, which the MotorModel gives
     public final double TICKS_PER_INCH = 100.0;
-    public final double TICKS_PER_MS_PER_FULL_POWER = 2.0;
-    
-    public double robotWidthInches = 16.0;
-    public double robotWidthTicks = robotWidthInches * TICKS_PER_INCH;
-    
+    public final double TICKS_PER_MS_PER_FULL_POWER;
+
+    /**
+     * Return the speed a wheel travels at full power, in inches per second.
+     */
+    public double fullPowerInchesPerSecond() {
+        return 1000.0 * TICKS_PER_MS_PER_FULL_POWER / TICKS_PER_INCH;
+    }
+
+    public final Drivetrain drivetrain;
+    public final MotorModel motors;
+    public double robotWidthInches;
+    public double robotWidthTicks;
+
     // Amount of error to inject, as a ratio of desired outcome
-    private double perturbation = 0.1; 
-    
+    private double perturbation = 0.1;
+    private Random random = new Random();   // source of the error; seeded to repeat a run exactly
+
+    /**
+     * Seed the source of injected error, so that runs with the same seed perturb the same way
+     * @param seed - seed of the random number generator
+     */
+    public void setSeed(long seed) {
+        random = new Random(seed);
+    }
+
+    private double[] motion = new double[3];   // scratch for the drivetrain's forward kinematics
+    private double[] sides = new double[2];    // scratch for the powers of a tank drive's sides
+    private double[] travel = new double[4];   // scratch for the travel of each wheel, in inches
+
     /**
      * Update encoders to account for a given unit of time and motors at given
      * power levels, with an injection of some error.
      * The drivetrain for this hypothetical robot is a 2-motor tank drive
      * @param time       - duration to apply power, units of milliseconds
      * @param leftPower  - power to apply to motor on left side of robot   (range: -1.0 to 1.0)
-     * @param rightPower - power to apply to motor on rightt side of robot (range: -1.0 to 1.0)     
+     * @param rightPower - power to apply to motor on rightt side of robot (range: -1.0 to 1.0)
      */
-    public void moveRobot(double time, double leftPower, double rightPower) {    
+    public void moveRobot(double time, double leftPower, double rightPower) {
         //keep for debugging
-        System.out.println(String.format(Locale.US, "leftPower=%7.4f rightPower=%7.4f",leftPower,rightPower));
-        double deltaLeftEncoder  = time*leftPower*TICKS_PER_MS_PER_FULL_POWER *(1.0 + perturbation * (Math.random() - 0.5));
-        double deltaRightEncoder = time*rightPower*TICKS_PER_MS_PER_FULL_POWER*(1.0 + perturbation * (Math.random() - 0.5));
-        leftEncoder += deltaLeftEncoder;
-        rightEncoder += deltaRightEncoder;
+        Diagnostics.trace("SimRobot", () -> String.format(Locale.US, "leftPower=%7.4f rightPower=%7.4f",leftPower,rightPower));
+        if (!motors.isIdeal()) {
+            sides[0] = leftPower;
+            sides[1] = rightPower;
+            motors.step(time/1000.0, sides, travel);
+            wheelEncoders[0] += travel[0]*TICKS_PER_INCH*(1.0 + perturbation * (random.nextDouble() - 0.5));
+            wheelEncoders[1] += travel[1]*TICKS_PER_INCH*(1.0 + perturbation * (random.nextDouble() - 0.5));
+            return;
+        }
+        double deltaLeftEncoder  = time*leftPower*TICKS_PER_MS_PER_FULL_POWER *(1.0 + perturbation * (random.nextDouble() - 0.5));
+        double deltaRightEncoder = time*rightPower*TICKS_PER_MS_PER_FULL_POWER*(1.0 + perturbation * (random.nextDouble() - 0.5));
+        wheelEncoders[0] += deltaLeftEncoder;
+        wheelEncoders[1] += deltaRightEncoder;
     }
-        
+
+    /**
+     * Update encoders to account for a given unit of time and each motor of the drivetrain
+     * at a given power level, with an injection of some error.
+     * @param time   - duration to apply power, units of milliseconds
+     * @param powers - power to apply to each motor, in the Drivetrain's motor order (range: -1.0 to 1.0)
+     */
+    public void moveRobot(double time, double[] powers) {
+        //keep for debugging
+        Diagnostics.trace("SimRobot", () -> "powers="+Arrays.toString(powers));
+        boolean ideal = motors.isIdeal();
+        if (!ideal) {
+            motors.step(time/1000.0, powers, travel);
+        }
+        double[] deltas = new double[powers.length];
+        for (int m = 0; m < powers.length; m++) {
+            double ticks = ideal ? time*powers[m]*TICKS_PER_MS_PER_FULL_POWER : travel[m]*TICKS_PER_INCH;
+            deltas[m] = ticks*(1.0 + perturbation * (random.nextDouble() - 0.5));
+            wheelEncoders[m] += deltas[m];
+        }
+        drivetrain.forward(deltas, motion);
+        strafeEncoder += motion[1];
+    }
+
+    /**
+     * Constructor of a robot with a given drivetrain and motors
+     */
+    public SimRobot(Drivetrain drivetrain, MotorModel motors) {
+        this.drivetrain = drivetrain;
+        this.motors = motors;
+        this.TICKS_PER_MS_PER_FULL_POWER = motors.freeSpeed() * TICKS_PER_INCH / 1000.0;
+        this.wheelEncoders = new double[drivetrain.motorCount()];
+        this.robotWidthInches = drivetrain.trackWidth();
+        this.robotWidthTicks = robotWidthInches * TICKS_PER_INCH;
+    }
+
+    /**
+     * Constructor of a robot with a given drivetrain and ideal motors
+     */
+    public SimRobot(Drivetrain drivetrain) {
+        this(drivetrain, new MotorModel());
+    }
+
     /**
-     * Constructor
+     * Constructor of a tank-drive robot of the default width
      */
     public SimRobot() {
-        //rand = new Random();
+        this(new TankDrive(DEFAULT_WIDTH_INCHES));
     }
 }
@@ -0,0 +1,306 @@
+package waypoint;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Class to hold a quintic Hermite spline between two NavPoints.
+ *
+ * The spline leaves its starting NavPoint along its heading and reaches its ending NavPoint
+ * along its heading, with zero curvature at both ends. So a path of Splines and Vectors has
+ * continuous curvature where its elements join, and the robot need not slow down to change
+ * wheel speeds there, as it must where a Vector meets an Arc.
+ *
+ * The spline is a polynomial in a parameter t from 0.0 to 1.0, which does not advance evenly
+ * along the spline. Tables of the distance along the spline at even steps of t, and of t at
+ * even steps of distance, are made when the spline is, so poseAt() takes the same time anywhere.
+ */
+public class Spline extends NavPath {
+
+    private static final int TABLE_STEPS   = 128;   // steps of the distance and parameter tables
+    private static final int DRAW_STEPS    = 32;    // straight lines a drawn spline is made of
+    private static final int NEWTON_STEPS  = 4;     // refinements of the nearest point of a projection
+    // 3-point Gauss-Legendre quadrature on [0,1]
+    private static final double[] GAUSS_T = { 0.5 - 0.5*Math.sqrt(0.6), 0.5, 0.5 + 0.5*Math.sqrt(0.6) };
+    private static final double[] GAUSS_W = { 5.0/18.0, 8.0/18.0, 5.0/18.0 };
+
+    final double[] ax = new double[6];   // x(t) = ax[0] + ax[1] t + ... + ax[5] t^5
+    final double[] ay = new double[6];   // y(t) likewise
+    double length;                       // distance along the spline
+    final double[] sTable = new double[TABLE_STEPS+1];   // distance along the spline at t = k/TABLE_STEPS
+    final double[] tTable = new double[TABLE_STEPS+1];   // t at distance k*length/TABLE_STEPS
+
+    /**
+     * Create a Spline from two NavPoints, or return null if a Spline does not connect them well:
+     * the robot would have to change orientation on the way, the ending NavPoint is not ahead of
+     * the starting one, or the heading turns more than 90 degrees, so the spline would bulge out
+     * into a loop rather than curve smoothly between them.
+     */
+    public static Spline genSpline(NavPoint npt1, NavPoint npt2) {
+        if (!npt1.isOriented(npt2)) { return null; }
+        double dx = npt2.pt.x - npt1.pt.x;
+        double dy = npt2.pt.y - npt1.pt.y;
+        if (dx*Math.cos(npt1.heading) + dy*Math.sin(npt1.heading) <= 0.0 ||
+            dx*Math.cos(npt2.heading) + dy*Math.sin(npt2.heading) <= 0.0) {
+            return null;
+        }
+        double turn = Math.atan2(Math.sin(npt2.heading - npt1.heading), Math.cos(npt2.heading - npt1.heading));
+        if (Math.abs(turn) > Math.PI/2.0 + 0.000001) { return null; }
+        Spline spline = new Spline(npt1, npt2);
+        spline.stop = npt2.stop;
+        spline.orientation = npt1.orientation;
+        return spline;
+    }
+
+    // Position and derivatives of the polynomial at parameter t
+    double x(double t)   { return ((((ax[5]*t + ax[4])*t + ax[3])*t + ax[2])*t + ax[1])*t + ax[0]; }
+    double y(double t)   { return ((((ay[5]*t + ay[4])*t + ay[3])*t + ay[2])*t + ay[1])*t + ay[0]; }
+    double dx(double t)  { return (((5.0*ax[5]*t + 4.0*ax[4])*t + 3.0*ax[3])*t + 2.0*ax[2])*t + ax[1]; }
+    double dy(double t)  { return (((5.0*ay[5]*t + 4.0*ay[4])*t + 3.0*ay[3])*t + 2.0*ay[2])*t + ay[1]; }
+    double ddx(double t) { return ((20.0*ax[5]*t + 12.0*ax[4])*t + 6.0*ax[3])*t + 2.0*ax[2]; }
+    double ddy(double t) { return ((20.0*ay[5]*t + 12.0*ay[4])*t + 6.0*ay[3])*t + 2.0*ay[2]; }
+
+    /**
+     * Return the heading of the spline at parameter t.
+     */
+    public double headingAt(double t) {
+        return Math.atan2(dy(t), dx(t));
+    }
+
+    /**
+     * Return the curvature of the spline at parameter t: positive turning left (counter-clockwise),
+     * negative turning right.
+     */
+    public double curvatureAtParameter(double t) {
+        double vx = dx(t);
+        double vy = dy(t);
+        double speed = Math.sqrt(vx*vx + vy*vy);
+        if (speed < 0.000001) { return 0.0; }
+        return (vx*ddy(t) - vy*ddx(t)) / (speed*speed*speed);
+    }
+
+    /**
+     * Return the parameter t at a given distance along the spline, from the table.
+     */
+    public double parameterAt(double s) {
+        if (length <= 0.0) { return 0.0; }
+        double u = Math.max(0.0, Math.min(1.0, s/length)) * TABLE_STEPS;
+        int k = Math.min(TABLE_STEPS-1, (int) u);
+        return tTable[k] + (u - k)*(tTable[k+1] - tTable[k]);
+    }
+
+    /**
+     * Return the distance along the spline at parameter t, from the table.
+     */
+    public double distanceAt(double t) {
+        double u = Math.max(0.0, Math.min(1.0, t)) * TABLE_STEPS;
+        int k = Math.min(TABLE_STEPS-1, (int) u);
+        return sTable[k] + (u - k)*(sTable[k+1] - sTable[k]);
+    }
+
+    /**
+     * Return the parameter t of the point of the spline nearest a given point.
+     */
+    public double nearestParameter(double px, double py) {
+        // Start from the nearest of the points at even steps of distance,
+        // then refine by Newton's method on (p(t) - q).p'(t) = 0
+        double best = Double.POSITIVE_INFINITY;
+        double t = 0.0;
+        for (int k = 0; k <= TABLE_STEPS; k++) {
+            double ex = x(tTable[k]) - px;
+            double ey = y(tTable[k]) - py;
+            double d = ex*ex + ey*ey;
+            if (d < best) {
+                best = d;
+                t = tTable[k];
+            }
+        }
+        for (int n = 0; n < NEWTON_STEPS; n++) {
+            double ex = x(t) - px;
+            double ey = y(t) - py;
+            double vx = dx(t);
+            double vy = dy(t);
+            double f  = ex*vx + ey*vy;
+            double df = vx*vx + vy*vy + ex*ddx(t) + ey*ddy(t);
+            if (df <= 0.0) { break; }
+            t = Math.max(0.0, Math.min(1.0, t - f/df));
+        }
+        return t;
+    }
+
+    /**
+     * Return the distance along the spline of the projection of a given point onto it,
+     * as NavPath.project() gives it: behind the start or past the end, the distance
+     * continues along the heading there.
+     */
+    public double project(double px, double py) {
+        double t = nearestParameter(px, py);
+        if (t <= 0.0) {
+            return Math.min(0.0, Vector.project(i.pt.x, i.pt.y, headingAt(0.0), px, py));
+        }
+        if (t >= 1.0) {
+            return length + Math.max(0.0, Vector.project(o.pt.x, o.pt.y, headingAt(1.0), px, py));
+        }
+        return distanceAt(t);
+    }
+
+    /**
+     * Return the distance of a given point from the spline.
+     */
+    public double crossTrack(double px, double py) {
+        double t = nearestParameter(px, py);
+        double ex = x(t) - px;
+        double ey = y(t) - py;
+        return Math.sqrt(ex*ex + ey*ey);
+    }
+
+    public double length() {
+        return length;
+    }
+
+    public double trackLength(double offset) {
+        // A point offset to the right travels 1 + curvature*offset as far as the reference point
+        double track = 0.0;
+        for (int k = 0; k < TABLE_STEPS; k++) {
+            for (int g = 0; g < GAUSS_T.length; g++) {
+                double t = (k + GAUSS_T[g]) / TABLE_STEPS;
+                double vx = dx(t);
+                double vy = dy(t);
+                double speed = Math.sqrt(vx*vx + vy*vy);
+                track += GAUSS_W[g] * Math.abs(1.0 + curvatureAtParameter(t)*offset) * speed / TABLE_STEPS;
+            }
+        }
+        return track;
+    }
+
+    public NavPoint poseAt(double s) {
+        double t = parameterAt(s);
+        return new NavPoint(new Point(x(t), y(t)), headingAt(t));
+    }
+
+    public double project(Point pt) {
+        return project(pt.x, pt.y);
+    }
+
+    public Vector crossTrackError(NavPoint pose) {
+        double t = nearestParameter(pose.pt.x, pose.pt.y);
+        double ex = x(t) - pose.pt.x;
+        double ey = y(t) - pose.pt.y;
+        Vector error = new Vector();
+        error.magnitude = Math.sqrt(ex*ex + ey*ey);
+        error.heading = headingAt(t) - pose.heading;
+        return error;
+    }
+
+    public double curvatureAt(double s) {
+        return curvatureAtParameter(parameterAt(s));
+    }
+
+    /**
+     * The Spline is rebuilt with its own headings at both ends.
+     */
+    public NavPath endingAt(NavPoint end) {
+        return rebuilt(new Spline(i, new NavPoint(end.pt, o.heading)));
+    }
+
+    /**
+     * The Spline is rebuilt with its own headings at both ends.
+     */
+    public NavPath startingAt(NavPoint start) {
+        return rebuilt(new Spline(new NavPoint(start.pt, i.heading), o));
+    }
+
+    /**
+     * The bounding box of the points at even steps of distance along the spline.
+     */
+    public double[] bounds() {
+        double[] b = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int k = 0; k <= TABLE_STEPS; k++) {
+            double x = x(tTable[k]);
+            double y = y(tTable[k]);
+            b[0] = Math.min(b[0], x);
+            b[1] = Math.min(b[1], y);
+            b[2] = Math.max(b[2], x);
+            b[3] = Math.max(b[3], y);
+        }
+        return b;
+    }
+
+    public void emitTo(Writer writer) throws IOException {
+        writer.write("SPLINE\t"+i.pt.x+"\t"+i.pt.y+"\t"+i.heading+"\t"+o.pt.x+"\t"+o.pt.y+"\t"+o.heading+"\t"+orientation+turnColumn()+"\n");
+    }
+
+    public void draw(Renderer renderer, double offset, Color color) {
+        double x1 = 0.0;
+        double y1 = 0.0;
+        for (int k = 0; k <= DRAW_STEPS; k++) {
+            double t = parameterAt(length*k/DRAW_STEPS);
+            double heading = headingAt(t);
+            double x2 = x(t) + offset*Math.sin(heading);
+            double y2 = y(t) - offset*Math.cos(heading);
+            if (k > 0) { renderer.line(x1, y1, x2, y2, color); }
+            x1 = x2;
+            y1 = y2;
+        }
+    }
+
+    /**
+     * String of this Spline's parameters
+     */
+    public String toString() {
+        return this.getClass().getSimpleName()+" "+super.toString();
+    }
+
+    // Tabulate the distance along the spline at even steps of t, integrating the speed
+    // over each step by Gauss-Legendre quadrature, then t at even steps of distance.
+    private void tabulate() {
+        sTable[0] = 0.0;
+        for (int k = 0; k < TABLE_STEPS; k++) {
+            double step = 0.0;
+            for (int g = 0; g < GAUSS_T.length; g++) {
+                double t = (k + GAUSS_T[g]) / TABLE_STEPS;
+                double vx = dx(t);
+                double vy = dy(t);
+                step += GAUSS_W[g] * Math.sqrt(vx*vx + vy*vy);
+            }
+            sTable[k+1] = sTable[k] + step / TABLE_STEPS;
+        }
+        length = sTable[TABLE_STEPS];
+        int k = 0;
+        for (int j = 0; j <= TABLE_STEPS; j++) {
+            double s = length*j/TABLE_STEPS;
+            while (k < TABLE_STEPS-1 && sTable[k+1] < s) { k++; }
+            double ds = sTable[k+1] - sTable[k];
+            double f = (ds > 0.0) ? Math.max(0.0, Math.min(1.0, (s - sTable[k]) / ds)) : 0.0;
+            tTable[j] = (k + f) / TABLE_STEPS;
+        }
+    }
+
+    /**
+     * Constructor of the spline from one NavPoint to another, leaving and reaching them
+     * along their headings with zero curvature.
+     */
+    public Spline(NavPoint i, NavPoint o) {
+        this.i = i;
+        this.o = o;
+        this.stop = o.stop;
+        // Quintic Hermite basis, with first derivatives along the headings scaled by the
+        // distance between the NavPoints, and second derivatives 0.0 at both ends
+        double scale = Point.distance(i.pt, o.pt);
+        double[] p0 = { i.pt.x, i.pt.y };
+        double[] p1 = { o.pt.x, o.pt.y };
+        double[] v0 = { scale*Math.cos(i.heading), scale*Math.sin(i.heading) };
+        double[] v1 = { scale*Math.cos(o.heading), scale*Math.sin(o.heading) };
+        double[][] a = { ax, ay };
+        for (int d = 0; d < 2; d++) {
+            a[d][0] = p0[d];
+            a[d][1] = v0[d];
+            a[d][2] = 0.0;
+            a[d][3] = -10.0*p0[d] - 6.0*v0[d] - 4.0*v1[d] + 10.0*p1[d];
+            a[d][4] =  15.0*p0[d] + 8.0*v0[d] + 7.0*v1[d] - 15.0*p1[d];
+            a[d][5] =  -6.0*p0[d] - 3.0*v0[d] - 3.0*v1[d] +  6.0*p1[d];
+        }
+        tabulate();
+    }
+}
@@ -27,49 +27,32 @@ public class StdLine {
      * https://www.math-only-math.com/equations-of-the-bisectors-of-the-angles-between-two-straight-lines.html
      */    
     public static List<StdLine> bisectionLine(StdLine line1, StdLine line2) {
+        double[] out = new double[6];
+        Geometry.bisectors(line1.a, line1.b, line1.c, line2.a, line2.b, line2.c, out, 0);
         List<StdLine> list = new ArrayList<>();
-        double d1 = Math.sqrt(line1.a*line1.a + line1.b*line1.b);
-        double d2 = Math.sqrt(line2.a*line2.a + line2.b*line2.b);
-        StdLine line = new StdLine();
-        line.a = d2*line1.a - d1*line2.a;
-        line.b = d2*line1.b - d1*line2.b;
-        line.c = d2*line1.c - d1*line2.c;
-        list.add(line);
-        line = new StdLine();
-        line.a = d2*line1.a + d1*line2.a;
-        line.b = d2*line1.b + d1*line2.b;
-        line.c = d2*line1.c + d1*line2.c;
-        list.add(line);
+        list.add(new StdLine(out[0], out[1], out[2]));
+        list.add(new StdLine(out[3], out[4], out[5]));
         return list;
     }
     
     /**
-     * return a point that is the intersection of two lines.
+     * return a point that is the intersection of two lines; null if the lines are parallel.
      */
     public static Point intersectionPoint(StdLine line1, StdLine line2) {
-        // Need to check of div by 0?
-        // Need to check if lines are parallel?
-        double den = (line1.a*line2.b) - (line2.a*line1.b);
-        //System.out.println("den = "+den+" TA:"+line1.a+" BB:"+line2.b+" BA:"+line2.a+" TB:"+line1.b);
-        if (den == 0.0) {
+        double[] out = new double[2];
+        if (!Geometry.intersect(line1.a, line1.b, line1.c, line2.a, line2.b, line2.c, out, 0)) {
             return null;
         }
-        double x = ((line1.b*line2.c) - (line2.b*line1.c)) / den;
-        double y = ((line2.a*line1.c) - (line1.a*line2.c)) / den;
-        return new Point(x,y);        
+        return new Point(out[0], out[1]);        
     }    
     
     /**
      * return a line of standard form ax+by+c=0 perpendicular to given line and contains given point.
      */
     public static StdLine perpLineAtPoint(StdLine baseLine, Point pt) {
-        StdLine line = new StdLine();
-        line.a = baseLine.b;
-        line.b = 0.0 - baseLine.a;
-        line.c = 0.0 - (line.a*pt.x + line.b*pt.y);
-        //System.out.println(" baseLine.a:"+baseLine.a+" baseLine.b:"+baseLine.b+" pt.x:"+pt.x+" pt.y:"+pt.y);
-        //System.out.println(" line.a:"+line.a+" line.b"+line.b+" line.c"+line.c);
-        return line;
+        double[] out = new double[3];
+        Geometry.perpLineAt(baseLine.a, baseLine.b, pt.x, pt.y, out, 0);
+        return new StdLine(out[0], out[1], out[2]);
     }
     public static StdLine perpLineAtPoint(StdLine baseLine, NavPoint navpt) {
         return perpLineAtPoint(baseLine, navpt.pt);        
@@ -88,7 +71,16 @@ public class StdLine {
      * https://brilliant.org/wiki/dot-product-distance-between-point-and-a-line/
      */
     public double distanceTo(Point pt) {
-        return Math.abs(a*pt.x + b*pt.y + c)/Math.sqrt(a*a+b*b);
+        return Geometry.distance(a, b, c, pt.x, pt.y);
+    }
+    
+    /**
+     * return the point on this line nearest a given point.
+     */
+    public Point project(Point pt) {
+        double[] out = new double[2];
+        Geometry.project(a, b, c, pt.x, pt.y, out, 0);
+        return new Point(out[0], out[1]);
     }
     
     public String toString() {
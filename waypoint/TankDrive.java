@@ -0,0 +1,39 @@
+package waypoint;
+
+/**
+ * Class to hold the kinematics of a tank drive: a left and a right side of wheels, driven together.
+ * A tank drive cannot move across the way it faces.
+ */
+public class TankDrive implements Drivetrain {
+
+    public static final String NAME = "TANK";
+
+    private double trackWidth;   // distance between the centers of the left and right wheels
+
+    public String name()          { return NAME; }
+    public int motorCount()       { return 2; }
+    public boolean isHolonomic()  { return false; }
+    public double trackWidth()    { return trackWidth; }
+
+    public void inverse(double forward, double left, double turn, double[] wheels) {
+        // a tank drive has no way to move left, which is ignored
+        wheels[0] = forward - 0.5*trackWidth*turn;
+        wheels[1] = forward + 0.5*trackWidth*turn;
+    }
+
+    public void forward(double[] wheels, double[] motion) {
+        // Over short distances the robot travels 'straight' by the average of its sides, and
+        // turns by the arctan of the difference between its sides across the track.
+        motion[0] = (wheels[0] + wheels[1]) / 2.0;
+        motion[1] = 0.0;
+        motion[2] = Math.atan((wheels[1] - wheels[0]) / trackWidth);
+    }
+
+    /**
+     * Constructor
+     * @param trackWidth - distance between the centers of the left and right wheels
+     */
+    public TankDrive(double trackWidth) {
+        this.trackWidth = trackWidth;
+    }
+}
@@ -0,0 +1,88 @@
+package waypoint;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Class to keep the durations of the last few runs of some piece of work, such as painting
+ * the field or updating the path, for showing the last one and percentiles over the window.
+ */
+public class TimingWindow {
+
+    private final String name;
+    private final long[] samples;   // durations, in nanoseconds, as a ring of the last samples.length runs
+    private int count = 0;          // runs recorded, up to samples.length
+    private int next = 0;           // where the next run is recorded
+    private long last = 0;
+
+    /**
+     * Record the duration of a run.
+     * @param nanos - duration, in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        count = Math.min(count + 1, samples.length);
+        last = nanos;
+    }
+
+    /**
+     * Record the duration of a run that started at a given System.nanoTime().
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Return the duration of the last run, in milliseconds; 0.0 if none was recorded.
+     */
+    public synchronized double lastMillis() {
+        return last / 1.0e6;
+    }
+
+    /**
+     * Return the duration within which a given fraction of the runs in the window finished,
+     * in milliseconds (nearest rank); 0.0 if none was recorded.
+     * @param p - fraction of runs, such as 0.5 or 0.95
+     */
+    public synchronized double percentileMillis(double p) {
+        if (count == 0) { return 0.0; }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p * count);
+        return sorted[Math.max(0, Math.min(count-1, rank-1))] / 1.0e6;
+    }
+
+    /**
+     * Return the number of runs in the window.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Return the name of the work timed.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Short summary: the last run, and the median and 95th percentile over the window
+     */
+    public String toString() {
+        if (size() == 0) { return name+": -"; }
+        return String.format(Locale.US, "%s: %.1f ms (p50 %.1f, p95 %.1f, n=%d)",
+                             name, lastMillis(), percentileMillis(0.5), percentileMillis(0.95), size());
+    }
+
+    /**
+     * Class constructor.
+     * @param name   - name of the work timed
+     * @param window - number of the most recent runs to keep
+     */
+    public TimingWindow(String name, int window) {
+        this.name = name;
+        this.samples = new long[Math.max(1, window)];
+    }
+}
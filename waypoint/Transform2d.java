@@ -0,0 +1,130 @@
+package waypoint;
+
+import java.util.Locale;
+
+/**
+ * Class to hold a rigid 2D transform: a rotation followed by a translation, with the cosine
+ * and sine of the rotation worked out once, when the transform is made.
+ *
+ * The frame of a NavPoint, as NavPoint.relativeTo() and displacedBy() use it, puts the NavPoint
+ * at (0.0,0.0) heading 90 degrees. frameOf(npt) is the transform from that frame to the field:
+ * apply() takes points from the frame of npt onto the field, as displacedBy(npt) does, and
+ * applyInverse() takes points from the field into the frame of npt, as relativeTo(npt) does.
+ * Code that puts many points into or out of the same frame should make its Transform2d once.
+ */
+public class Transform2d {
+
+    final double x;         // translation
+    final double y;
+    final double rotation;  // radian angle CCW
+    final double cos;       // cosine and sine of rotation
+    final double sin;
+
+    /**
+     * Return the transform from the frame of a NavPoint, where it is at (0.0,0.0) heading
+     * 90 degrees, to the field.
+     */
+    public static Transform2d frameOf(NavPoint npt) {
+        return new Transform2d(npt.pt.x, npt.pt.y, npt.heading - Math.PI/2.0);
+    }
+
+    public double applyX(double px, double py) { return px*cos - py*sin + x; }
+    public double applyY(double px, double py) { return px*sin + py*cos + y; }
+
+    public double applyInverseX(double px, double py) { return  (px - x)*cos + (py - y)*sin; }
+    public double applyInverseY(double px, double py) { return -(px - x)*sin + (py - y)*cos; }
+
+    /**
+     * Return a Point transformed.
+     */
+    public Point apply(Point pt) {
+        return new Point(applyX(pt.x, pt.y), applyY(pt.x, pt.y));
+    }
+
+    /**
+     * Return a Point transformed by the inverse of this transform.
+     */
+    public Point applyInverse(Point pt) {
+        return new Point(applyInverseX(pt.x, pt.y), applyInverseY(pt.x, pt.y));
+    }
+
+    /**
+     * Return the position and heading of a NavPoint transformed.
+     */
+    public NavPoint apply(NavPoint npt) {
+        return new NavPoint(apply(npt.pt), npt.heading + rotation);
+    }
+
+    /**
+     * Return the position and heading of a NavPoint transformed by the inverse of this transform.
+     */
+    public NavPoint applyInverse(NavPoint npt) {
+        return new NavPoint(applyInverse(npt.pt), npt.heading - rotation);
+    }
+
+    /**
+     * Transform n points given as arrays of coordinates. The output arrays may be the input arrays.
+     */
+    public void apply(double[] xs, double[] ys, double[] outX, double[] outY, int n) {
+        for (int k = 0; k < n; k++) {
+            double px = xs[k];
+            double py = ys[k];
+            outX[k] = px*cos - py*sin + x;
+            outY[k] = px*sin + py*cos + y;
+        }
+    }
+
+    /**
+     * Transform n points given as arrays of coordinates by the inverse of this transform.
+     * The output arrays may be the input arrays.
+     */
+    public void applyInverse(double[] xs, double[] ys, double[] outX, double[] outY, int n) {
+        for (int k = 0; k < n; k++) {
+            double dx = xs[k] - x;
+            double dy = ys[k] - y;
+            outX[k] =  dx*cos + dy*sin;
+            outY[k] = -dx*sin + dy*cos;
+        }
+    }
+
+    /**
+     * Return the transform that applies a given transform first, then this one.
+     */
+    public Transform2d compose(Transform2d t) {
+        return new Transform2d(applyX(t.x, t.y), applyY(t.x, t.y), rotation + t.rotation,
+                               cos*t.cos - sin*t.sin, sin*t.cos + cos*t.sin);
+    }
+
+    /**
+     * Return the transform that undoes this one.
+     */
+    public Transform2d inverse() {
+        return new Transform2d(-x*cos - y*sin, x*sin - y*cos, 0.0 - rotation, cos, 0.0 - sin);
+    }
+
+    /**
+     * String of this transform's parameters
+     */
+    public String toString() {
+        return String.format(Locale.US, "Transform2d (%6.2f,%6.2f) rotation: %6.3f (%7.2f)",
+                             x, y, rotation, rotation*180.0/Math.PI);
+    }
+
+    /**
+     * Class constructor.
+     * @param x        - translation along the x-axis
+     * @param y        - translation along the y-axis
+     * @param rotation - rotation, in radian angle CCW, applied before the translation
+     */
+    public Transform2d(double x, double y, double rotation) {
+        this(x, y, rotation, Math.cos(rotation), Math.sin(rotation));
+    }
+
+    private Transform2d(double x, double y, double rotation, double cos, double sin) {
+        this.x = x;
+        this.y = y;
+        this.rotation = rotation;
+        this.cos = cos;
+        this.sin = sin;
+    }
+}
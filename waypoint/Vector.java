@@ -1,5 +1,9 @@
 package waypoint;  
 
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * Class to hold a 2D vector.
  */
@@ -17,8 +21,11 @@ public class Vector extends NavPath {
             return null; 
         }
                 
-        StdLine line = npt1.toStdLine();
-        double distance = line.distanceTo(npt2.pt);
+        double[] line = new double[3];
+        if (!Geometry.lineThrough(npt1.pt.x, npt1.pt.y, npt1.heading, line, 0)) {
+            return null;
+        }
+        double distance = Geometry.distance(line[0], line[1], line[2], npt2.pt.x, npt2.pt.y);
         // If a line can be created that sufficiently contains both NavPoints with their headings, then create a Vector
         if (distance < 0.000001) {
             return new Vector(npt1, npt2);
@@ -41,6 +48,82 @@ public class Vector extends NavPath {
         return npt.toStdLine();
     }
     
+    /**
+     * Return the distance along a line, from a starting point along a heading, of the
+     * projection of a given point onto the line; negative behind the starting point.
+     */
+    public static double project(double ix, double iy, double heading, double px, double py) {
+        return (px - ix)*Math.cos(heading) + (py - iy)*Math.sin(heading);
+    }
+    
+    /**
+     * Return the distance of a given point from the line through a point along a heading.
+     */
+    public static double crossTrack(double x, double y, double heading, double px, double py) {
+        return Math.abs((py - y)*Math.cos(heading) - (px - x)*Math.sin(heading));
+    }
+    
+    public double length() {
+        return magnitude;
+    }
+    
+    public double trackLength(double offset) {
+        return magnitude;
+    }
+    
+    public NavPoint poseAt(double s) {
+        s = Math.max(0.0, Math.min(magnitude, s));
+        return new NavPoint(new Point(i.pt.x + s*Math.cos(heading), i.pt.y + s*Math.sin(heading)), heading);
+    }
+    
+    public double project(Point pt) {
+        return project(i.pt.x, i.pt.y, heading, pt.x, pt.y);
+    }
+    
+    public Vector crossTrackError(NavPoint pose) {
+        Vector error = new Vector();
+        error.magnitude = crossTrack(o.pt.x, o.pt.y, heading, pose.pt.x, pose.pt.y);
+        error.heading = heading - pose.heading;
+        return error;
+    }
+    
+    public double headingChange() {
+        return 0.0;
+    }
+    
+    public boolean isStraight() {
+        return true;
+    }
+    
+    public NavPath[] splitAt(double s) {
+        NavPoint mid = poseAt(s);
+        return split(new Vector(i, new NavPoint(mid.pt, heading)), new Vector(new NavPoint(mid.pt, heading), o), s);
+    }
+    
+    public NavPath endingAt(NavPoint end) {
+        return rebuilt(new Vector(i, end));
+    }
+    
+    public NavPath startingAt(NavPoint start) {
+        return rebuilt(new Vector(start, o));
+    }
+    
+    public double[] bounds() {
+        return new double[] { Math.min(i.pt.x, o.pt.x), Math.min(i.pt.y, o.pt.y),
+                              Math.max(i.pt.x, o.pt.x), Math.max(i.pt.y, o.pt.y) };
+    }
+    
+    public void emitTo(Writer writer) throws IOException {
+        writer.write("VECTOR\t"+i.pt.x+"\t"+i.pt.y+"\t"+o.pt.x+"\t"+o.pt.y+"\t"+orientation+turnColumn()+"\n");
+    }
+    
+    public void draw(Renderer renderer, double offset, Color color) {
+        double angle = heading - Math.PI/2.0;
+        double dx = offset*Math.cos(angle);
+        double dy = offset*Math.sin(angle);
+        renderer.line(i.pt.x+dx, i.pt.y+dy, o.pt.x+dx, o.pt.y+dy, color);
+    }
+    
     /**
      * Return a String with description of a given Vector.
      */
@@ -0,0 +1,230 @@
+package waypoint;  
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Class to choose the order in which to visit a set of NavPoints that make for the cheapest path.
+ */
+public class VisitOrderOptimizer {
+
+    // The first NavPoint is the robot's starting pose and is always visited first.
+    // The remaining NavPoints are targets that may be visited in any order, unless the
+    // last NavPoint is held as the final one to visit (e.g. a parking spot).
+    //
+    // The cost of every ordered pair of NavPoints is found up front, in parallel, by resolving
+    // the connection between them. Connections are directional, so cost[i][j] != cost[j][i].
+    // Up to EXACT_LIMIT targets are ordered exactly by dynamic programming over subsets of
+    // visited targets (Held-Karp). Larger sets start from a nearest-neighbor order that is
+    // improved by moving and reversing runs of targets until no move makes the path cheaper.
+
+    private static final int EXACT_LIMIT = 13; // most free targets to order exactly
+
+    private CalcPath calcPath;
+    private CalcOptions options;  // options of calcPath when this optimizer was made, shared by its threads
+    private PathCost cost;
+    private boolean fixLast;  // true if the last NavPoint stays the last one visited
+
+    /**
+     * Return a reordering of a List of NavPoints that minimizes the cost of the path through them.
+     * @param navpoints - List of NavPoints: the starting NavPoint, then the targets in any order
+     * @return          - List of the same NavPoints in the cheapest order found; the given List if no improvement is found
+     */
+    public List<NavPoint> optimize(List<NavPoint> navpoints) {
+        if (navpoints == null || navpoints.size() < 3) {
+            return navpoints;
+        }
+        int n = navpoints.size();
+        double[][] costs = costMatrix(navpoints);
+
+        // free targets are indices 1..m into navpoints
+        int m = fixLast ? n-2 : n-1;
+        int[] order = (m <= EXACT_LIMIT) ? exactOrder(costs, m) : heuristicOrder(costs, m);
+        int[] given = new int[m];
+        for (int k = 0; k < m; k++) { given[k] = k+1; }
+        double givenCost = tourCost(costs, given);
+        double optimizedCost = tourCost(costs, order);
+        System.out.println(String.format("Visit order optimizer: %s %.2f -> %.2f", cost, givenCost, optimizedCost));
+        // the heuristic order may be no better than the given one
+        if (optimizedCost >= givenCost) {
+            return navpoints;
+        }
+
+        List<NavPoint> ordered = new ArrayList<>();
+        ordered.add(navpoints.get(0));
+        for (int k : order) {
+            ordered.add(navpoints.get(k));
+        }
+        if (fixLast) {
+            ordered.add(navpoints.get(n-1));
+        }
+        return ordered;
+    }
+
+    /**
+     * Cost of connecting every ordered pair of NavPoints, evaluated in parallel.
+     * @return - costs[i][j] from NavPoint i to NavPoint j
+     */
+    private double[][] costMatrix(List<NavPoint> navpoints) {
+        int n = navpoints.size();
+        double[][] costs = new double[n][n];
+        IntStream.range(0, n*n).parallel().forEach(ij -> {
+            int i = ij / n;
+            int j = ij % n;
+            if (i != j) {
+                costs[i][j] = cost.ofConnection(calcPath, options, navpoints.get(i), navpoints.get(j));
+            }
+        });
+        return costs;
+    }
+
+    /**
+     * Cost of visiting free targets in a given order, starting from NavPoint 0
+     * and ending at the last NavPoint if it is held last.
+     */
+    private double tourCost(double[][] costs, int[] order) {
+        double total = 0.0;
+        int at = 0;
+        for (int k : order) {
+            total += costs[at][k];
+            at = k;
+        }
+        if (fixLast) {
+            total += costs[at][costs.length-1];
+        }
+        return total;
+    }
+
+    /**
+     * Order the free targets exactly, by dynamic programming over subsets of targets.
+     * @param m - number of free targets, at indices 1..m
+     * @return  - indices of the free targets in visiting order
+     */
+    private int[] exactOrder(double[][] costs, int m) {
+        int subsets = 1 << m;
+        // best[s][j] - cheapest cost to visit the targets in subset s, ending at target j (in s)
+        double[][] best = new double[subsets][m];
+        int[][] from = new int[subsets][m];
+        for (double[] row : best) { Arrays.fill(row, Double.MAX_VALUE); }
+        for (int j = 0; j < m; j++) {
+            best[1 << j][j] = costs[0][j+1];
+            from[1 << j][j] = -1;
+        }
+        for (int s = 1; s < subsets; s++) {
+            for (int j = 0; j < m; j++) {
+                if ((s & (1 << j)) == 0 || best[s][j] == Double.MAX_VALUE) { continue; }
+                for (int k = 0; k < m; k++) {
+                    if ((s & (1 << k)) != 0) { continue; }
+                    int t = s | (1 << k);
+                    double c = best[s][j] + costs[j+1][k+1];
+                    if (c < best[t][k]) {
+                        best[t][k] = c;
+                        from[t][k] = j;
+                    }
+                }
+            }
+        }
+        // close the tour at the held last NavPoint, if any, and pick the cheapest ending
+        int all = subsets - 1;
+        int end = 0;
+        double endCost = Double.MAX_VALUE;
+        for (int j = 0; j < m; j++) {
+            double c = best[all][j] + (fixLast ? costs[j+1][costs.length-1] : 0.0);
+            if (c < endCost) {
+                endCost = c;
+                end = j;
+            }
+        }
+        int[] order = new int[m];
+        int s = all;
+        for (int k = m-1; k >= 0; k--) {
+            order[k] = end+1;
+            int prev = from[s][end];
+            s &= ~(1 << end);
+            end = prev;
+        }
+        return order;
+    }
+
+    /**
+     * Order the free targets by nearest neighbor, then improve the order by relocating
+     * and reversing runs of targets while any such move lowers the cost.
+     * @param m - number of free targets, at indices 1..m
+     * @return  - indices of the free targets in visiting order
+     */
+    private int[] heuristicOrder(double[][] costs, int m) {
+        int[] order = new int[m];
+        boolean[] visited = new boolean[m+1];
+        int at = 0;
+        for (int k = 0; k < m; k++) {
+            int next = -1;
+            for (int j = 1; j <= m; j++) {
+                if (!visited[j] && (next < 0 || costs[at][j] < costs[at][next])) { next = j; }
+            }
+            visited[next] = true;
+            order[k] = next;
+            at = next;
+        }
+
+        double current = tourCost(costs, order);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < m; i++) {
+                for (int j = i+1; j < m; j++) {
+                    // reverse the run order[i..j]; connections are directional,
+                    // so the whole tour is re-costed rather than just its ends
+                    int[] reversed = order.clone();
+                    for (int a = i, b = j; a < b; a++, b--) {
+                        reversed[a] = order[b];
+                        reversed[b] = order[a];
+                    }
+                    double c = tourCost(costs, reversed);
+                    if (c < current) {
+                        order = reversed;
+                        current = c;
+                        improved = true;
+                    }
+                    // move the run order[i..j-1] to follow order[j]
+                    int[] moved = order.clone();
+                    System.arraycopy(order, i, moved, i+1, j-i);
+                    moved[i] = order[j];
+                    c = tourCost(costs, moved);
+                    if (c < current) {
+                        order = moved;
+                        current = c;
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Class constructor.
+     * @param calcPath - path calculator used to connect NavPoints
+     * @param cost     - measure of path cost to minimize
+     * @param fixLast  - true if the last NavPoint stays the last one visited
+     */
+    public VisitOrderOptimizer(CalcPath calcPath, PathCost cost, boolean fixLast) {
+        this.calcPath = calcPath;
+        this.options = calcPath.getOptions();
+        this.cost = cost;
+        this.fixLast = fixLast;
+    }
+
+    /**
+     * Class constructor from a Map of settings parameters:
+     *   OPT_OBJECTIVE          LENGTH or TIME (default TIME)
+     *   OPT_FIX_LAST_NAVPOINT  true to keep the last NavPoint last (default false)
+     */
+    public VisitOrderOptimizer(CalcPath calcPath, Map<String, String> parameters) {
+        this(calcPath,
+             PathCost.fromSetting(parameters.get("OPT_OBJECTIVE"), PathCost.TIME),
+             Boolean.parseBoolean(parameters.get("OPT_FIX_LAST_NAVPOINT")));
+    }
+}
@@ -0,0 +1,50 @@
+package waypoint;
+
+/**
+ * Class to hold the kinematics of an X-drive: four omni wheels in the corners of the robot,
+ * each turned 45 degrees to drive along the diagonal, so the robot moves in any direction as
+ * well as turning. The front-left and back-right wheels drive forward-right, and the other
+ * two forward-left. Each wheel moves the robot 1/sqrt(2) of its travel forward and across,
+ * so the robot goes sqrt(2) times as fast as its wheels, forward or across.
+ */
+public class XDrive implements Drivetrain {
+
+    public static final String NAME = "X_DRIVE";
+
+    private static final double ROOT_HALF = Math.sqrt(0.5);
+
+    private double trackWidth;   // distance between the centers of the left and right wheels
+    private double wheelBase;    // distance between the centers of the front and back wheels
+    private double lever;        // wheel travel per radian of turn
+
+    public String name()          { return NAME; }
+    public int motorCount()       { return 4; }
+    public boolean isHolonomic()  { return true; }
+    public double trackWidth()    { return trackWidth; }
+
+    public void inverse(double forward, double left, double turn, double[] wheels) {
+        wheels[0] = ROOT_HALF*(forward - left) - lever*turn;   // front left
+        wheels[1] = ROOT_HALF*(forward + left) + lever*turn;   // front right
+        wheels[2] = ROOT_HALF*(forward + left) - lever*turn;   // back left
+        wheels[3] = ROOT_HALF*(forward - left) + lever*turn;   // back right
+    }
+
+    public void forward(double[] wheels, double[] motion) {
+        motion[0] = ( wheels[0] + wheels[1] + wheels[2] + wheels[3]) / (4.0*ROOT_HALF);
+        motion[1] = (-wheels[0] + wheels[1] + wheels[2] - wheels[3]) / (4.0*ROOT_HALF);
+        motion[2] = (-wheels[0] + wheels[1] - wheels[2] + wheels[3]) / (4.0*lever);
+    }
+
+    /**
+     * Constructor
+     * @param trackWidth - distance between the centers of the left and right wheels
+     * @param wheelBase  - distance between the centers of the front and back wheels
+     */
+    public XDrive(double trackWidth, double wheelBase) {
+        this.trackWidth = trackWidth;
+        this.wheelBase = wheelBase;
+        // Turning, a wheel travels the part of its motion about the center of the robot that
+        // lies along its diagonal.
+        this.lever = ROOT_HALF*(trackWidth + wheelBase) / 2.0;
+    }
+}